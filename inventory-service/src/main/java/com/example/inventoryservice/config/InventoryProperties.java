@@ -0,0 +1,123 @@
+package com.example.inventoryservice.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "inventory")
+public class InventoryProperties {
+
+    // Stock a product starts with the first time it is reserved, unless listed in stock
+    private int defaultStock = 100000;
+    // Starting stock per productId
+    private Map<Long, Integer> stock = new HashMap<>();
+    // Largest quantity a single reservation may hold
+    private int maxQuantity = 100;
+    // Most reservations accepted in one POST /inventory/reserve/batch
+    private int maxBatchSize = 1000;
+    // Holds of sagas that never confirm nor release them (abandoned orders) go back to stock after this
+    private Duration reservationTtl = Duration.ofMinutes(15);
+    private Duration sweepInterval = Duration.ofSeconds(1);
+    // Closed orders remembered so that late duplicate commands replay their outcome
+    private int closedOrders = 100000;
+
+    private Snapshot snapshot = new Snapshot();
+
+    public int getDefaultStock() {
+        return defaultStock;
+    }
+
+    public void setDefaultStock(int defaultStock) {
+        this.defaultStock = defaultStock;
+    }
+
+    public Map<Long, Integer> getStock() {
+        return stock;
+    }
+
+    public void setStock(Map<Long, Integer> stock) {
+        this.stock = stock;
+    }
+
+    public int getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public void setMaxQuantity(int maxQuantity) {
+        this.maxQuantity = maxQuantity;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public Duration getReservationTtl() {
+        return reservationTtl;
+    }
+
+    public void setReservationTtl(Duration reservationTtl) {
+        this.reservationTtl = reservationTtl;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+
+    public int getClosedOrders() {
+        return closedOrders;
+    }
+
+    public void setClosedOrders(int closedOrders) {
+        this.closedOrders = closedOrders;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public static class Snapshot {
+
+        // When enabled the ledger is written to path every interval and on shutdown, and reloaded on startup
+        private boolean enabled = true;
+        private String path = "data/inventory.snapshot";
+        private Duration interval = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
+}
@@ -1,44 +1,115 @@
 package com.example.inventoryservice.controller;
 
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.http.ResponseEntity;
 
+import com.example.inventoryservice.config.InventoryProperties;
+import com.example.inventoryservice.dto.ReservationRequest;
+import com.example.inventoryservice.dto.ReservationResult;
+import com.example.inventoryservice.service.InventoryLedger;
+
+import java.util.List;
 import java.util.UUID;
 
 
 @RestController
 public class InventoryController {
 
+    private final InventoryLedger inventoryLedger;
+    private final InventoryProperties properties;
+
+    public InventoryController(InventoryLedger inventoryLedger, InventoryProperties properties) {
+        this.inventoryLedger = inventoryLedger;
+        this.properties = properties;
+    }
+
     @PostMapping("/inventory/reserve")
-    public ResponseEntity<?> reserveInventory(@RequestParam UUID orderId, @RequestParam(required = false) Integer quantity){
+    public ResponseEntity<?> reserveInventory(@RequestParam UUID orderId,
+                                              @RequestParam(required = false) Long productId,
+                                              @RequestParam(required = false) Integer quantity){
+
+        ReservationResult result = reserve(orderId, productId, quantity);
+        return result.accepted()
+                ? ResponseEntity.ok(result.message())
+                : ResponseEntity.badRequest().body(result.message());
+    }
+
+    /**
+     * Reserves for many orders in one request. Always 200 when the batch itself is valid; each item
+     * carries its own outcome.
+     */
+    @PostMapping("/inventory/reserve/batch")
+    public ResponseEntity<?> reserveInventoryBatch(@RequestBody List<ReservationRequest> requests){
+        if(requests.size() > properties.getMaxBatchSize()){
+            return ResponseEntity.badRequest().body("Batch exceeds " + properties.getMaxBatchSize() + " reservations");
+        }
+        List<ReservationResult> results = requests.stream()
+                .map(request -> reserve(request.orderId(), request.productId(), request.quantity()))
+                .toList();
+        return ResponseEntity.ok(results);
+    }
 
+    @PostMapping("/inventory/release")
+    public ResponseEntity<?> releaseInventory(@RequestParam UUID orderId){
         if(orderId == null){
             return ResponseEntity.badRequest().body("Order ID is required");
         }
+        // Releasing an order that holds nothing is not an error: compensation may run more than once
+        int released = inventoryLedger.release(orderId);
+        System.out.println("Releasing inventory for Order: " + orderId + ", Quantity returned: " + released);
+        return ResponseEntity.ok("Inventory released successfully");
+    }
 
-        if(quantity == null){
-            return ResponseEntity.badRequest().body("Quantity is required");
+    @PostMapping("/inventory/confirm")
+    public ResponseEntity<?> confirmInventory(@RequestParam UUID orderId){
+        if(orderId == null){
+            return ResponseEntity.badRequest().body("Order ID is required");
         }
-        
-        if(quantity > 100) {
-            System.err.println("Inventory reservation failed for Order: " + orderId + " Out of Stock");
-            return ResponseEntity.badRequest().body("Inventory reservation failed: Out of Stock");
+        int confirmed = inventoryLedger.confirm(orderId);
+        if(confirmed == 0){
+            // Not an error: the saga retries a refused confirm, and there is nothing left to consume
+            System.err.println("No reservation held to confirm for Order: " + orderId);
+            return ResponseEntity.ok("Nothing held to confirm");
         }
+        System.out.println("Inventory confirmed for Order: " + orderId + ", Quantity: " + confirmed);
+        return ResponseEntity.ok("Inventory confirmed successfully");
+    }
 
-        System.out.println("Inventory reserved for Order: " + orderId + ", Quantity: " + quantity);
-        return ResponseEntity.ok("Inventory reserved successfully");
-
+    @GetMapping("/inventory/{productId}")
+    public ResponseEntity<?> getStock(@PathVariable long productId){
+        return inventoryLedger.level(productId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @PostMapping("/inventory/release")
-    public ResponseEntity<?> releaseInventory(@RequestParam UUID orderId){
+    private ReservationResult reserve(UUID orderId, Long productId, Integer quantity){
         if(orderId == null){
-            return ResponseEntity.badRequest().body("Order ID is required");
+            return new ReservationResult(null, false, "Order ID is required");
         }
-        System.out.println("Releasing inventory for Order: " + orderId);
-        return ResponseEntity.ok("Inventory released successfully");
+
+        if(productId == null){
+            return new ReservationResult(orderId, false, "Product ID is required");
+        }
+
+        if(quantity == null){
+            return new ReservationResult(orderId, false, "Quantity is required");
+        }
+
+        if(quantity <= 0){
+            return new ReservationResult(orderId, false, "Quantity must be positive");
+        }
+
+        if(quantity > properties.getMaxQuantity() || !inventoryLedger.reserve(orderId, productId, quantity)) {
+            System.err.println("Inventory reservation failed for Order: " + orderId + " Out of Stock");
+            return new ReservationResult(orderId, false, "Inventory reservation failed: Out of Stock");
+        }
+
+        System.out.println("Inventory reserved for Order: " + orderId + ", Product: " + productId + ", Quantity: " + quantity);
+        return new ReservationResult(orderId, true, "Inventory reserved successfully");
     }
 }
-
@@ -0,0 +1,9 @@
+package com.example.inventoryservice.dto;
+
+import java.util.UUID;
+
+/**
+ * One item of {@code POST /inventory/reserve/batch}.
+ */
+public record ReservationRequest(UUID orderId, Long productId, Integer quantity) {
+}
@@ -0,0 +1,10 @@
+package com.example.inventoryservice.dto;
+
+import java.util.UUID;
+
+/**
+ * Per-item answer of {@code POST /inventory/reserve/batch}; message is what {@code POST /inventory/reserve}
+ * would have answered for the order.
+ */
+public record ReservationResult(UUID orderId, boolean accepted, String message) {
+}
@@ -0,0 +1,429 @@
+package com.example.inventoryservice.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+
+import com.example.inventoryservice.config.InventoryProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory stock ledger. Every product has its own lock, so reservations of different products never
+ * contend and a hot product only serializes its own reservations. A reservation is a hold keyed by
+ * orderId: it is confirmed (stock consumed), released (stock returned) or expires after the
+ * reservation TTL and is returned by the sweeper. Once closed, the order's outcome is remembered for the
+ * last inventory.closed-orders orders, so a late duplicate of a reserve, release or confirm replays it
+ * instead of placing a hold nobody would release.
+ */
+@Service
+public class InventoryLedger implements SchedulingConfigurer {
+
+    // Version 1 snapshots carry no closed orders
+    private static final int SNAPSHOT_MAGIC_V1 = 0x494e5631;
+    private static final int SNAPSHOT_MAGIC = 0x494e5632;
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final InventoryProperties properties;
+    private final Map<Long, ProductStock> products = new ConcurrentHashMap<>();
+    // Product holding each order's reservation; only changed under that product's lock
+    private final Map<UUID, Long> holdsByOrder = new ConcurrentHashMap<>();
+    // Orders that hold nothing any more; the queue keeps them oldest first for eviction
+    private final Map<UUID, Closed> closedOrders = new ConcurrentHashMap<>();
+    private final Queue<UUID> closedOrder = new ConcurrentLinkedQueue<>();
+
+    private final Counter reserved;
+    private final Counter replayed;
+    private final Counter insufficient;
+    private final Counter released;
+    private final Counter confirmed;
+    private final Counter expired;
+
+    public InventoryLedger(InventoryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.reserved = reservationCounter(meterRegistry, "reserved");
+        this.replayed = reservationCounter(meterRegistry, "replayed");
+        this.insufficient = reservationCounter(meterRegistry, "insufficient");
+        this.released = holdCounter(meterRegistry, "released");
+        this.confirmed = holdCounter(meterRegistry, "confirmed");
+        this.expired = holdCounter(meterRegistry, "expired");
+        Gauge.builder("inventory.holds", holdsByOrder, Map::size)
+                .description("Reservations currently held")
+                .register(meterRegistry);
+        Gauge.builder("inventory.closed.orders", closedOrders, Map::size)
+                .description("Closed orders remembered to answer duplicate commands")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::expireHolds, properties.getSweepInterval());
+    }
+
+    /**
+     * Holds the quantity for the order. True if it was reserved now or the order already holds a
+     * reservation (a retried step), false if the product does not have enough stock left. A closed order
+     * is not reserved again: the answer is whether it had been reserved before it closed.
+     */
+    public boolean reserve(UUID orderId, long productId, int quantity) {
+        if (holdsByOrder.containsKey(orderId)) {
+            replayed.increment();
+            return true;
+        }
+        Closed closed = closedOrders.get(orderId);
+        if (closed != null) {
+            replayed.increment();
+            return closed.outcome().wasReserved();
+        }
+        ProductStock stock = stock(productId);
+        stock.lock.lock();
+        try {
+            if (stock.holds.containsKey(orderId)) {
+                replayed.increment();
+                return true;
+            }
+            if (stock.available < quantity) {
+                insufficient.increment();
+                closeIfOpen(orderId, new Closed(Outcome.DECLINED, productId, 0));
+                return false;
+            }
+            stock.available -= quantity;
+            stock.held += quantity;
+            stock.holds.put(orderId, new Hold(quantity, System.currentTimeMillis() + properties.getReservationTtl().toMillis()));
+            holdsByOrder.put(orderId, productId);
+
+            // Checked after the hold is visible: a release that found nothing to release voided the order
+            closed = closedOrders.get(orderId);
+            if (closed != null) {
+                stock.holds.remove(orderId);
+                holdsByOrder.remove(orderId);
+                stock.available += quantity;
+                stock.held -= quantity;
+                replayed.increment();
+                return closed.outcome().wasReserved();
+            }
+            reserved.increment();
+            return true;
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the order's held quantity to stock. Zero when the order holds nothing (never reserved,
+     * already released, confirmed or expired); an order released before it was ever reserved is voided,
+     * so a reservation still on its way is refused.
+     */
+    public int release(UUID orderId) {
+        // Recorded before looking for the hold, the reverse of reserve, so one of the two sees the other
+        closeIfOpen(orderId, new Closed(Outcome.VOIDED, 0, 0));
+        int quantity = removeHold(orderId, Outcome.RELEASED);
+        if (quantity > 0) {
+            released.increment();
+        }
+        return quantity;
+    }
+
+    /**
+     * Consumes the order's held quantity for good and returns it. A repeated confirm returns the quantity
+     * confirmed the first time; a confirm arriving after the hold expired takes the quantity out of
+     * stock again, even below zero, since the goods have been sold. Zero when the order holds nothing.
+     */
+    public int confirm(UUID orderId) {
+        int quantity = removeHold(orderId, Outcome.CONFIRMED);
+        if (quantity > 0) {
+            confirmed.increment();
+            return quantity;
+        }
+        Closed closed = closedOrders.get(orderId);
+        if (closed == null) {
+            return 0;
+        }
+        if (closed.outcome() == Outcome.CONFIRMED) {
+            replayed.increment();
+            return closed.quantity();
+        }
+        if (closed.outcome() == Outcome.EXPIRED) {
+            return confirmExpired(orderId, closed.productId());
+        }
+        return 0;
+    }
+
+    public Optional<StockLevel> level(long productId) {
+        ProductStock stock = products.get(productId);
+        if (stock == null) {
+            return Optional.empty();
+        }
+        stock.lock.lock();
+        try {
+            return Optional.of(new StockLevel(productId, stock.available, stock.held, stock.holds.size()));
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns every hold past its TTL to stock. Holds of a product expire in insertion order, so each
+     * product is only walked up to its first live hold.
+     */
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        int expiredHolds = 0;
+        for (Map.Entry<Long, ProductStock> product : products.entrySet()) {
+            ProductStock stock = product.getValue();
+            stock.lock.lock();
+            try {
+                Iterator<Map.Entry<UUID, Hold>> holds = stock.holds.entrySet().iterator();
+                while (holds.hasNext()) {
+                    Map.Entry<UUID, Hold> entry = holds.next();
+                    if (entry.getValue().expiresAt() > now) {
+                        break;
+                    }
+                    holds.remove();
+                    holdsByOrder.remove(entry.getKey());
+                    close(entry.getKey(), new Closed(Outcome.EXPIRED, product.getKey(), entry.getValue().quantity()));
+                    stock.available += entry.getValue().quantity();
+                    stock.held -= entry.getValue().quantity();
+                    expiredHolds++;
+                }
+            } finally {
+                stock.lock.unlock();
+            }
+        }
+        if (expiredHolds > 0) {
+            expired.increment(expiredHolds);
+            System.out.println("Inventory Ledger: " + expiredHolds + " reservations expired and returned to stock");
+        }
+    }
+
+    /**
+     * Writes every product with its holds, then the closed orders. Each product is copied under its own
+     * lock, so the image of a product is always consistent even though products are taken at slightly
+     * different moments.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        List<Long> productIds = new ArrayList<>(products.keySet());
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(productIds.size());
+        for (Long productId : productIds) {
+            ProductStock stock = products.get(productId);
+            int available;
+            List<Map.Entry<UUID, Hold>> holds;
+            stock.lock.lock();
+            try {
+                available = stock.available;
+                holds = new ArrayList<>(stock.holds.entrySet());
+            } finally {
+                stock.lock.unlock();
+            }
+            out.writeLong(productId);
+            out.writeInt(available);
+            out.writeInt(holds.size());
+            for (Map.Entry<UUID, Hold> hold : holds) {
+                out.writeLong(hold.getKey().getMostSignificantBits());
+                out.writeLong(hold.getKey().getLeastSignificantBits());
+                out.writeInt(hold.getValue().quantity());
+                out.writeLong(hold.getValue().expiresAt());
+            }
+        }
+        List<Map.Entry<UUID, Closed>> closed = new ArrayList<>(closedOrders.entrySet());
+        out.writeInt(closed.size());
+        for (Map.Entry<UUID, Closed> entry : closed) {
+            out.writeLong(entry.getKey().getMostSignificantBits());
+            out.writeLong(entry.getKey().getLeastSignificantBits());
+            out.writeByte(entry.getValue().outcome().ordinal());
+            out.writeLong(entry.getValue().productId());
+            out.writeInt(entry.getValue().quantity());
+        }
+    }
+
+    /**
+     * Replaces the ledger with a snapshot written by {@link #writeTo}. Holds that expired while the
+     * service was down are returned by the next sweep. Returns the number of products read.
+     */
+    public int readFrom(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V1) {
+            throw new IOException("Not an inventory snapshot");
+        }
+        products.clear();
+        holdsByOrder.clear();
+        closedOrders.clear();
+        closedOrder.clear();
+        int productCount = in.readInt();
+        for (int i = 0; i < productCount; i++) {
+            long productId = in.readLong();
+            ProductStock stock = new ProductStock(in.readInt());
+            int holdCount = in.readInt();
+            for (int j = 0; j < holdCount; j++) {
+                UUID orderId = new UUID(in.readLong(), in.readLong());
+                Hold hold = new Hold(in.readInt(), in.readLong());
+                stock.holds.put(orderId, hold);
+                stock.held += hold.quantity();
+                holdsByOrder.put(orderId, productId);
+            }
+            products.put(productId, stock);
+        }
+        if (magic == SNAPSHOT_MAGIC) {
+            int closedCount = in.readInt();
+            for (int i = 0; i < closedCount; i++) {
+                UUID orderId = new UUID(in.readLong(), in.readLong());
+                close(orderId, new Closed(OUTCOMES[in.readByte()], in.readLong(), in.readInt()));
+            }
+        }
+        return productCount;
+    }
+
+    private int removeHold(UUID orderId, Outcome outcome) {
+        Long productId = holdsByOrder.get(orderId);
+        if (productId == null) {
+            return 0;
+        }
+        ProductStock stock = products.get(productId);
+        stock.lock.lock();
+        try {
+            Hold hold = stock.holds.remove(orderId);
+            if (hold == null) {
+                return 0;
+            }
+            holdsByOrder.remove(orderId);
+            close(orderId, new Closed(outcome, productId, hold.quantity()));
+            stock.held -= hold.quantity();
+            if (outcome == Outcome.RELEASED) {
+                stock.available += hold.quantity();
+            }
+            return hold.quantity();
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    /**
+     * Confirms an order whose hold the sweeper returned to stock: the saga completed after the TTL.
+     */
+    private int confirmExpired(UUID orderId, long productId) {
+        ProductStock stock = stock(productId);
+        stock.lock.lock();
+        try {
+            // Expiry and confirmation of the order are recorded under this lock, so this is the last word
+            Closed closed = closedOrders.get(orderId);
+            if (closed == null) {
+                return 0;
+            }
+            if (closed.outcome() == Outcome.CONFIRMED) {
+                replayed.increment();
+                return closed.quantity();
+            }
+            stock.available -= closed.quantity();
+            close(orderId, new Closed(Outcome.CONFIRMED, productId, closed.quantity()));
+            confirmed.increment();
+            System.err.println("Inventory Ledger: Order " + orderId + " confirmed after its hold expired, "
+                    + closed.quantity() + " of product " + productId + " taken from stock again");
+            return closed.quantity();
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    private void close(UUID orderId, Closed closed) {
+        if (closedOrders.put(orderId, closed) == null) {
+            remembered(orderId);
+        }
+    }
+
+    private void closeIfOpen(UUID orderId, Closed closed) {
+        if (closedOrders.putIfAbsent(orderId, closed) == null) {
+            remembered(orderId);
+        }
+    }
+
+    private void remembered(UUID orderId) {
+        closedOrder.add(orderId);
+        while (closedOrders.size() > properties.getClosedOrders()) {
+            UUID eldest = closedOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            closedOrders.remove(eldest);
+        }
+    }
+
+    private ProductStock stock(long productId) {
+        ProductStock stock = products.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        return products.computeIfAbsent(productId,
+                id -> new ProductStock(properties.getStock().getOrDefault(id, properties.getDefaultStock())));
+    }
+
+    private static Counter reservationCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.reservations")
+                .description("Reservation requests by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter holdCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("inventory.holds.closed")
+                .description("Reservations no longer held, by why")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public record StockLevel(long productId, int available, int held, int reservations) {
+    }
+
+    private record Hold(int quantity, long expiresAt) {
+    }
+
+    private record Closed(Outcome outcome, long productId, int quantity) {
+    }
+
+    /**
+     * How an order stopped holding stock. The ordinal is written to snapshots: append only.
+     */
+    private enum Outcome {
+        // Refused for want of stock
+        DECLINED,
+        // Released before it was reserved
+        VOIDED,
+        RELEASED,
+        CONFIRMED,
+        EXPIRED;
+
+        boolean wasReserved() {
+            return this != DECLINED && this != VOIDED;
+        }
+    }
+
+    private static final class ProductStock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Every hold gets the same TTL, so insertion order is expiry order
+        private final LinkedHashMap<UUID, Hold> holds = new LinkedHashMap<>();
+        private int available;
+        private int held;
+
+        private ProductStock(int available) {
+            this.available = available;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.inventoryservice.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import com.example.inventoryservice.config.InventoryProperties;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps a copy of the {@link InventoryLedger} on local disk: reloaded before the service takes requests,
+ * rewritten every snapshot interval and once more on shutdown. A crash loses at most one interval of
+ * changes. Each snapshot is written to a temporary file and moved over the previous one, so a crash
+ * mid-write leaves the last complete snapshot in place.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class InventorySnapshotStore implements SchedulingConfigurer {
+
+    private final InventoryLedger inventoryLedger;
+    private final InventoryProperties.Snapshot properties;
+    private final Path path;
+    // The scheduled save and the shutdown save share the temporary file
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    public InventorySnapshotStore(InventoryLedger inventoryLedger, InventoryProperties properties) {
+        this.inventoryLedger = inventoryLedger;
+        this.properties = properties.getSnapshot();
+        this.path = Paths.get(this.properties.getPath()).toAbsolutePath();
+        load();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::save, properties.getInterval());
+    }
+
+    public void save() {
+        long started = System.nanoTime();
+        saveLock.lock();
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                inventoryLedger.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Inventory Snapshot: Could not write " + path + " Error: " + e.getMessage());
+            return;
+        } finally {
+            saveLock.unlock();
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        if (elapsedMs > 100) {
+            System.out.println("Inventory Snapshot: Writing " + path + " took " + elapsedMs + " ms");
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        save();
+        System.out.println("Inventory Snapshot: Written to " + path);
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            System.out.println("Inventory Snapshot: No snapshot at " + path + ", starting from configured stock");
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int products = inventoryLedger.readFrom(in);
+            System.out.println("Inventory Snapshot: Reloaded " + products + " products from " + path);
+        } catch (IOException e) {
+            // Refuse to start on a damaged snapshot rather than silently resetting stock
+            throw new IllegalStateException("Inventory Snapshot: Could not read " + path, e);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.inventoryservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.inventoryservice.config.InventoryProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InventoryLedgerTest {
+
+    private static final long PRODUCT_ID = 1L;
+    private static final int STOCK = 1000;
+
+    private InventoryProperties properties;
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        properties = new InventoryProperties();
+        properties.getStock().put(PRODUCT_ID, STOCK);
+        ledger = new InventoryLedger(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void concurrentReservationsOfOneProductDoNotOversell() throws Exception {
+        int threads = 16;
+        int ordersPerThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reservedQuantity = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        int quantity = 1 + i % 3;
+                        if (ledger.reserve(UUID.randomUUID(), PRODUCT_ID, quantity)) {
+                            reservedQuantity.addAndGet(quantity);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InventoryLedger.StockLevel level = ledger.level(PRODUCT_ID).orElseThrow();
+        // Far more was asked for than there is, so stock ends up fully held and never negative
+        assertThat(reservedQuantity.get()).isLessThanOrEqualTo(STOCK);
+        assertThat(level.available()).isGreaterThanOrEqualTo(0);
+        assertThat(level.held()).isEqualTo(reservedQuantity.get());
+        assertThat(level.available() + level.held()).isEqualTo(STOCK);
+        assertThat(level.available()).isLessThan(3);
+    }
+
+    @Test
+    void concurrentRetriesOfOneOrderHoldOnce() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    return ledger.reserve(orderId, PRODUCT_ID, 5);
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> attempt : attempts) {
+                assertThat(attempt.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InventoryLedger.StockLevel level = ledger.level(PRODUCT_ID).orElseThrow();
+        assertThat(level.held()).isEqualTo(5);
+        assertThat(level.reservations()).isEqualTo(1);
+        assertThat(level.available()).isEqualTo(STOCK - 5);
+    }
+
+    @Test
+    void concurrentReleasesAndReservationsKeepStockBalanced() throws Exception {
+        int orders = 2000;
+        List<UUID> held = new ArrayList<>();
+        for (int i = 0; i < STOCK; i++) {
+            UUID orderId = UUID.randomUUID();
+            assertThat(ledger.reserve(orderId, PRODUCT_ID, 1)).isTrue();
+            held.add(orderId);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int slice = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = slice; i < held.size(); i += 4) {
+                        ledger.release(held.get(i));
+                    }
+                    return null;
+                }));
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < orders / 4; i++) {
+                        if (ledger.reserve(UUID.randomUUID(), PRODUCT_ID, 1)) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InventoryLedger.StockLevel level = ledger.level(PRODUCT_ID).orElseThrow();
+        assertThat(reserved.get()).isLessThanOrEqualTo(STOCK);
+        assertThat(level.held()).isEqualTo(reserved.get());
+        assertThat(level.available() + level.held()).isEqualTo(STOCK);
+    }
+
+    @Test
+    void refusesWhatIsNotInStock() {
+        assertThat(ledger.reserve(UUID.randomUUID(), PRODUCT_ID, STOCK - 1)).isTrue();
+
+        assertThat(ledger.reserve(UUID.randomUUID(), PRODUCT_ID, 2)).isFalse();
+        assertThat(ledger.reserve(UUID.randomUUID(), PRODUCT_ID, 1)).isTrue();
+        assertThat(ledger.level(PRODUCT_ID).orElseThrow().available()).isZero();
+    }
+
+    @Test
+    void releaseReturnsStockOnceAndConfirmConsumesIt() {
+        UUID released = UUID.randomUUID();
+        UUID confirmed = UUID.randomUUID();
+        ledger.reserve(released, PRODUCT_ID, 10);
+        ledger.reserve(confirmed, PRODUCT_ID, 20);
+
+        assertThat(ledger.release(released)).isEqualTo(10);
+        assertThat(ledger.release(released)).isZero();
+        assertThat(ledger.confirm(confirmed)).isEqualTo(20);
+        assertThat(ledger.release(confirmed)).isZero();
+
+        InventoryLedger.StockLevel level = ledger.level(PRODUCT_ID).orElseThrow();
+        assertThat(level.available()).isEqualTo(STOCK - 20);
+        assertThat(level.held()).isZero();
+    }
+
+    @Test
+    void expiredHoldsReturnToStock() {
+        properties.setReservationTtl(Duration.ZERO);
+        UUID orderId = UUID.randomUUID();
+        ledger.reserve(orderId, PRODUCT_ID, 10);
+
+        ledger.expireHolds();
+
+        assertThat(ledger.level(PRODUCT_ID).orElseThrow().available()).isEqualTo(STOCK);
+        assertThat(ledger.release(orderId)).isZero();
+    }
+
+    @Test
+    void lateDuplicateReserveReplaysTheClosedOrder() {
+        UUID released = UUID.randomUUID();
+        UUID confirmed = UUID.randomUUID();
+        UUID declined = UUID.randomUUID();
+        ledger.reserve(released, PRODUCT_ID, 10);
+        ledger.reserve(confirmed, PRODUCT_ID, 20);
+        ledger.release(released);
+        ledger.confirm(confirmed);
+        assertThat(ledger.reserve(declined, PRODUCT_ID, STOCK)).isFalse();
+
+        assertThat(ledger.reserve(released, PRODUCT_ID, 10)).isTrue();
+        assertThat(ledger.reserve(confirmed, PRODUCT_ID, 20)).isTrue();
+        assertThat(ledger.reserve(declined, PRODUCT_ID, 1)).isFalse();
+
+        // Nothing new is held for orders that are already over
+        InventoryLedger.StockLevel level = ledger.level(PRODUCT_ID).orElseThrow();
+        assertThat(level.held()).isZero();
+        assertThat(level.available()).isEqualTo(STOCK - 20);
+    }
+
+    @Test
+    void reserveArrivingAfterItsReleaseIsRefused() {
+        UUID orderId = UUID.randomUUID();
+
+        assertThat(ledger.release(orderId)).isZero();
+
+        assertThat(ledger.reserve(orderId, PRODUCT_ID, 10)).isFalse();
+        // Refused before the product was even looked at
+        assertThat(ledger.level(PRODUCT_ID)).isEmpty();
+    }
+
+    @Test
+    void repeatedConfirmReturnsTheFirstQuantityOnce() {
+        UUID orderId = UUID.randomUUID();
+        ledger.reserve(orderId, PRODUCT_ID, 10);
+
+        assertThat(ledger.confirm(orderId)).isEqualTo(10);
+        assertThat(ledger.confirm(orderId)).isEqualTo(10);
+        assertThat(ledger.confirm(UUID.randomUUID())).isZero();
+
+        assertThat(ledger.level(PRODUCT_ID).orElseThrow().available()).isEqualTo(STOCK - 10);
+    }
+
+    @Test
+    void confirmAfterExpiryTakesTheStockAgain() {
+        properties.setReservationTtl(Duration.ZERO);
+        UUID orderId = UUID.randomUUID();
+        ledger.reserve(orderId, PRODUCT_ID, 10);
+        ledger.expireHolds();
+        assertThat(ledger.reserve(orderId, PRODUCT_ID, 10)).isTrue();
+        assertThat(ledger.level(PRODUCT_ID).orElseThrow().available()).isEqualTo(STOCK);
+
+        assertThat(ledger.confirm(orderId)).isEqualTo(10);
+        assertThat(ledger.confirm(orderId)).isEqualTo(10);
+
+        InventoryLedger.StockLevel level = ledger.level(PRODUCT_ID).orElseThrow();
+        assertThat(level.available()).isEqualTo(STOCK - 10);
+        assertThat(level.held()).isZero();
+    }
+
+    @Test
+    void oldestClosedOrdersAreForgottenPastTheBound() {
+        properties.setClosedOrders(2);
+        UUID oldest = UUID.randomUUID();
+        for (UUID orderId : List.of(oldest, UUID.randomUUID(), UUID.randomUUID())) {
+            ledger.reserve(orderId, PRODUCT_ID, 1);
+            ledger.release(orderId);
+        }
+
+        // Forgotten, so treated as a new order
+        assertThat(ledger.reserve(oldest, PRODUCT_ID, 1)).isTrue();
+        assertThat(ledger.level(PRODUCT_ID).orElseThrow().held()).isEqualTo(1);
+    }
+
+    @Test
+    void snapshotRestoresStockAndHolds() throws IOException {
+        UUID orderId = UUID.randomUUID();
+        ledger.reserve(orderId, PRODUCT_ID, 10);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ledger.writeTo(new DataOutputStream(bytes));
+
+        InventoryLedger restored = new InventoryLedger(properties, new SimpleMeterRegistry());
+        assertThat(restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))).isEqualTo(1);
+
+        InventoryLedger.StockLevel level = restored.level(PRODUCT_ID).orElseThrow();
+        assertThat(level.available()).isEqualTo(STOCK - 10);
+        assertThat(level.held()).isEqualTo(10);
+        assertThat(restored.release(orderId)).isEqualTo(10);
+    }
+
+    @Test
+    void snapshotRestoresClosedOrders() throws IOException {
+        UUID released = UUID.randomUUID();
+        ledger.reserve(released, PRODUCT_ID, 10);
+        ledger.release(released);
+        UUID confirmed = UUID.randomUUID();
+        ledger.reserve(confirmed, PRODUCT_ID, 20);
+        ledger.confirm(confirmed);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ledger.writeTo(new DataOutputStream(bytes));
+
+        InventoryLedger restored = new InventoryLedger(properties, new SimpleMeterRegistry());
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.reserve(released, PRODUCT_ID, 10)).isTrue();
+        assertThat(restored.confirm(confirmed)).isEqualTo(20);
+        InventoryLedger.StockLevel level = restored.level(PRODUCT_ID).orElseThrow();
+        assertThat(level.held()).isZero();
+        assertThat(level.available()).isEqualTo(STOCK - 20);
+    }
+}
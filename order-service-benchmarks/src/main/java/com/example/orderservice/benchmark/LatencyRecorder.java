@@ -0,0 +1,53 @@
+package com.example.orderservice.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Every latency of a load run, kept exactly rather than bucketed: a run of a few hundred thousand orders
+ * is a few megabytes, and p999 needs no resolution argument.
+ */
+final class LatencyRecorder {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long[] nanos = new long[1 << 16];
+    private int count;
+
+    void record(long latencyNanos) {
+        lock.lock();
+        try {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latencyNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sorted copy of everything recorded so far.
+     */
+    long[] sorted() {
+        long[] copy;
+        lock.lock();
+        try {
+            copy = Arrays.copyOf(nanos, count);
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /**
+     * Nearest-rank percentile of a sorted array, 0 when nothing was recorded.
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
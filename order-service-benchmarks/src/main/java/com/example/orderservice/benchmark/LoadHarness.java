@@ -0,0 +1,368 @@
+package com.example.orderservice.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.OrderTransition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * End-to-end load run without Postgres or the other containers: boots order-service on in-memory H2 with
+ * the in-process payment and inventory stand-ins and drives {@code POST /api/orders} over HTTP in sync
+ * submission mode, so a response means the saga settled.
+ * <p>
+ * closed: each client sends its next order when the previous one settled. open: orders arrive at a fixed
+ * rate whatever the response times, and latency is counted from the scheduled send time, so a stalled
+ * service shows up in the percentiles instead of slowing the clients down.
+ * <p>
+ * {@code --load.*} arguments configure the run; anything else is passed to the application, e.g.
+ * {@code --saga.transport.in-process.payment-latency=50ms}. The report is written as JSON.
+ */
+public final class LoadHarness {
+
+    private static final String LOAD_PREFIX = "--load.";
+
+    // Stand-ins that answer like a nearby service rather than instantly; overridable like any other property
+    private static final String[] DEFAULTS = {
+            "--saga.submission.mode=sync",
+            "--saga.resilience.saga-deadline=30s",
+            "--saga.transport.in-process.payment-latency=10ms",
+            "--saga.transport.in-process.inventory-latency=10ms"
+    };
+
+    // Recorded in the report next to the load options, as resolved by the application
+    private static final String[] REPORTED_PROPERTIES = {
+            "saga.engine.type",
+            "saga.engine.step-mode",
+            "saga.transport.in-process.payment-latency",
+            "saga.transport.in-process.inventory-latency",
+            "saga.transport.in-process.payment-failure-rate",
+            "saga.transport.in-process.inventory-failure-rate",
+            "saga.transport.batch.enabled",
+            "saga.resilience.enabled",
+            "saga.outbox.enabled",
+            "saga.admission.enabled",
+            "spring.threads.virtual.enabled"
+    };
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    enum Workload {
+        CLOSED, OPEN
+    }
+
+    private enum Outcome {
+        // 201: payment taken and inventory reserved
+        SUCCEEDED,
+        // 500 with the order in ORDER_FAILED
+        FAILED,
+        // 429 from the admission limiter
+        SHED,
+        // Anything else, including transport errors and timeouts
+        ERROR
+    }
+
+    private final Options options;
+    private final ConfigurableApplicationContext context;
+    private final HttpClient httpClient;
+    private final URI ordersUri;
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final AtomicLong[] outcomes = new AtomicLong[Outcome.values().length];
+
+    private long measureFrom;
+    private long measureUntil;
+
+    private LoadHarness(Options options, ConfigurableApplicationContext context) {
+        this.options = options;
+        this.context = context;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.ordersUri = URI.create("http://localhost:" + port + "/api/orders");
+        for (Outcome outcome : Outcome.values()) {
+            outcomes[outcome.ordinal()] = new AtomicLong();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> loadOptions = new HashMap<>();
+        List<String> overrides = new ArrayList<>(List.of(DEFAULTS));
+        for (String arg : args) {
+            if (arg.startsWith(LOAD_PREFIX)) {
+                String[] option = arg.substring(LOAD_PREFIX.length()).split("=", 2);
+                loadOptions.put(option[0], option.length > 1 ? option[1] : "");
+            } else {
+                overrides.add(arg);
+            }
+        }
+        Options options = Options.parse(loadOptions);
+
+        System.out.println("Load Harness: " + options.workload().name().toLowerCase(Locale.ROOT) + " workload, "
+                + options.clients() + " clients, " + options.warmup() + " warmup, " + options.duration() + " measured");
+        ConfigurableApplicationContext context = OrderServiceContext.start(
+                WebApplicationType.SERVLET, overrides.toArray(String[]::new));
+        Report report;
+        try {
+            report = new LoadHarness(options, context).run();
+        } finally {
+            OrderServiceContext.stop(context);
+        }
+
+        String json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        Files.writeString(options.report(), json);
+        System.out.println(json);
+        System.out.println("Load Harness: Report written to " + options.report().toAbsolutePath());
+    }
+
+    private Report run() throws InterruptedException {
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        long started = System.nanoTime();
+        measureFrom = started + options.warmup().toNanos();
+        measureUntil = measureFrom + options.duration().toNanos();
+
+        List<Thread> clients = new ArrayList<>(options.clients());
+        for (int client = 0; client < options.clients(); client++) {
+            int id = client;
+            clients.add(Thread.ofVirtual().name("load-client-" + id).start(() -> {
+                if (options.workload() == Workload.CLOSED) {
+                    runClosedClient(id);
+                } else {
+                    runOpenClient(id, started);
+                }
+            }));
+        }
+
+        // Sagas settled during warmup are not counted; in sync mode a saga's transitions are done when it answers
+        LockSupport.parkNanos(measureFrom - System.nanoTime());
+        double failedBefore = transitions(meterRegistry, transition -> transition.getTarget() == OrderState.ORDER_FAILED);
+        double compensatedBefore = transitions(meterRegistry, OrderTransition::isCompensating);
+        for (Thread client : clients) {
+            client.join();
+        }
+        long failedSagas = Math.round(transitions(meterRegistry,
+                transition -> transition.getTarget() == OrderState.ORDER_FAILED) - failedBefore);
+        long compensatedSagas = Math.round(transitions(meterRegistry, OrderTransition::isCompensating)
+                - compensatedBefore);
+
+        return report(failedSagas, compensatedSagas);
+    }
+
+    private void runClosedClient(int id) {
+        SplittableRandom random = new SplittableRandom(options.seed() + id);
+        while (true) {
+            long sent = System.nanoTime();
+            if (sent >= measureUntil) {
+                return;
+            }
+            Outcome outcome;
+            try {
+                outcome = classify(httpClient.send(request(random), HttpResponse.BodyHandlers.ofString()));
+            } catch (IOException e) {
+                outcome = Outcome.ERROR;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            record(outcome, sent, System.nanoTime());
+        }
+    }
+
+    private void runOpenClient(int id, long started) {
+        SplittableRandom random = new SplittableRandom(options.seed() + id);
+        // Each client sends every `period`; their schedules are staggered so the arrivals are evenly spaced
+        long period = (long) (options.clients() * 1e9 / options.rate());
+        long first = started + id * period / options.clients();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (long sent = first; sent < measureUntil; sent += period) {
+            long wait;
+            while ((wait = sent - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduled = sent;
+            pending.add(httpClient.sendAsync(request(random), HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        record(error == null ? classify(response) : Outcome.ERROR, scheduled, System.nanoTime());
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private HttpRequest request(SplittableRandom random) {
+        // Above 1000 the payment stand-in declines; above 100 units the inventory stand-in refuses, compensating the payment
+        int amount = random.nextDouble() < options.paymentDeclineRatio() ? 5000 : 100;
+        int quantity = random.nextDouble() < options.inventoryRejectRatio() ? 500 : 1;
+        String body = "{\"customerId\":1,\"productId\":1,\"quantity\":" + quantity + ",\"amount\":" + amount + "}";
+        return HttpRequest.newBuilder(ordersUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Outcome classify(HttpResponse<String> response) {
+        return switch (response.statusCode()) {
+            case 201 -> Outcome.SUCCEEDED;
+            case 500 -> response.body().contains(OrderState.ORDER_FAILED.name()) ? Outcome.FAILED : Outcome.ERROR;
+            case 429 -> Outcome.SHED;
+            default -> Outcome.ERROR;
+        };
+    }
+
+    /**
+     * Counts orders sent inside the measured window; the settled ones also record their latency.
+     */
+    private void record(Outcome outcome, long sent, long answered) {
+        if (sent < measureFrom || sent >= measureUntil) {
+            return;
+        }
+        outcomes[outcome.ordinal()].incrementAndGet();
+        if (outcome == Outcome.SUCCEEDED || outcome == Outcome.FAILED) {
+            latencies.record(answered - sent);
+        }
+    }
+
+    private static double transitions(MeterRegistry meterRegistry, Predicate<OrderTransition> filter) {
+        double count = 0;
+        for (OrderTransition transition : OrderTransition.values()) {
+            if (!filter.test(transition)) {
+                continue;
+            }
+            Counter counter = meterRegistry.find("saga.transitions")
+                    .tag("source", transition.getSource().name())
+                    .tag("event", transition.getEvent().name())
+                    .tag("target", transition.getTarget().name())
+                    .counter();
+            if (counter != null) {
+                count += counter.count();
+            }
+        }
+        return count;
+    }
+
+    private Report report(long failedSagas, long compensatedSagas) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("workload", options.workload().name().toLowerCase(Locale.ROOT));
+        config.put("clients", options.clients());
+        if (options.workload() == Workload.OPEN) {
+            config.put("rate", options.rate());
+        }
+        config.put("warmup", options.warmup().toString());
+        config.put("duration", options.duration().toString());
+        config.put("paymentDeclineRatio", options.paymentDeclineRatio());
+        config.put("inventoryRejectRatio", options.inventoryRejectRatio());
+        config.put("seed", options.seed());
+        Environment environment = context.getEnvironment();
+        for (String property : REPORTED_PROPERTIES) {
+            config.put(property, environment.getProperty(property));
+        }
+
+        long succeeded = outcomes[Outcome.SUCCEEDED.ordinal()].get();
+        long failed = outcomes[Outcome.FAILED.ordinal()].get();
+        long shed = outcomes[Outcome.SHED.ordinal()].get();
+        long errors = outcomes[Outcome.ERROR.ordinal()].get();
+        Orders orders = new Orders(succeeded + failed + shed + errors, succeeded, failed, shed, errors);
+
+        double seconds = options.duration().toNanos() / 1e9;
+        long[] sorted = latencies.sorted();
+        double total = 0;
+        for (long latency : sorted) {
+            total += latency;
+        }
+        Latency latency = new Latency(
+                millis(LatencyRecorder.percentile(sorted, 50)),
+                millis(LatencyRecorder.percentile(sorted, 90)),
+                millis(LatencyRecorder.percentile(sorted, 99)),
+                millis(LatencyRecorder.percentile(sorted, 99.9)),
+                millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]),
+                sorted.length == 0 ? 0 : millis(total / sorted.length));
+
+        Compensation compensation = new Compensation(failedSagas, compensatedSagas,
+                compensatedSagas == 0 ? null : round((double) failedSagas / compensatedSagas));
+
+        return new Report(config, orders, round(orders.submitted() / seconds), round((succeeded + failed) / seconds),
+                latency, compensation);
+    }
+
+    private static double millis(double nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * {@code --load.*} options: workload (closed|open), clients, rate (orders per second, open only),
+     * warmup, duration, payment-decline-ratio and inventory-reject-ratio (share of orders the stand-ins
+     * refuse on their business rules), seed and report (output file).
+     */
+    record Options(Workload workload, int clients, double rate, Duration warmup, Duration duration,
+                   double paymentDeclineRatio, double inventoryRejectRatio, long seed, Path report) {
+
+        static Options parse(Map<String, String> options) {
+            Options parsed = new Options(
+                    Workload.valueOf(options.getOrDefault("workload", "closed").toUpperCase(Locale.ROOT)),
+                    Integer.parseInt(options.getOrDefault("clients", "64")),
+                    Double.parseDouble(options.getOrDefault("rate", "500")),
+                    DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s")),
+                    DurationStyle.detectAndParse(options.getOrDefault("duration", "30s")),
+                    Double.parseDouble(options.getOrDefault("payment-decline-ratio", "0.1")),
+                    Double.parseDouble(options.getOrDefault("inventory-reject-ratio", "0.1")),
+                    Long.parseLong(options.getOrDefault("seed", "42")),
+                    Path.of(options.getOrDefault("report", "load-report.json")));
+            if (parsed.clients() < 1 || parsed.rate() <= 0 || parsed.duration().isZero()) {
+                throw new IllegalArgumentException("Load Harness: clients and rate must be positive, duration non-zero: " + parsed);
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * The JSON report. Orders count submissions sent in the measured window; settled is succeeded plus
+     * failed per second. Latency covers settled orders only. Compensation counts sagas that reached
+     * ORDER_FAILED and those whose failing transition undid a completed step.
+     */
+    record Report(Map<String, Object> config, Orders orders, double offeredPerSecond, double settledPerSecond,
+                  Latency latencyMillis, Compensation compensation) {
+    }
+
+    record Orders(long submitted, long succeeded, long failed, long shed, long errors) {
+    }
+
+    record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+    }
+
+    record Compensation(long failedSagas, long compensatedSagas, Double failedToCompensatedRatio) {
+    }
+}
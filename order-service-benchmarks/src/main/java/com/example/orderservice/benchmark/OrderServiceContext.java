@@ -0,0 +1,68 @@
+package com.example.orderservice.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.orderservice.OrderServiceApplication;
+
+/**
+ * Boots the real order-service application for a benchmark trial: no web server, an in-memory H2 database
+ * of its own, the in-process transport with no latency and no startup recovery. Extra arguments override
+ * any of these as {@code --name=value}. The load harness starts it with a web server on a free port.
+ */
+final class OrderServiceContext {
+
+    private static final PrintStream OUT = System.out;
+    private static final PrintStream ERR = System.err;
+
+    private OrderServiceContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... overrides) {
+        return start(WebApplicationType.NONE, overrides);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        // application.yml pins the PostgreSQL dialect
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("saga.transport.type", "in-process");
+        properties.put("saga.recovery.enabled", "false");
+        // A trial outlives the default 30s saga deadline
+        properties.put("saga.resilience.saga-deadline", "1d");
+        properties.put("server.port", "0");
+        for (String override : overrides) {
+            String[] property = override.substring(2).split("=", 2);
+            properties.put(property[0], property[1]);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(webApplicationType)
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+        // The saga code logs every step to the console; measure the saga, not the terminal
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        return context;
+    }
+
+    static void stop(ConfigurableApplicationContext context) {
+        System.setOut(OUT);
+        System.setErr(ERR);
+        context.close();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.orderservice.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.orderservice.engine.SagaInstance;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.service.SagaActions;
+import com.example.orderservice.service.SagaRegistry;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.SagaCommand;
+
+/**
+ * A saga step end to end through SagaActions: the order read, the call through the transport stack
+ * (metrics, retries and breaker around the in-process transport, no latency) and the outcome event
+ * delivered back through SagaRegistry on the saga scheduler. The saga receiving the event is a stub that
+ * only hands it to the benchmark thread, so no transition is included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SagaActionsBenchmark {
+
+    @Param({"PROCESS_PAYMENT", "RESERVE_INVENTORY"})
+    public SagaCommand command;
+
+    private ConfigurableApplicationContext context;
+    private SagaActions sagaActions;
+    private UUID orderId;
+    private OutcomeSink saga;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = OrderServiceContext.start();
+        sagaActions = context.getBean(SagaActions.class);
+
+        Order order = new Order(null, 1L, 1L, 1, BigDecimal.TEN, OrderState.PAYMENT_PENDING);
+        order.setCreatedAt(Instant.now());
+        orderId = context.getBean(OrderRepository.class).save(order).getId();
+        saga = new OutcomeSink(orderId);
+        context.getBean(SagaRegistry.class).register(orderId, saga);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        OrderServiceContext.stop(context);
+    }
+
+    @Benchmark
+    public OrderEvent step() {
+        CompletableFuture<OrderEvent> outcome = new CompletableFuture<>();
+        saga.outcome = outcome;
+        sagaActions.run(command, orderId);
+        return outcome.join();
+    }
+
+    private static final class OutcomeSink implements SagaInstance {
+
+        private final UUID orderId;
+        private final CompletableFuture<OrderState> settled = new CompletableFuture<>();
+        private volatile CompletableFuture<OrderEvent> outcome;
+
+        private OutcomeSink(UUID orderId) {
+            this.orderId = orderId;
+        }
+
+        @Override
+        public UUID getOrderId() {
+            return orderId;
+        }
+
+        @Override
+        public OrderState getState() {
+            return OrderState.PAYMENT_PENDING;
+        }
+
+        @Override
+        public void sendEvent(OrderEvent event) {
+            outcome.complete(event);
+        }
+
+        @Override
+        public CompletableFuture<OrderState> getSettled() {
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.orderservice.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.config.StateMachineFactory;
+
+import com.example.orderservice.deadline.SagaDeadlines;
+import com.example.orderservice.engine.SagaEngine;
+import com.example.orderservice.engine.SagaInstance;
+import com.example.orderservice.engine.TableSagaEngine;
+import com.example.orderservice.monitoring.SagaMetrics;
+import com.example.orderservice.service.OrderReadCache;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.service.OrderStatusWriter;
+import com.example.orderservice.service.SagaActions;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * Cost of getting a saga ready to receive CREATE_ORDER, the first thing OrderService.createOrder does
+ * after persisting the order: a machine built by the factory per order (what createOrder did before
+ * saga.pool), a pooled machine borrowed and given back, and a table engine instance.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SagaStartBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private StateMachineFactory<OrderState, OrderEvent> stateMachineFactory;
+    private SagaEngine pooledEngine;
+    private SagaEngine tableEngine;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void start() {
+        context = OrderServiceContext.start("--saga.engine.type=spring");
+        stateMachineFactory = context.getBean(StateMachineFactory.class);
+        pooledEngine = context.getBean(SagaEngine.class);
+        tableEngine = new TableSagaEngine(context.getBean(SagaActions.class), context.getBean(OrderStatusWriter.class),
+                context.getBean(SagaMetrics.class), context.getBean(OrderReadCache.class),
+                context.getBean(OrderStatusBroadcaster.class), context.getBean(SagaDeadlines.class), false, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        OrderServiceContext.stop(context);
+    }
+
+    @Benchmark
+    public StateMachine<OrderState, OrderEvent> factoryStateMachine() {
+        StateMachine<OrderState, OrderEvent> stateMachine = stateMachineFactory.getStateMachine(nextOrderId().toString());
+        stateMachine.startReactively().block();
+        stateMachine.stopReactively().block();
+        return stateMachine;
+    }
+
+    @Benchmark
+    public SagaInstance pooledStateMachine() {
+        SagaInstance saga = pooledEngine.start(nextOrderId());
+        pooledEngine.release(saga).block();
+        return saga;
+    }
+
+    @Benchmark
+    public SagaInstance tableEngine() {
+        SagaInstance saga = tableEngine.start(nextOrderId());
+        tableEngine.release(saga).block();
+        return saga;
+    }
+
+    // Cheaper than UUID.randomUUID(), whose SecureRandom would dominate the cheaper variants
+    private UUID nextOrderId() {
+        return new UUID(0, ++sequence);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.orderservice.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.transition.Transition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderservice.config.OrderStateMachineInterceptor;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * OrderStateMachineInterceptor.preStateChange for CREATE_ORDER: the conditional status update in its own
+ * transaction against H2, the same with the PROCESS_PAYMENT outbox row written with it, or a record appended
+ * to the saga journal and fsynced. Every call moves a different order, all reset to ORDER_CREATED before
+ * each iteration; the journal remembers statuses, so it is given fresh order ids instead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatusWriteBenchmark {
+
+    // Enough for one iteration; wraps around with an inline reset if not
+    private static final int ORDERS = 200_000;
+
+    @Param({"database", "outbox", "journal"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private OrderStateMachineInterceptor interceptor;
+    private StateMachine<OrderState, OrderEvent> stateMachine;
+    private Transition<OrderState, OrderEvent> create;
+    private List<Message<OrderEvent>> messages;
+    private int next;
+    private Path journalDirectory;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void start() throws IOException {
+        journalDirectory = Files.createTempDirectory("saga-journal");
+        // The relay would otherwise drain the rows written here and run their sagas alongside the benchmark
+        context = OrderServiceContext.start("--saga.outbox.enabled=" + mode.equals("outbox"),
+                "--saga.outbox.poll-interval=1d",
+                "--saga.journal.enabled=" + mode.equals("journal"),
+                "--saga.journal.directory=" + journalDirectory);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        interceptor = context.getBean(OrderStateMachineInterceptor.class);
+        stateMachine = context.getBean(StateMachineFactory.class).getStateMachine();
+        create = stateMachine.getTransitions().stream()
+                .filter(transition -> transition.getSource().getId() == OrderState.ORDER_CREATED
+                        && transition.getTarget().getId() == OrderState.PAYMENT_PENDING)
+                .findFirst()
+                .orElseThrow();
+
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order(null, 1L, 1L, 1, BigDecimal.TEN, OrderState.ORDER_CREATED);
+            order.setCreatedAt(Instant.now());
+            orders.add(order);
+        }
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        List<Order> saved = context.getBean(TransactionTemplate.class).execute(status -> orderRepository.saveAll(orders));
+        messages = saved.stream().map(order -> createOrder(order.getId())).toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetOrders() {
+        if (mode.equals("journal")) {
+            // Orders the projection never finds a row for; only the append is measured
+            messages = messages.stream().map(message -> createOrder(UUID.randomUUID())).toList();
+        } else {
+            jdbcTemplate.update("update orders set status = 'ORDER_CREATED'");
+            jdbcTemplate.update("delete from saga_outbox");
+        }
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        OrderServiceContext.stop(context);
+        FileSystemUtils.deleteRecursively(journalDirectory.toFile());
+    }
+
+    private static Message<OrderEvent> createOrder(UUID orderId) {
+        return MessageBuilder.withPayload(OrderEvent.CREATE_ORDER)
+                .setHeader(OrderService.ORDER_ID_HEADER, orderId)
+                .build();
+    }
+
+    @Benchmark
+    public void preStateChange() {
+        if (next == ORDERS) {
+            resetOrders();
+        }
+        interceptor.preStateChange(create.getTarget(), messages.get(next++), create, stateMachine, stateMachine);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.orderservice.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.StateMachineContext;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.config.SagaDeadlineProperties;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.deadline.SagaDeadlines;
+import com.example.orderservice.engine.SagaInstance;
+import com.example.orderservice.engine.TableSagaEngine;
+import com.example.orderservice.journal.SagaJournal;
+import com.example.orderservice.monitoring.SagaMetrics;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.repository.OutboxRepository;
+import com.example.orderservice.service.OrderReadCache;
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.service.OrderStatusWriter;
+import com.example.orderservice.service.SagaActions;
+import com.example.orderservice.service.SagaRegistry;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * One CREATE_ORDER transition with nothing attached: the machine built by StateMachineConfig with the
+ * outbox enabled (so it carries no actions) and no interceptor, against the table engine with a status
+ * writer that writes nothing and no deadlines. A Spring machine has to be reset before every event, so the reset alone is
+ * measured too and is what to subtract.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransitionBenchmark {
+
+    private static final UUID ORDER_ID = new UUID(0, 1);
+
+    private ConfigurableApplicationContext context;
+    private StateMachine<OrderState, OrderEvent> stateMachine;
+    private StateMachineContext<OrderState, OrderEvent> created;
+    private Mono<Message<OrderEvent>> createOrder;
+    private TableSagaEngine tableEngine;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void start() {
+        context = OrderServiceContext.start("--saga.outbox.enabled=true");
+        StateMachineFactory<OrderState, OrderEvent> factory = context.getBean(StateMachineFactory.class);
+        stateMachine = factory.getStateMachine(ORDER_ID.toString());
+        stateMachine.startReactively().block();
+        created = new DefaultStateMachineContext<>(OrderState.ORDER_CREATED, null, null, null, null, ORDER_ID.toString());
+        createOrder = Mono.just(MessageBuilder.withPayload(OrderEvent.CREATE_ORDER)
+                .setHeader(OrderService.ORDER_ID_HEADER, ORDER_ID)
+                .build());
+
+        OrderStatusWriter noWrite = new OrderStatusWriter(context.getBean(OrderRepository.class),
+                context.getBean(OutboxRepository.class), context.getBean(SagaOutboxProperties.class),
+                context.getBean(SagaJournal.class), context.getBean(TransactionTemplate.class),
+                context.getBean(SagaCluster.class)) {
+            @Override
+            public void applyTransition(UUID orderId, OrderState source, OrderState target, OrderEvent event) {
+            }
+        };
+        SagaDeadlines noDeadlines = new SagaDeadlines(context.getBean(SagaRegistry.class),
+                context.getBean(OrderRepository.class), context.getBean(SagaCluster.class),
+                context.getBean(SagaDeadlineProperties.class), context.getBean(MeterRegistry.class)) {
+            @Override
+            public void stateEntered(UUID orderId, OrderState state) {
+            }
+        };
+        tableEngine = new TableSagaEngine(context.getBean(SagaActions.class), noWrite, context.getBean(SagaMetrics.class),
+                context.getBean(OrderReadCache.class), context.getBean(OrderStatusBroadcaster.class), noDeadlines,
+                false, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        OrderServiceContext.stop(context);
+    }
+
+    @Benchmark
+    public OrderState springReset() {
+        reset();
+        return stateMachine.getState().getId();
+    }
+
+    @Benchmark
+    public OrderState springResetAndTransition() {
+        reset();
+        stateMachine.sendEvent(createOrder).blockLast();
+        return stateMachine.getState().getId();
+    }
+
+    @Benchmark
+    public OrderState tableTransition() {
+        SagaInstance saga = tableEngine.start(ORDER_ID);
+        saga.sendEvent(OrderEvent.CREATE_ORDER);
+        return saga.getState();
+    }
+
+    private void reset() {
+        stateMachine.stopReactively().block();
+        stateMachine.getStateMachineAccessor()
+                .doWithAllRegions(accessor -> accessor.resetStateMachineReactively(created).block());
+        stateMachine.startReactively().block();
+    }
+}
@@ -2,13 +2,17 @@ package com.example.orderservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EntityScan(basePackages = "com.example.orderservice.entity")
+@ConfigurationPropertiesScan(basePackages = "com.example.orderservice.config")
+@EntityScan(basePackages = { "com.example.orderservice.entity", "org.springframework.statemachine.data.jpa" })
 @EnableJpaRepositories(basePackages = "com.example.orderservice.repository")
+@EnableScheduling
 public class OrderServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,133 @@
+package com.example.orderservice.admission;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Adaptive concurrency limit in front of saga submission. Every admitted submission holds a permit
+ * until its sagas settle; when the permits held would exceed the window computed by the
+ * {@link LimitAlgorithm}, the submission is refused instead of queued. Each settled saga feeds its
+ * latency back into the algorithm.
+ */
+public class AdmissionLimiter {
+
+    private final LimitAlgorithm algorithm;
+    private final boolean enabled;
+    private final Duration retryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private final Counter admitted;
+    private final Counter rejected;
+    private final Timer latency;
+
+    /**
+     * @param enabled false to admit everything while still tracking in-flight sagas and the window
+     *                the algorithm would have chosen
+     */
+    public AdmissionLimiter(LimitAlgorithm algorithm, boolean enabled, Duration retryAfter, MeterRegistry meterRegistry) {
+        this.algorithm = algorithm;
+        this.enabled = enabled;
+        this.retryAfter = retryAfter;
+        this.limit = algorithm.getLimit();
+
+        this.admitted = requestCounter(meterRegistry, "admitted");
+        this.rejected = requestCounter(meterRegistry, "rejected");
+        this.latency = Timer.builder("saga.admission.latency")
+                .description("Time from admission until the saga settled, as fed to the limit algorithm")
+                .register(meterRegistry);
+        Gauge.builder("saga.admission.limit", this, AdmissionLimiter::getLimit)
+                .description("Current admission window")
+                .register(meterRegistry);
+        Gauge.builder("saga.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Admission permits held by unsettled sagas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param weight sagas the submission may run at once; a batch wider than the whole window is still
+     *               admitted when nothing else holds a permit
+     * @throws AdmissionRejectedException when the window is full
+     */
+    public Permit acquire(int weight) {
+        while (true) {
+            int current = inFlight.get();
+            if (enabled && current > 0 && current + weight > limit) {
+                rejected.increment();
+                throw new AdmissionRejectedException(current, limit, retryAfter);
+            }
+            if (inFlight.compareAndSet(current, current + weight)) {
+                admitted.increment();
+                return new Permit(weight);
+            }
+        }
+    }
+
+    /**
+     * Feeds one settled saga into the algorithm; batches call this per saga rather than per permit.
+     */
+    public void sample(long latencyNanos, boolean dropped) {
+        latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+        updateLock.lock();
+        try {
+            limit = algorithm.update(latencyNanos, inFlight.get(), dropped);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("saga.admission.requests")
+                .description("Order submissions by admission decision")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public final class Permit {
+
+        private final int weight;
+        private final long acquiredAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Samples the time since admission and releases the permit.
+         */
+        public void complete(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                sample(System.nanoTime() - acquiredAt, dropped);
+                inFlight.addAndGet(-weight);
+            }
+        }
+
+        /**
+         * Releases the permit without a sample.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.addAndGet(-weight);
+            }
+        }
+    }
+}
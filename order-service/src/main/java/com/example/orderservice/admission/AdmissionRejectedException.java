@@ -0,0 +1,20 @@
+package com.example.orderservice.admission;
+
+import java.time.Duration;
+
+/**
+ * The admission window is full; the order was not persisted. Answered with 429 and Retry-After.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(int inFlight, int limit, Duration retryAfter) {
+        super("Admission window full: " + inFlight + " sagas in flight, limit " + limit);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.orderservice.admission;
+
+import java.time.Duration;
+
+/**
+ * Additive increase, multiplicative decrease: the window grows by one for every fast saga while it is
+ * at least half used, and shrinks by backoff-ratio for every saga slower than latency-threshold or dropped.
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private int limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, Duration latencyThreshold) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int update(long latencyNanos, int inFlight, boolean dropped) {
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, Math.min(limit - 1, (int) (limit * backoffRatio)));
+        } else if (inFlight * 2 >= limit) {
+            // Only grow while the window is in use, otherwise a quiet service creeps up to max-limit
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.orderservice.admission;
+
+/**
+ * Gradient limit: compares a short moving average of saga latency with a long one. While they agree
+ * the window grows by about sqrt(limit); when recent sagas get slower than tolerance times the long-term
+ * average, the window shrinks in proportion, down to half per update. Reacts to queueing before any
+ * fixed threshold is reached, at the cost of a longer warm-up than AIMD.
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    // Samples in the short average; the long average spans long-window samples
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final int longWindow;
+    private double limit;
+    private double shortLatency;
+    private double longLatency;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit,
+                         double smoothing, double tolerance, int longWindow) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.longWindow = longWindow;
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public int update(long latencyNanos, int inFlight, boolean dropped) {
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+        } else {
+            shortLatency += (latencyNanos - shortLatency) / SHORT_WINDOW;
+            longLatency += (latencyNanos - longLatency) / longWindow;
+        }
+        // Latency fell well below the long-term average: let the baseline follow it down quickly
+        if (longLatency > 2 * shortLatency) {
+            longLatency *= 0.95;
+        }
+
+        // Less than half the window in use says nothing about how much more the downstreams can take
+        if (!dropped && inFlight < limit / 2) {
+            return getLimit();
+        }
+
+        double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+        return getLimit();
+    }
+}
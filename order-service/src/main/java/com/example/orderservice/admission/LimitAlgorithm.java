@@ -0,0 +1,18 @@
+package com.example.orderservice.admission;
+
+/**
+ * Computes the admission window from completed sagas. Called under the limiter's lock, one sample at a
+ * time, so implementations keep plain fields.
+ */
+public interface LimitAlgorithm {
+
+    int getLimit();
+
+    /**
+     * @param latencyNanos time from admission until the saga settled
+     * @param inFlight     permits held when the sample was taken
+     * @param dropped      the saga did not settle in time, or could not be started at all
+     * @return the new limit
+     */
+    int update(long latencyNanos, int inFlight, boolean dropped);
+}
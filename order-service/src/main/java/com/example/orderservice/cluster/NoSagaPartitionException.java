@@ -0,0 +1,12 @@
+package com.example.orderservice.cluster;
+
+/**
+ * This node holds no saga partition to put a new order in; the order was not persisted. Answered with a
+ * 307 to a node that holds one.
+ */
+public class NoSagaPartitionException extends RuntimeException {
+
+    public NoSagaPartitionException(String nodeId) {
+        super("Saga Cluster: Node " + nodeId + " holds no saga partition");
+    }
+}
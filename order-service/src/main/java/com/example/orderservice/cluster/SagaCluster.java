@@ -0,0 +1,362 @@
+package com.example.orderservice.cluster;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import com.example.orderservice.config.SagaClusterProperties;
+import com.example.orderservice.config.SagaJournalProperties;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.entity.SagaLease;
+import com.example.orderservice.entity.SagaNode;
+import com.example.orderservice.repository.SagaLeaseRepository;
+import com.example.orderservice.repository.SagaNodeRepository;
+import com.example.orderservice.service.SagaRecoveryService;
+import com.example.orderservice.service.SagaRegistry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * With saga.cluster.enabled, several order-service nodes share one database. Order ids are hashed onto
+ * saga.cluster.partitions partitions, and each partition's sagas run on the one node holding its lease in
+ * saga_lease. Every heartbeat a node renews its leases, counts the live nodes in saga_node, hands back
+ * partitions above its even share and claims lapsed or unowned ones up to it. A claim bumps the
+ * partition's fencing token, and status writes only apply under the current token. Sagas of a claimed
+ * partition are recovered from the orders table; those of a lost partition are dropped from this node.
+ * New orders get an id in a partition this node holds, so they run where they were submitted.
+ * Disabled, this node owns every order.
+ *
+ * The node joins before the web server starts taking requests and hands its partitions back after it
+ * stops.
+ */
+@Component
+public class SagaCluster implements SchedulingConfigurer, SmartLifecycle {
+
+    private final SagaLeaseRepository leaseRepository;
+    private final SagaNodeRepository nodeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SagaClusterProperties properties;
+    private final SagaRegistry sagaRegistry;
+    private final ObjectProvider<SagaRecoveryService> sagaRecovery;
+    private final String nodeId;
+
+    // saga_lease as of the last heartbeat, indexed by partition
+    private volatile List<SagaLease> leases = List.of();
+    // Partitions this node holds and the token of each, valid until ownedUntil
+    private volatile Map<Integer, Long> owned = Map.of();
+    private volatile Instant ownedUntil = Instant.EPOCH;
+    private volatile long liveNodes;
+    // Between start() and stop(); scheduled heartbeats do nothing outside it
+    private volatile boolean started;
+
+    private final Counter claimed;
+    private final Counter lost;
+
+    public SagaCluster(SagaLeaseRepository leaseRepository,
+                       SagaNodeRepository nodeRepository,
+                       TransactionTemplate transactionTemplate,
+                       SagaClusterProperties properties,
+                       SagaOutboxProperties outboxProperties,
+                       SagaJournalProperties journalProperties,
+                       SagaRegistry sagaRegistry,
+                       ObjectProvider<SagaRecoveryService> sagaRecovery,
+                       MeterRegistry meterRegistry) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.sagaRegistry = sagaRegistry;
+        this.sagaRecovery = sagaRecovery;
+        this.nodeId = StringUtils.hasText(properties.getNodeId()) ? properties.getNodeId() : UUID.randomUUID().toString();
+        if (properties.isEnabled()) {
+            // The relay would send any node's commands and the journal keeps statuses on one node's disk
+            if (outboxProperties.isEnabled() || journalProperties.isEnabled()) {
+                throw new IllegalStateException("Saga Cluster: saga.cluster cannot be combined with saga.outbox or saga.journal");
+            }
+            if (!StringUtils.hasText(properties.getUrl())) {
+                throw new IllegalStateException("Saga Cluster: saga.cluster.url is required");
+            }
+        }
+
+        this.claimed = Counter.builder("saga.cluster.partitions.claimed")
+                .description("Saga partitions this node took over")
+                .register(meterRegistry);
+        this.lost = Counter.builder("saga.cluster.partitions.lost")
+                .description("Saga partitions this node handed back or lost to another node")
+                .register(meterRegistry);
+        Gauge.builder("saga.cluster.partitions.owned", this, cluster -> cluster.ownedPartitions().size())
+                .description("Saga partitions this node holds")
+                .register(meterRegistry);
+        Gauge.builder("saga.cluster.nodes", this, cluster -> cluster.liveNodes)
+                .description("Live order-service nodes as of the last heartbeat")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        if (properties.isEnabled()) {
+            taskRegistrar.addFixedDelayTask(this::heartbeat, properties.getHeartbeatInterval());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        createPartitions();
+        started = true;
+        heartbeat();
+        System.out.println("Saga Cluster: Node " + nodeId + " at " + properties.getUrl() + " holds "
+                + ownedPartitions().size() + " of " + properties.getPartitions() + " partitions");
+    }
+
+    /**
+     * Hands every partition back at once rather than making the other nodes wait out the leases.
+     */
+    @Override
+    public void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        try {
+            Instant now = Instant.now();
+            transactionTemplate.executeWithoutResult(status -> {
+                leaseRepository.releaseAll(nodeId, now);
+                nodeRepository.deleteById(nodeId);
+            });
+            System.out.println("Saga Cluster: Node " + nodeId + " released its partitions");
+        } catch (RuntimeException e) {
+            System.err.println("Saga Cluster: Could not release leases on shutdown Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started;
+    }
+
+    @Override
+    public int getPhase() {
+        // Before the web server (DEFAULT_PHASE - 1024) starts, after it stops
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public int partition(UUID orderId) {
+        // Not hashCode(): lanes use it, and a node holding a few partitions would then use only a few lanes
+        return (int) Long.remainderUnsigned(orderId.getMostSignificantBits(), properties.getPartitions());
+    }
+
+    public boolean owns(UUID orderId) {
+        return !isEnabled() || ownedPartitions().containsKey(partition(orderId));
+    }
+
+    /**
+     * The fencing token this node holds the order's partition under; empty when it does not hold it.
+     */
+    public OptionalLong token(UUID orderId) {
+        Long token = ownedPartitions().get(partition(orderId));
+        return token == null ? OptionalLong.empty() : OptionalLong.of(token);
+    }
+
+    /**
+     * Whether this node can take new orders, which need a partition to run in.
+     */
+    public boolean acceptsOrders() {
+        return !isEnabled() || !ownedPartitions().isEmpty();
+    }
+
+    /**
+     * A random order id in a partition this node holds, drawn until one lands in it: about
+     * partitions / held draws.
+     *
+     * @throws NoSagaPartitionException when this node holds no partition, e.g. it lost its last one since
+     *                                   {@link #acceptsOrders()} was checked
+     */
+    public UUID newOrderId() {
+        if (!isEnabled()) {
+            return UUID.randomUUID();
+        }
+        Map<Integer, Long> held = ownedPartitions();
+        if (held.isEmpty()) {
+            throw new NoSagaPartitionException(nodeId);
+        }
+        UUID orderId;
+        do {
+            orderId = UUID.randomUUID();
+        } while (!held.containsKey(partition(orderId)));
+        return orderId;
+    }
+
+    /**
+     * Base URL of the node running the order's saga, when that is another node with a live lease.
+     */
+    public Optional<String> ownerUrl(UUID orderId) {
+        if (owns(orderId)) {
+            return Optional.empty();
+        }
+        int partition = partition(orderId);
+        List<SagaLease> current = leases;
+        if (partition >= current.size()) {
+            return Optional.empty();
+        }
+        SagaLease lease = current.get(partition);
+        return isLive(lease, Instant.now()) && !nodeId.equals(lease.getOwner())
+                ? Optional.of(lease.getOwnerUrl())
+                : Optional.empty();
+    }
+
+    /**
+     * Base URL of a random other node holding partitions, for new orders this node cannot take.
+     */
+    public Optional<String> anyOwnerUrl() {
+        Instant now = Instant.now();
+        List<String> urls = leases.stream()
+                .filter(lease -> isLive(lease, now) && !nodeId.equals(lease.getOwner()))
+                .map(SagaLease::getOwnerUrl)
+                .distinct()
+                .toList();
+        return urls.isEmpty() ? Optional.empty() : Optional.of(urls.get(ThreadLocalRandom.current().nextInt(urls.size())));
+    }
+
+    /**
+     * Renews this node's leases, then balances: partitions above an even share of the live nodes are
+     * handed back first, so a node that just joined finds some to claim, then lapsed ones are claimed
+     * up to the share.
+     */
+    public void heartbeat() {
+        if (!started) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            Instant expiresAt = now.plus(properties.getLeaseDuration());
+            transactionTemplate.executeWithoutResult(status -> {
+                nodeRepository.save(new SagaNode(nodeId, properties.getUrl(), expiresAt));
+                nodeRepository.deleteExpired(now);
+                leaseRepository.renew(nodeId, expiresAt);
+            });
+            liveNodes = nodeRepository.countByExpiresAtAfter(now);
+            int share = (int) ((properties.getPartitions() + liveNodes - 1) / Math.max(1, liveNodes));
+
+            List<SagaLease> current = leaseRepository.findAllByOrderByPartitionIdAsc();
+            List<Integer> held = current.stream()
+                    .filter(lease -> nodeId.equals(lease.getOwner()))
+                    .map(SagaLease::getPartitionId)
+                    .collect(Collectors.toList());
+            boolean changed = false;
+            for (int i = held.size() - 1; i >= 0 && held.size() > share; i--) {
+                int partition = held.remove(i);
+                changed |= inTransaction(() -> leaseRepository.release(partition, nodeId, now)) == 1;
+            }
+            for (SagaLease lease : current) {
+                if (held.size() >= share) {
+                    break;
+                }
+                if (!isLive(lease, now) && inTransaction(() ->
+                        leaseRepository.claim(lease.getPartitionId(), nodeId, properties.getUrl(), expiresAt, now)) == 1) {
+                    held.add(lease.getPartitionId());
+                    changed = true;
+                }
+            }
+            if (changed) {
+                current = leaseRepository.findAllByOrderByPartitionIdAsc();
+            }
+            publish(current, expiresAt);
+        } catch (RuntimeException e) {
+            // Leases lapse on their own; owns() turns false once ownedUntil passes
+            System.err.println("Saga Cluster: Heartbeat failed Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Swaps in the new lease table, then drops the sagas of partitions no longer held under the same
+     * token and recovers the open sagas of newly held ones.
+     */
+    private void publish(List<SagaLease> current, Instant validUntil) {
+        Map<Integer, Long> previous = ownedPartitions();
+        Map<Integer, Long> next = new HashMap<>();
+        for (SagaLease lease : current) {
+            if (nodeId.equals(lease.getOwner())) {
+                next.put(lease.getPartitionId(), lease.getToken());
+            }
+        }
+        leases = current;
+        owned = Map.copyOf(next);
+        ownedUntil = validUntil;
+
+        Set<Integer> released = previous.keySet().stream()
+                .filter(partition -> !previous.get(partition).equals(next.get(partition)))
+                .collect(Collectors.toSet());
+        Set<Integer> acquired = next.keySet().stream()
+                .filter(partition -> !next.get(partition).equals(previous.get(partition)))
+                .collect(Collectors.toSet());
+        if (!released.isEmpty()) {
+            lost.increment(released.size());
+            int evicted = sagaRegistry.evict(orderId -> released.contains(partition(orderId)));
+            System.out.println("Saga Cluster: Released partitions " + released + ", dropped " + evicted + " live sagas");
+        }
+        if (!acquired.isEmpty()) {
+            claimed.increment(acquired.size());
+            System.out.println("Saga Cluster: Claimed partitions " + acquired);
+            sagaRecovery.ifAvailable(recovery -> recovery.recoverOpenSagas(orderId -> acquired.contains(partition(orderId))));
+        }
+    }
+
+    private Map<Integer, Long> ownedPartitions() {
+        return Instant.now().isBefore(ownedUntil) ? owned : Map.of();
+    }
+
+    private boolean isLive(SagaLease lease, Instant now) {
+        return lease.getOwner() != null && lease.getExpiresAt().isAfter(now);
+    }
+
+    private int inTransaction(IntSupplier update) {
+        return transactionTemplate.execute(status -> update.getAsInt());
+    }
+
+    /**
+     * One saga_lease row per partition; nodes starting together may race to insert the same row.
+     */
+    private void createPartitions() {
+        long existing = leaseRepository.count();
+        if (existing > properties.getPartitions()) {
+            throw new IllegalStateException("Saga Cluster: saga_lease holds " + existing
+                    + " partitions, saga.cluster.partitions is " + properties.getPartitions());
+        }
+        for (int partition = 0; partition < properties.getPartitions() && existing < properties.getPartitions(); partition++) {
+            if (leaseRepository.existsById(partition)) {
+                continue;
+            }
+            try {
+                leaseRepository.save(new SagaLease(partition));
+            } catch (DataIntegrityViolationException e) {
+                // Another node inserted it first
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.orderservice.config;
+
+import java.util.concurrent.Semaphore;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * Caps the tasks a thread-per-task executor runs at once. A task over the cap is rejected at once with
+ * {@link TaskRejectedException}, as a full ThreadPoolTaskExecutor queue would, rather than blocking the
+ * submitting thread the way SimpleAsyncTaskExecutor's own concurrency limit does.
+ */
+final class BoundedTaskExecutor implements TaskExecutor {
+
+    private final TaskExecutor delegate;
+    private final int limit;
+    private final Semaphore permits;
+
+    BoundedTaskExecutor(TaskExecutor delegate, int limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new TaskRejectedException("Saga executor is running its limit of " + limit + " tasks");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
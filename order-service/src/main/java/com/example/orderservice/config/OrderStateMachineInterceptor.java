@@ -10,20 +10,33 @@ import org.springframework.messaging.Message;
 import org.springframework.statemachine.transition.Transition;
 import org.springframework.statemachine.state.State;
 import org.springframework.stereotype.Component;
-import com.example.orderservice.repository.OrderRepository;
-import com.example.orderservice.entity.Order;
+import com.example.orderservice.service.OrderReadCache;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.service.OrderStatusWriter;
+import com.example.orderservice.service.StaleOrderStatusException;
+import com.example.orderservice.monitoring.SagaMetrics;
+import com.example.orderservice.deadline.SagaDeadlines;
 
-import java.util.Optional;
 import java.util.UUID;
 
 
 @Component
 public class OrderStateMachineInterceptor extends StateMachineInterceptorAdapter<OrderState, OrderEvent> {
 
-    private final OrderRepository orderRepository;
+    private final OrderStatusWriter orderStatusWriter;
+    private final SagaMetrics sagaMetrics;
+    private final OrderReadCache orderReadCache;
+    private final OrderStatusBroadcaster orderStatusBroadcaster;
+    private final SagaDeadlines sagaDeadlines;
 
-    public OrderStateMachineInterceptor(OrderRepository orderRepository) {
-        this.orderRepository = orderRepository;
+    public OrderStateMachineInterceptor(OrderStatusWriter orderStatusWriter, SagaMetrics sagaMetrics,
+                                        OrderReadCache orderReadCache, OrderStatusBroadcaster orderStatusBroadcaster,
+                                        SagaDeadlines sagaDeadlines) {
+        this.orderStatusWriter = orderStatusWriter;
+        this.sagaMetrics = sagaMetrics;
+        this.orderReadCache = orderReadCache;
+        this.orderStatusBroadcaster = orderStatusBroadcaster;
+        this.sagaDeadlines = sagaDeadlines;
     }
 
     @Override
@@ -35,14 +48,25 @@ public class OrderStateMachineInterceptor extends StateMachineInterceptorAdapter
         
         if(message != null && message.getHeaders().containsKey(OrderService.ORDER_ID_HEADER)) {
             UUID orderId = (UUID) message.getHeaders().get(OrderService.ORDER_ID_HEADER);
-            Optional<Order> order = orderRepository.findById(orderId);
+            OrderState source = transition != null && transition.getSource() != null ? transition.getSource().getId() : null;
 
-            if(order.isPresent()) {
-                Order existingOrder = order.get();
-                existingOrder.setStatus(state.getId());
-                orderRepository.save(existingOrder);
+            // Status and, with the outbox enabled, the command this transition issues are written atomically
+            long started = System.nanoTime();
+            try {
+                orderStatusWriter.applyTransition(orderId, source, state.getId(), message.getPayload());
+            } catch (StaleOrderStatusException e) {
+                orderReadCache.invalidate(orderId);
+                throw e;
             }
-            
+            if (source != null) {
+                sagaMetrics.transitionApplied(source, message.getPayload(), state.getId(), System.nanoTime() - started);
+            }
+            // Committed: readers of the cached order see the new status from here on, streams get it pushed
+            orderReadCache.statusChanged(orderId, state.getId());
+            orderStatusBroadcaster.publish(orderId, source, message.getPayload(), state.getId());
+            // The new state's deadline replaces the old one's
+            sagaDeadlines.stateEntered(orderId, state.getId());
+
         }
 
     }
@@ -0,0 +1,10 @@
+package com.example.orderservice.config;
+
+/**
+ * What the startup recovery scanner does with a saga that was in flight when the node went down.
+ * RESUME re-sends the pending step, COMPENSATE undoes what may have happened and fails the order.
+ */
+public enum RecoveryMode {
+    RESUME,
+    COMPENSATE
+}
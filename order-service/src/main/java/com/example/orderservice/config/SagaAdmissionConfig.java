@@ -0,0 +1,26 @@
+package com.example.orderservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.orderservice.admission.AdmissionLimiter;
+import com.example.orderservice.admission.AimdLimit;
+import com.example.orderservice.admission.GradientLimit;
+import com.example.orderservice.admission.LimitAlgorithm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class SagaAdmissionConfig {
+
+    @Bean
+    public AdmissionLimiter admissionLimiter(SagaAdmissionProperties properties, MeterRegistry meterRegistry) {
+        LimitAlgorithm algorithm = properties.getAlgorithm() == SagaAdmissionProperties.Algorithm.GRADIENT
+                ? new GradientLimit(properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit(),
+                        properties.getGradient().getSmoothing(), properties.getGradient().getTolerance(),
+                        properties.getGradient().getLongWindow())
+                : new AimdLimit(properties.getInitialLimit(), properties.getMinLimit(), properties.getMaxLimit(),
+                        properties.getAimd().getBackoffRatio(), properties.getAimd().getLatencyThreshold());
+        return new AdmissionLimiter(algorithm, properties.isEnabled(), properties.getRetryAfter(), meterRegistry);
+    }
+}
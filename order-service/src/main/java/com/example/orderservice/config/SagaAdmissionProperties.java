@@ -0,0 +1,152 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.admission")
+public class SagaAdmissionProperties {
+
+    public enum Algorithm {
+        // Grow by one per fast saga, shrink by backoff-ratio per slow or dropped one
+        AIMD,
+        // Shrink as short-term saga latency rises above the long-term average
+        GRADIENT
+    }
+
+    // false: admit everything, still publishing the window the algorithm would choose
+    private boolean enabled = true;
+    private Algorithm algorithm = Algorithm.AIMD;
+
+    // Admission window, in sagas in flight
+    private int initialLimit = 100;
+    private int minLimit = 10;
+    private int maxLimit = 1000;
+
+    // Sent as Retry-After (whole seconds, rounded up) with 429 responses
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    private Aimd aimd = new Aimd();
+    private Gradient gradient = new Gradient();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public Aimd getAimd() {
+        return aimd;
+    }
+
+    public void setAimd(Aimd aimd) {
+        this.aimd = aimd;
+    }
+
+    public Gradient getGradient() {
+        return gradient;
+    }
+
+    public void setGradient(Gradient gradient) {
+        this.gradient = gradient;
+    }
+
+    public static class Aimd {
+
+        private double backoffRatio = 0.9;
+        // A saga taking longer than this from admission to settle counts as congestion
+        private Duration latencyThreshold = Duration.ofSeconds(2);
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+    }
+
+    public static class Gradient {
+
+        // Weight of each new target in the limit
+        private double smoothing = 0.2;
+        // Short-term latency may reach this multiple of the long-term average before the window shrinks
+        private double tolerance = 1.5;
+        // Samples in the long-term latency average
+        private int longWindow = 600;
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        public int getLongWindow() {
+            return longWindow;
+        }
+
+        public void setLongWindow(int longWindow) {
+            this.longWindow = longWindow;
+        }
+    }
+}
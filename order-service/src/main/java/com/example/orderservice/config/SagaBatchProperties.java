@@ -0,0 +1,28 @@
+package com.example.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.batch")
+public class SagaBatchProperties {
+
+    // Largest list accepted by POST /api/orders/batch
+    private int maxSize = 1000;
+    // Sagas of one batch running at the same time
+    private int parallelism = 32;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.cluster")
+public class SagaClusterProperties {
+
+    // When enabled, nodes sharing the database split the saga partitions between them through saga_lease
+    private boolean enabled = false;
+    // Unique per running node; a random id when blank
+    private String nodeId;
+    // Base URL other nodes redirect this node's orders to
+    private String url;
+    // Must be the same on every node; fixed once saga_lease is populated
+    private int partitions = 64;
+    // A node that has not renewed its leases for this long loses them to the others
+    private Duration leaseDuration = Duration.ofSeconds(10);
+    private Duration heartbeatInterval = Duration.ofSeconds(2);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public void setLeaseDuration(Duration leaseDuration) {
+        this.leaseDuration = leaseDuration;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+}
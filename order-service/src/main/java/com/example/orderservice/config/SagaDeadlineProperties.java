@@ -0,0 +1,83 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.orderservice.state.OrderState;
+
+@ConfigurationProperties(prefix = "saga.deadline")
+public class SagaDeadlineProperties {
+
+    // A saga waiting on a step longer than this is cancelled and compensated (CANCEL_ORDER)
+    private Duration step = Duration.ofSeconds(60);
+    // How long an order stays INVENTORY_RESERVED before COMPLETE_ORDER; zero completes it straight away
+    private Duration complete = Duration.ZERO;
+    // Per-state overrides of the two above
+    private Map<OrderState, Duration> states = new EnumMap<>(OrderState.class);
+    // Resolution of the timer wheel; deadlines fire up to one tick late
+    private Duration tick = Duration.ofMillis(100);
+    // Buckets of the timer wheel; deadlines beyond tick x wheel-size wait out full turns
+    private int wheelSize = 1024;
+    // Database pass adopting open sagas no node is timing, e.g. after a restart with recovery disabled
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+    private int reconcilePageSize = 1000;
+
+    public Duration getStep() {
+        return step;
+    }
+
+    public void setStep(Duration step) {
+        this.step = step;
+    }
+
+    public Duration getComplete() {
+        return complete;
+    }
+
+    public void setComplete(Duration complete) {
+        this.complete = complete;
+    }
+
+    public Map<OrderState, Duration> getStates() {
+        return states;
+    }
+
+    public void setStates(Map<OrderState, Duration> states) {
+        this.states = states;
+    }
+
+    public Duration getTick() {
+        return tick;
+    }
+
+    public void setTick(Duration tick) {
+        this.tick = tick;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    public Duration getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public int getReconcilePageSize() {
+        return reconcilePageSize;
+    }
+
+    public void setReconcilePageSize(int reconcilePageSize) {
+        this.reconcilePageSize = reconcilePageSize;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.orderservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.statemachine.config.StateMachineFactory;
+
+import com.example.orderservice.deadline.SagaDeadlines;
+import com.example.orderservice.engine.SagaEngine;
+import com.example.orderservice.engine.StateMachinePool;
+import com.example.orderservice.engine.TableSagaEngine;
+import com.example.orderservice.monitoring.SagaMetrics;
+import com.example.orderservice.service.OrderReadCache;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.service.OrderStatusWriter;
+import com.example.orderservice.service.SagaActions;
+import com.example.orderservice.service.SagaContextStore;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class SagaEngineConfig {
+
+    @Bean
+    public SagaEngine sagaEngine(SagaEngineProperties properties,
+                                 StateMachineFactory<OrderState, OrderEvent> stateMachineFactory,
+                                 OrderStateMachineInterceptor orderStateMachineInterceptor,
+                                 SagaContextStore sagaContextStore,
+                                 SagaPoolProperties poolProperties,
+                                 SagaActions sagaActions,
+                                 OrderStatusWriter orderStatusWriter,
+                                 SagaMetrics sagaMetrics,
+                                 OrderReadCache orderReadCache,
+                                 OrderStatusBroadcaster orderStatusBroadcaster,
+                                 SagaDeadlines sagaDeadlines,
+                                 SagaOutboxProperties outboxProperties,
+                                 MeterRegistry meterRegistry) {
+        if (properties.getType() == SagaEngineProperties.Type.TABLE) {
+            return new TableSagaEngine(sagaActions, orderStatusWriter, sagaMetrics, orderReadCache,
+                    orderStatusBroadcaster, sagaDeadlines, properties.isParallelSteps(), !outboxProperties.isEnabled());
+        }
+        return new StateMachinePool(stateMachineFactory, orderStateMachineInterceptor, sagaContextStore,
+                poolProperties, meterRegistry);
+    }
+}
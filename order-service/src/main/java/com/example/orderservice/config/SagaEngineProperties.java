@@ -0,0 +1,44 @@
+package com.example.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.engine")
+public class SagaEngineProperties {
+
+    public enum Type {
+        // Pooled Spring StateMachine instances (StateMachinePool)
+        SPRING,
+        // Transition table compiled from OrderTransition, no state machine per saga
+        TABLE
+    }
+
+    public enum StepMode {
+        // PAYMENT_PENDING, then PAYMENT_COMPLETED: inventory is only reserved once payment succeeded
+        SEQUENTIAL,
+        // STEPS_PENDING: payment and inventory in flight together, joined in INVENTORY_RESERVED
+        PARALLEL
+    }
+
+    private Type type = Type.SPRING;
+    private StepMode stepMode = StepMode.SEQUENTIAL;
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public StepMode getStepMode() {
+        return stepMode;
+    }
+
+    public void setStepMode(StepMode stepMode) {
+        this.stepMode = stepMode;
+    }
+
+    public boolean isParallelSteps() {
+        return stepMode == StepMode.PARALLEL;
+    }
+}
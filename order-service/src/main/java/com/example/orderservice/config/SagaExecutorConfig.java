@@ -0,0 +1,95 @@
+package com.example.orderservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.example.orderservice.engine.SagaLanes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The saga executor runs saga starts, recovery and outbox writes. Saga events, and with them the state
+ * machine, its actions and the interceptor's JPA calls, run on the order's lane in {@link SagaLanes}.
+ */
+@Configuration
+public class SagaExecutorConfig {
+
+    public static final String SAGA_EXECUTOR = "sagaExecutor";
+    public static final String STREAM_EXECUTOR = "streamExecutor";
+
+    @Bean(name = SAGA_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public TaskExecutor sagaExecutor(SagaSubmissionProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        // Bounded queue: when it is full submissions are rejected instead of piling up
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("saga-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * With spring.threads.virtual.enabled every saga task gets its own virtual thread; blocking JPA and
+     * block() calls park the virtual thread instead of holding a carrier. Tasks beyond
+     * virtual-concurrency-limit are rejected like those beyond the platform pool's queue.
+     */
+    @Bean(name = SAGA_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public TaskExecutor virtualSagaExecutor(SagaSubmissionProperties properties) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("saga-");
+        executor.setVirtualThreads(true);
+        if (properties.getVirtualConcurrencyLimit() < 0) {
+            return executor;
+        }
+        return new BoundedTaskExecutor(executor, properties.getVirtualConcurrencyLimit());
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public SagaLanes sagaLanes(SagaLaneProperties properties, MeterRegistry meterRegistry) {
+        return new SagaLanes(properties.getCount(), properties.getMailboxCapacity(),
+                Thread.ofPlatform().name("saga-lane-", 0).daemon(true).factory(), meterRegistry);
+    }
+
+    /**
+     * One long-lived virtual thread per lane; a lane waiting on its status write parks instead of holding
+     * a carrier.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SagaLanes virtualSagaLanes(SagaLaneProperties properties, MeterRegistry meterRegistry) {
+        return new SagaLanes(properties.getCount(), properties.getMailboxCapacity(),
+                Thread.ofVirtual().name("saga-lane-", 0).factory(), meterRegistry);
+    }
+
+    /**
+     * Writes status stream events to clients (Spring MVC async dispatch, see SagaStreamConfig). A write
+     * only takes a thread while there is something to send; idle streams hold none.
+     */
+    @Bean(name = STREAM_EXECUTOR)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor streamExecutor(SagaStreamProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWriterThreads());
+        executor.setMaxPoolSize(properties.getWriterThreads());
+        executor.setThreadNamePrefix("stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = STREAM_EXECUTOR)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualStreamExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stream-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
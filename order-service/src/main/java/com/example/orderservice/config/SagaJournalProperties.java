@@ -0,0 +1,101 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "saga.journal")
+public class SagaJournalProperties {
+
+    public enum Fsync {
+        // Every status write waits until its record is on disk; concurrent writes share one fsync
+        ALWAYS,
+        // Forced every fsync-interval; a machine crash can lose the last interval, a process crash nothing
+        INTERVAL,
+        // Left to the OS, forced only when a segment is rolled and on shutdown
+        NEVER
+    }
+
+    // When enabled transitions are appended to a local journal and projected into orders in the background
+    private boolean enabled = false;
+    private String directory = "data/saga-journal";
+    // Size of each memory-mapped segment file; a snapshot is written and older segments deleted on every roll
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private Fsync fsync = Fsync.ALWAYS;
+    private Duration fsyncInterval = Duration.ofMillis(10);
+
+    private Projection projection = new Projection();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Fsync getFsync() {
+        return fsync;
+    }
+
+    public void setFsync(Fsync fsync) {
+        this.fsync = fsync;
+    }
+
+    public Duration getFsyncInterval() {
+        return fsyncInterval;
+    }
+
+    public void setFsyncInterval(Duration fsyncInterval) {
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+
+    public static class Projection {
+
+        // Delay between runs writing journaled statuses into the orders table
+        private Duration interval = Duration.ofMillis(100);
+        // Orders per transaction; each transaction is one UPDATE per distinct target status
+        private int batchSize = 1000;
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+}
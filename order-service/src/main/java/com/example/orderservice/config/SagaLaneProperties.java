@@ -0,0 +1,28 @@
+package com.example.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.lanes")
+public class SagaLaneProperties {
+
+    // Single-threaded lanes order ids are hashed onto; a lane blocks on each status write, so more than cores
+    private int count = 16;
+    // Events a lane may hold waiting; beyond it new events for the lane's orders are rejected
+    private int mailboxCapacity = 1024;
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    public void setMailboxCapacity(int mailboxCapacity) {
+        this.mailboxCapacity = mailboxCapacity;
+    }
+}
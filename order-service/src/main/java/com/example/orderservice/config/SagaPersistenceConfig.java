@@ -0,0 +1,26 @@
+package com.example.orderservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.statemachine.data.jpa.JpaPersistingStateMachineInterceptor;
+import org.springframework.statemachine.data.jpa.JpaStateMachineRepository;
+import org.springframework.statemachine.persist.StateMachineRuntimePersister;
+
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * Durable state machine contexts, keyed by machine id (the order id), stored through
+ * spring-statemachine-data-jpa so open sagas can be rehydrated after a restart.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "saga.recovery", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SagaPersistenceConfig {
+
+    @Bean
+    public StateMachineRuntimePersister<OrderState, OrderEvent, String> stateMachineRuntimePersister(
+            JpaStateMachineRepository jpaStateMachineRepository) {
+        return new JpaPersistingStateMachineInterceptor<>(jpaStateMachineRepository);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.pool")
+public class SagaPoolProperties {
+
+    // Pooled state machines, idle or in use; sagas beyond this get a throwaway machine
+    private int maxSize = 1024;
+    // Machines built at startup so the first orders do not pay for the build
+    private int prewarm = 64;
+    // How long a borrow waits for a machine to come back once the pool is exhausted
+    private Duration borrowTimeout = Duration.ofMillis(5);
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getPrewarm() {
+        return prewarm;
+    }
+
+    public void setPrewarm(int prewarm) {
+        this.prewarm = prewarm;
+    }
+
+    public Duration getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(Duration borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.read")
+public class SagaReadProperties {
+
+    private Cache cache = new Cache();
+    private Page page = new Page();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Page getPage() {
+        return page;
+    }
+
+    public void setPage(Page page) {
+        this.page = page;
+    }
+
+    public static class Cache {
+
+        // GET /api/orders/{id} served from memory; false reads every lookup from the database
+        private boolean enabled = true;
+        // Orders kept, least recently/frequently used evicted first
+        private long maxSize = 100_000;
+        // Bound on staleness for changes that do not go through a saga transition
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class Page {
+
+        // Orders per page of GET /api/orders when the request gives no limit
+        private int defaultSize = 100;
+        // Largest limit a request may ask for
+        private int maxSize = 1000;
+
+        public int getDefaultSize() {
+            return defaultSize;
+        }
+
+        public void setDefaultSize(int defaultSize) {
+            this.defaultSize = defaultSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
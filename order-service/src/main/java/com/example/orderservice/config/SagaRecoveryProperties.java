@@ -0,0 +1,60 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.recovery")
+public class SagaRecoveryProperties {
+
+    // Persists state machine contexts on every transition and rehydrates open sagas on startup
+    private boolean enabled = true;
+
+    private RecoveryMode mode = RecoveryMode.RESUME;
+    // Open orders read per keyset page
+    private int pageSize = 1000;
+    // Recovered sagas running at once; bounds the burst of downstream calls after a restart
+    private int parallelism = 64;
+    // A recovered saga gives up its slot after this long even if it has not settled
+    private Duration settleTimeout = Duration.ofSeconds(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public RecoveryMode getMode() {
+        return mode;
+    }
+
+    public void setMode(RecoveryMode mode) {
+        this.mode = mode;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public Duration getSettleTimeout() {
+        return settleTimeout;
+    }
+
+    public void setSettleTimeout(Duration settleTimeout) {
+        this.settleTimeout = settleTimeout;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.resilience")
+public class SagaResilienceProperties {
+
+    // false: every transport error fails the step at once, as before
+    private boolean enabled = true;
+    // A step still unanswered this long after the order was created fails, retries included
+    private Duration sagaDeadline = Duration.ofSeconds(30);
+
+    private RetryPolicy payment = new RetryPolicy();
+    private RetryPolicy inventory = new RetryPolicy();
+    private RetryPolicy compensation = new RetryPolicy(5, Duration.ofMillis(100), Duration.ofSeconds(2));
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getSagaDeadline() {
+        return sagaDeadline;
+    }
+
+    public void setSagaDeadline(Duration sagaDeadline) {
+        this.sagaDeadline = sagaDeadline;
+    }
+
+    public RetryPolicy getPayment() {
+        return payment;
+    }
+
+    public void setPayment(RetryPolicy payment) {
+        this.payment = payment;
+    }
+
+    public RetryPolicy getInventory() {
+        return inventory;
+    }
+
+    public void setInventory(RetryPolicy inventory) {
+        this.inventory = inventory;
+    }
+
+    public RetryPolicy getCompensation() {
+        return compensation;
+    }
+
+    public void setCompensation(RetryPolicy compensation) {
+        this.compensation = compensation;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Retries of one step kind on transport errors. Refusals by the downstream are final and never retried.
+     */
+    public static class RetryPolicy {
+
+        // Including the first call
+        private int maxAttempts = 3;
+        // Backoff doubles per attempt up to max-backoff; each wait is randomised by +/- jitter of itself
+        private Duration initialBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private double jitter = 0.5;
+
+        public RetryPolicy() {
+        }
+
+        RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+            this.maxAttempts = maxAttempts;
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public double getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(double jitter) {
+            this.jitter = jitter;
+        }
+    }
+
+    /**
+     * One breaker per downstream service, shared by its steps and compensations.
+     */
+    public static class CircuitBreaker {
+
+        // Percentage of failed calls among the last window-size that opens the breaker
+        private int failureRateThreshold = 50;
+        private int windowSize = 100;
+        // No decision before this many calls are in the window
+        private int minimumCalls = 50;
+        // Calls fail fast for this long once open
+        private Duration openDuration = Duration.ofSeconds(5);
+        // Trial calls let through after open-duration; closes again if their failure rate is below the threshold
+        private int halfOpenCalls = 10;
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Status streams are Spring MVC async requests: the Tomcat thread is released once the stream opens and
+ * events are written from the stream executor. Without an executor of its own Spring MVC would start a
+ * new thread for every write.
+ */
+@Configuration
+public class SagaStreamConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor streamExecutor;
+    private final SagaStreamProperties properties;
+
+    public SagaStreamConfig(@Qualifier(SagaExecutorConfig.STREAM_EXECUTOR) AsyncTaskExecutor streamExecutor,
+                            SagaStreamProperties properties) {
+        this.streamExecutor = streamExecutor;
+        this.properties = properties;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamExecutor);
+        configurer.setDefaultTimeout(properties.getTimeout().toMillis());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.stream")
+public class SagaStreamProperties {
+
+    // Updates held per subscriber; a client that falls this far behind is disconnected and must reconnect
+    private int bufferSize = 256;
+    // Comment line sent on every open stream, keeps idle connections alive through proxies
+    private Duration heartbeat = Duration.ofSeconds(15);
+    // A stream is closed after this long; EventSource clients reconnect and start from the current status
+    private Duration timeout = Duration.ofMinutes(30);
+    // Platform threads writing events to clients; with virtual threads every write gets its own
+    private int writerThreads = 8;
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public Duration getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(Duration heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+}
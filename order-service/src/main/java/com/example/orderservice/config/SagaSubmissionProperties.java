@@ -0,0 +1,70 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.submission")
+public class SagaSubmissionProperties {
+
+    private SubmissionMode mode = SubmissionMode.ASYNC;
+
+    // How long a SYNC request waits for the saga to settle before answering with the current status
+    private Duration syncTimeout = Duration.ofSeconds(30);
+
+    // Dedicated pool the saga runs on when mode is ASYNC
+    private int corePoolSize = 16;
+    private int maxPoolSize = 64;
+    private int queueCapacity = 10000;
+
+    // Virtual-thread mode only: saga tasks running at once, beyond which submissions are rejected; -1 for no cap
+    private int virtualConcurrencyLimit = 10000;
+
+    public SubmissionMode getMode() {
+        return mode;
+    }
+
+    public void setMode(SubmissionMode mode) {
+        this.mode = mode;
+    }
+
+    public Duration getSyncTimeout() {
+        return syncTimeout;
+    }
+
+    public void setSyncTimeout(Duration syncTimeout) {
+        this.syncTimeout = syncTimeout;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getVirtualConcurrencyLimit() {
+        return virtualConcurrencyLimit;
+    }
+
+    public void setVirtualConcurrencyLimit(int virtualConcurrencyLimit) {
+        this.virtualConcurrencyLimit = virtualConcurrencyLimit;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.orderservice.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+
+import com.example.orderservice.transport.CoalescingSagaTransport;
+import com.example.orderservice.transport.InProcessSagaTransport;
+import com.example.orderservice.transport.InstrumentedSagaTransport;
+import com.example.orderservice.transport.ResilientSagaTransport;
+import com.example.orderservice.transport.SagaTransport;
+import com.example.orderservice.transport.WebClientSagaTransport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class SagaTransportConfig {
+
+    public static final String SAGA_SCHEDULER = "sagaScheduler";
+
+    @Bean
+    public SagaTransport sagaTransport(SagaTransportProperties properties,
+                                       SagaResilienceProperties resilienceProperties,
+                                       MeterRegistry meterRegistry) {
+        SagaTransport transport;
+        if (properties.getType() == SagaTransportProperties.Type.IN_PROCESS) {
+            InProcessSagaTransport inProcess = new InProcessSagaTransport(properties.getInProcess());
+            transport = properties.getBatch().isEnabled()
+                    ? new CoalescingSagaTransport(inProcess, properties, meterRegistry)
+                    : inProcess;
+        } else {
+            WebClientSagaTransport webClient = new WebClientSagaTransport(properties);
+            transport = properties.getBatch().isEnabled()
+                    ? new CoalescingSagaTransport(webClient, properties, meterRegistry)
+                    : webClient;
+        }
+        // Retries wrap the coalescer, so a retried step goes back through it like any other call
+        if (resilienceProperties.isEnabled()) {
+            transport = new ResilientSagaTransport(transport, resilienceProperties, meterRegistry);
+        }
+        // Outermost, so saga.step.latency is what the saga waits for, retries included
+        return new InstrumentedSagaTransport(transport, meterRegistry);
+    }
+
+    /**
+     * Blocking work started from reactive chains (batch saga starts, recovery, queued compensations) is
+     * moved off Netty event-loop threads onto the saga executor. Step results re-enter the state machine
+     * on the order's lane instead, see SagaRegistry#sendEvent.
+     */
+    @Bean(name = SAGA_SCHEDULER)
+    public Scheduler sagaScheduler(@Qualifier(SagaExecutorConfig.SAGA_EXECUTOR) TaskExecutor sagaExecutor) {
+        return Schedulers.fromExecutor(sagaExecutor);
+    }
+}
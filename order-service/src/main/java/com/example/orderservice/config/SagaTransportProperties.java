@@ -0,0 +1,232 @@
+package com.example.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "saga.transport")
+public class SagaTransportProperties {
+
+    public enum Type {
+        HTTP,
+        IN_PROCESS
+    }
+
+    private Type type = Type.HTTP;
+
+    private String paymentBaseUrl = "http://payment-service:8081";
+    private String inventoryBaseUrl = "http://inventory-service:8082";
+
+    // Connection pool shared by both downstreams
+    private int maxConnections = 200;
+    private int pendingAcquireMaxCount = 2000;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration responseTimeout = Duration.ofSeconds(3);
+
+    // Upper bound for a whole step: pool acquire + connect + response
+    private Duration paymentDeadline = Duration.ofSeconds(5);
+    private Duration inventoryDeadline = Duration.ofSeconds(5);
+    private Duration compensationDeadline = Duration.ofSeconds(10);
+
+    private InProcess inProcess = new InProcess();
+    private Batch batch = new Batch();
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getPaymentBaseUrl() {
+        return paymentBaseUrl;
+    }
+
+    public void setPaymentBaseUrl(String paymentBaseUrl) {
+        this.paymentBaseUrl = paymentBaseUrl;
+    }
+
+    public String getInventoryBaseUrl() {
+        return inventoryBaseUrl;
+    }
+
+    public void setInventoryBaseUrl(String inventoryBaseUrl) {
+        this.inventoryBaseUrl = inventoryBaseUrl;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    }
+
+    public Duration getPendingAcquireTimeout() {
+        return pendingAcquireTimeout;
+    }
+
+    public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+    }
+
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(Duration maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    public void setResponseTimeout(Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+    }
+
+    public Duration getPaymentDeadline() {
+        return paymentDeadline;
+    }
+
+    public void setPaymentDeadline(Duration paymentDeadline) {
+        this.paymentDeadline = paymentDeadline;
+    }
+
+    public Duration getInventoryDeadline() {
+        return inventoryDeadline;
+    }
+
+    public void setInventoryDeadline(Duration inventoryDeadline) {
+        this.inventoryDeadline = inventoryDeadline;
+    }
+
+    public Duration getCompensationDeadline() {
+        return compensationDeadline;
+    }
+
+    public void setCompensationDeadline(Duration compensationDeadline) {
+        this.compensationDeadline = compensationDeadline;
+    }
+
+    public InProcess getInProcess() {
+        return inProcess;
+    }
+
+    public void setInProcess(InProcess inProcess) {
+        this.inProcess = inProcess;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public static class InProcess {
+
+        private Duration paymentLatency = Duration.ZERO;
+        private Duration inventoryLatency = Duration.ZERO;
+        // Share of calls to each stand-in, compensations included, that fail with a transport error instead of answering
+        private double paymentFailureRate = 0;
+        private double inventoryFailureRate = 0;
+
+        public Duration getPaymentLatency() {
+            return paymentLatency;
+        }
+
+        public void setPaymentLatency(Duration paymentLatency) {
+            this.paymentLatency = paymentLatency;
+        }
+
+        public Duration getInventoryLatency() {
+            return inventoryLatency;
+        }
+
+        public void setInventoryLatency(Duration inventoryLatency) {
+            this.inventoryLatency = inventoryLatency;
+        }
+
+        public double getPaymentFailureRate() {
+            return paymentFailureRate;
+        }
+
+        public void setPaymentFailureRate(double paymentFailureRate) {
+            this.paymentFailureRate = paymentFailureRate;
+        }
+
+        public double getInventoryFailureRate() {
+            return inventoryFailureRate;
+        }
+
+        public void setInventoryFailureRate(double inventoryFailureRate) {
+            this.inventoryFailureRate = inventoryFailureRate;
+        }
+    }
+
+    public static class Batch {
+
+        // When enabled, payment and inventory steps of concurrent sagas are sent as batch requests
+        private boolean enabled = false;
+        // A batch is sent once this many steps are pending or the oldest has waited max-delay
+        private int maxSize = 100;
+        private Duration maxDelay = Duration.ofMillis(5);
+        // Batch requests of one step kind outstanding at once
+        private int maxInFlight = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+}
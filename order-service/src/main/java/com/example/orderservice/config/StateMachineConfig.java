@@ -1,70 +1,82 @@
 package com.example.orderservice.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.statemachine.action.Action;
 import org.springframework.statemachine.config.EnableStateMachineFactory;
 import org.springframework.statemachine.config.EnumStateMachineConfigurerAdapter;
 import org.springframework.statemachine.config.builders.StateMachineStateConfigurer;
 import org.springframework.statemachine.config.builders.StateMachineTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.ExternalTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.StateConfigurer;
 import com.example.orderservice.service.SagaActions;
 import com.example.orderservice.state.OrderState;
 import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderTransition;
+import com.example.orderservice.state.SagaCommand;
 
-import java.util.EnumSet;
+import java.util.List;
 
 @Configuration
 @EnableStateMachineFactory
 public class StateMachineConfig extends EnumStateMachineConfigurerAdapter<OrderState, OrderEvent> {
 
     private final SagaActions sagaActions;
+    private final SagaOutboxProperties outboxProperties;
+    private final SagaEngineProperties engineProperties;
 
-    public StateMachineConfig(SagaActions sagaActions) {
+    public StateMachineConfig(SagaActions sagaActions,
+                              SagaOutboxProperties outboxProperties,
+                              SagaEngineProperties engineProperties) {
         this.sagaActions = sagaActions;
+        this.outboxProperties = outboxProperties;
+        this.engineProperties = engineProperties;
     }
 
     @Override
     public void configure(StateMachineStateConfigurer<OrderState, OrderEvent> states) throws Exception {
-        states.withStates()
-                .initial(OrderState.ORDER_CREATED)
-                // State entry actions - execute when entering the state
-                .state(OrderState.PAYMENT_PENDING, sagaActions.processPaymentAction(), null)
-                .state(OrderState.PAYMENT_COMPLETED, sagaActions.reserveInventoryAction(), null)
-                .state(OrderState.INVENTORY_RESERVED)
-                .end(OrderState.ORDER_COMPLETED)
-                .end(OrderState.ORDER_FAILED);
+        StateConfigurer<OrderState, OrderEvent> stateConfigurer = states.withStates()
+                .initial(OrderState.ORDER_CREATED);
+
+        // ORDER_COMPLETED / ORDER_FAILED have no outgoing transitions but are not declared as end states:
+        // a machine that reaches an end state completes and cannot be reset for the next order (StateMachinePool)
+        for (OrderState state : OrderState.values()) {
+            List<SagaCommand> steps = SagaCommand.onEntry(state);
+            if (!steps.isEmpty() && !outboxProperties.isEnabled()) {
+                // State entry actions - execute when entering the state; the parallel fork has two
+                stateConfigurer.state(state, steps.stream().map(this::action).toList(), null);
+            } else {
+                // With the outbox enabled commands are recorded by OrderStatusWriter and sent by OutboxRelay
+                stateConfigurer.state(state);
+            }
+        }
     }
 
     @Override
     public void configure(StateMachineTransitionConfigurer<OrderState, OrderEvent> transitions) throws Exception {
-        transitions
-                .withExternal()
-                .source(OrderState.ORDER_CREATED)
-                .target(OrderState.PAYMENT_PENDING)
-                .event(OrderEvent.CREATE_ORDER)
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_PENDING)
-                .target(OrderState.PAYMENT_COMPLETED)
-                .event(OrderEvent.PAYMENT_SUCCESS)
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_PENDING)
-                .target(OrderState.ORDER_FAILED)
-                .event(OrderEvent.PAYMENT_FAILURE)
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_COMPLETED)
-                .target(OrderState.INVENTORY_RESERVED)
-                .event(OrderEvent.INVENTORY_SUCCESS)
-                .and()
-                .withExternal()
-                .source(OrderState.PAYMENT_COMPLETED)
-                .target(OrderState.ORDER_FAILED)
-                .event(OrderEvent.INVENTORY_FAILURE)
-                .action(sagaActions.compensatePaymentAction())
-                .and()
-                .withExternal()
-                .source(OrderState.INVENTORY_RESERVED)
-                .target(OrderState.ORDER_COMPLETED)
-                .event(OrderEvent.COMPLETE_ORDER);
+        for (OrderTransition orderTransition : OrderTransition.graph(engineProperties.isParallelSteps())) {
+            ExternalTransitionConfigurer<OrderState, OrderEvent> external = transitions
+                    .withExternal()
+                    .source(orderTransition.getSource())
+                    .target(orderTransition.getTarget())
+                    .event(orderTransition.getEvent());
+
+            // With the outbox enabled the transition's commands are written alongside it instead;
+            // CANCEL_ORDER, sent when a state's deadline expires (SagaDeadlines), undoes both branches
+            if (!outboxProperties.isEnabled()) {
+                for (SagaCommand command : orderTransition.getCommands()) {
+                    external.action(action(command));
+                }
+            }
+        }
+    }
+
+    private Action<OrderState, OrderEvent> action(SagaCommand command) {
+        return switch (command) {
+            case PROCESS_PAYMENT -> sagaActions.processPaymentAction();
+            case RESERVE_INVENTORY -> sagaActions.reserveInventoryAction();
+            case CANCEL_PAYMENT -> sagaActions.compensatePaymentAction();
+            case RELEASE_INVENTORY -> sagaActions.compensateInventoryAction();
+            case CONFIRM_INVENTORY -> sagaActions.confirmInventoryAction();
+        };
     }
 }
@@ -0,0 +1,10 @@
+package com.example.orderservice.config;
+
+/**
+ * How {@code POST /api/orders} drives the saga.
+ * SYNC keeps the request thread until the saga settles, ASYNC hands it to the saga executor.
+ */
+public enum SubmissionMode {
+    SYNC,
+    ASYNC
+}
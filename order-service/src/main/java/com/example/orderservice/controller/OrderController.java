@@ -1,24 +1,179 @@
 package com.example.orderservice.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
 import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.admission.AdmissionRejectedException;
+import com.example.orderservice.cluster.NoSagaPartitionException;
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.config.SagaBatchProperties;
+import com.example.orderservice.config.SagaReadProperties;
+import com.example.orderservice.config.SagaStreamProperties;
+import com.example.orderservice.config.SagaSubmissionProperties;
+import com.example.orderservice.config.SubmissionMode;
+import com.example.orderservice.dto.OrderBatchResponse;
+import com.example.orderservice.dto.OrderPage;
+import com.example.orderservice.dto.OrderStatusUpdate;
+import com.example.orderservice.dto.OrderSubmissionResponse;
 import com.example.orderservice.entity.Order;
 import com.example.orderservice.state.OrderState;
 
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final SagaSubmissionProperties submissionProperties;
+    private final SagaBatchProperties batchProperties;
+    private final SagaReadProperties readProperties;
+    private final OrderStatusBroadcaster orderStatusBroadcaster;
+    private final SagaCluster sagaCluster;
+    // One timer for every open stream
+    private final Flux<ServerSentEvent<OrderStatusUpdate>> heartbeats;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService,
+                           SagaSubmissionProperties submissionProperties,
+                           SagaBatchProperties batchProperties,
+                           SagaReadProperties readProperties,
+                           OrderStatusBroadcaster orderStatusBroadcaster,
+                           SagaStreamProperties streamProperties,
+                           SagaCluster sagaCluster) {
         this.orderService = orderService;
+        this.submissionProperties = submissionProperties;
+        this.batchProperties = batchProperties;
+        this.readProperties = readProperties;
+        this.orderStatusBroadcaster = orderStatusBroadcaster;
+        this.sagaCluster = sagaCluster;
+        this.heartbeats = Flux.interval(streamProperties.getHeartbeat())
+                .map(tick -> ServerSentEvent.<OrderStatusUpdate>builder().comment("heartbeat").build())
+                .share();
     }
 
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody Order order) {
+    public ResponseEntity<?> createOrder(@RequestBody Order order) {
+        try {
+            return admitOrder(order);
+        } catch (AdmissionRejectedException e) {
+            return tooManyRequests(e);
+        } catch (NoSagaPartitionException e) {
+            return toOrderTakingNode();
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(@RequestBody List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return ResponseEntity.badRequest().body("At least one order is required");
+        }
+        if (orders.size() > batchProperties.getMaxSize()) {
+            return ResponseEntity.badRequest().body("Batch too large: " + orders.size() + " orders, maximum is " + batchProperties.getMaxSize());
+        }
+        int missing = orders.indexOf(null);
+        if (missing >= 0) {
+            return ResponseEntity.badRequest().body("Order at index " + missing + " is null");
+        }
+        try {
+            if (submissionProperties.getMode() == SubmissionMode.ASYNC) {
+                return ResponseEntity.accepted().body(toBatchResponse(orderService.submitOrders(orders)));
+            }
+            return ResponseEntity.ok(toBatchResponse(orderService.createOrders(orders)));
+        } catch (AdmissionRejectedException e) {
+            return tooManyRequests(e);
+        } catch (NoSagaPartitionException e) {
+            return toOrderTakingNode();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Order> getOrder(@PathVariable UUID id) {
+        Optional<URI> owner = ownerLocation(id);
+        if (owner.isPresent()) {
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(owner.get()).build();
+        }
+        return orderService.findOrder(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-Sent Events: the order's current status, then every transition; the stream ends once the
+     * saga settles.
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<OrderStatusUpdate>>> orderEvents(@PathVariable UUID id) {
+        Optional<URI> owner = ownerLocation(id);
+        if (owner.isPresent()) {
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(owner.get()).build();
+        }
+        return orderStatusBroadcaster.orderUpdates(id)
+                .map(updates -> ResponseEntity.ok(eventStream(updates)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-Sent Events: every transition of the customer's sagas from now on.
+     */
+    @GetMapping(path = "/events", params = "customerId", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderStatusUpdate>> customerEvents(@RequestParam Long customerId) {
+        return eventStream(orderStatusBroadcaster.customerUpdates(customerId));
+    }
+
+    /**
+     * Orders of one customer or in one status, a keyset page at a time: pass the previous page's
+     * {@code nextAfter} as {@code after}, or follow {@code next}.
+     */
+    @GetMapping
+    public ResponseEntity<?> listOrders(@RequestParam(required = false) Long customerId,
+                                        @RequestParam(required = false) OrderState status,
+                                        @RequestParam(required = false) UUID after,
+                                        @RequestParam(required = false) Integer limit) {
+        if ((customerId == null) == (status == null)) {
+            return ResponseEntity.badRequest().body("Exactly one of customerId or status is required");
+        }
+        SagaReadProperties.Page pageProperties = readProperties.getPage();
+        int pageSize = limit == null ? pageProperties.getDefaultSize() : limit;
+        if (pageSize < 1 || pageSize > pageProperties.getMaxSize()) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + pageProperties.getMaxSize());
+        }
+
+        // One row beyond the page tells whether another page follows, without a count query
+        List<Order> orders = customerId != null
+                ? orderService.findOrdersByCustomer(customerId, after, pageSize + 1)
+                : orderService.findOrdersByStatus(status, after, pageSize + 1);
+        if (orders.size() <= pageSize) {
+            return ResponseEntity.ok(new OrderPage(orders, null, null));
+        }
+
+        List<Order> page = orders.subList(0, pageSize);
+        UUID nextAfter = page.get(pageSize - 1).getId();
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", nextAfter)
+                .toUriString();
+        return ResponseEntity.ok(new OrderPage(page, nextAfter, next));
+    }
+
+    private ResponseEntity<?> admitOrder(Order order) {
+        if (submissionProperties.getMode() == SubmissionMode.ASYNC) {
+            return submitOrder(order);
+        }
+
         Order createdOrder = orderService.createOrder(order);
 
         if (createdOrder.getStatus() == OrderState.ORDER_FAILED) {
@@ -27,4 +182,82 @@ public class OrderController {
 
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
     }
+
+    /**
+     * The same request on the node running the order's saga, when that is another node: its cache and its
+     * status streams are the ones the saga's transitions reach.
+     */
+    private Optional<URI> ownerLocation(UUID orderId) {
+        return sagaCluster.ownerUrl(orderId).map(this::onNode);
+    }
+
+    /**
+     * This node holds no saga partition: 307 keeps the method and body, so the client resubmits the same
+     * orders to a node that does. Nothing was persisted here.
+     */
+    private ResponseEntity<?> toOrderTakingNode() {
+        return sagaCluster.anyOwnerUrl()
+                .<ResponseEntity<?>>map(url -> ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(onNode(url)).build())
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("No node holds saga partitions yet"));
+    }
+
+    private URI onNode(String baseUrl) {
+        UriComponents current = ServletUriComponentsBuilder.fromCurrentRequest().build();
+        return UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path(current.getPath())
+                .query(current.getQuery())
+                .build(true)
+                .toUri();
+    }
+
+    /**
+     * Load shed by the admission limiter: nothing was persisted, the client may retry the same request.
+     */
+    private ResponseEntity<String> tooManyRequests(AdmissionRejectedException e) {
+        // Retry-After takes whole seconds
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(e.getMessage());
+    }
+
+    private ResponseEntity<OrderSubmissionResponse> submitOrder(Order order) {
+        Order submittedOrder = orderService.submitOrder(order);
+
+        URI statusUri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(submittedOrder.getId())
+                .toUri();
+        OrderSubmissionResponse body = new OrderSubmissionResponse(
+                submittedOrder.getId(), submittedOrder.getStatus(), statusUri.toString());
+
+        // The executor refused the saga, the order was failed before it started
+        if (submittedOrder.getStatus() == OrderState.ORDER_FAILED) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+        }
+
+        return ResponseEntity.accepted().location(statusUri).body(body);
+    }
+
+    private Flux<ServerSentEvent<OrderStatusUpdate>> eventStream(Flux<OrderStatusUpdate> updates) {
+        return updates
+                .map(update -> ServerSentEvent.builder(update).event("status").build())
+                // Heartbeats stop with the updates, so a settled order's stream closes
+                .publish(events -> Flux.merge(events, heartbeats.takeUntilOther(events.then())), 1);
+    }
+
+    private OrderBatchResponse toBatchResponse(List<Order> orders) {
+        List<OrderBatchResponse.Item> items = orders.stream()
+                .map(order -> new OrderBatchResponse.Item(order.getId(), order.getStatus(), ServletUriComponentsBuilder
+                        .fromCurrentContextPath()
+                        .path("/api/orders/{id}")
+                        .buildAndExpand(order.getId())
+                        .toUriString()))
+                .toList();
+        Map<OrderState, Long> statusCounts = items.stream()
+                .collect(Collectors.groupingBy(OrderBatchResponse.Item::status, Collectors.counting()));
+        return new OrderBatchResponse(items.size(), statusCounts, items);
+    }
 }
@@ -0,0 +1,206 @@
+package com.example.orderservice.deadline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timer wheel: a ring of buckets, one per tick, each an intrusive doubly linked list of timeouts.
+ * A timeout lands in the bucket of the tick it expires on, with the number of full turns still to wait,
+ * so scheduling and cancelling are O(1) whatever the number of pending timeouts. One thread advances the
+ * wheel every tick and runs the expired tasks outside the lock; they must be short and must not block.
+ * Expiry is accurate to one tick.
+ */
+public class HashedTimerWheel {
+
+    private final long tickNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final Thread worker;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongSupplier nanoClock;
+    private final long startedAt;
+    // Last tick the worker has processed; guarded by lock
+    private long tick;
+    private int pending;
+    private volatile boolean stopped;
+
+    /**
+     * @param wheelSize rounded up to a power of two
+     */
+    public HashedTimerWheel(String name, Duration tickDuration, int wheelSize) {
+        this(name, tickDuration, wheelSize, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime()}-like readings; tests drive the wheel with a
+     *                  clock of their own and {@link #advance()} instead of starting the worker
+     */
+    HashedTimerWheel(String name, Duration tickDuration, int wheelSize, LongSupplier nanoClock) {
+        if (tickDuration.isNegative() || tickDuration.isZero() || wheelSize <= 0) {
+            throw new IllegalArgumentException("Timer wheel needs a positive tick and wheel size");
+        }
+        this.tickNanos = tickDuration.toNanos();
+        int size = Integer.highestOneBit(wheelSize);
+        this.buckets = new Timeout[size < wheelSize ? size << 1 : size];
+        this.mask = buckets.length - 1;
+        this.worker = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+        this.nanoClock = nanoClock;
+        this.startedAt = nanoClock.getAsLong();
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * Stops the worker; timeouts still pending never run.
+     */
+    public void stop() {
+        stopped = true;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Runs the task on the wheel's thread once the delay has passed, on the next tick at the earliest.
+     */
+    public Timeout schedule(Duration delay, Runnable task) {
+        long delayTicks = Math.max(1, (delay.toNanos() + tickNanos - 1) / tickNanos);
+        Timeout timeout = new Timeout(task);
+        lock.lock();
+        try {
+            // Never before the next tick the worker processes, so a timeout cannot land in a bucket it has passed
+            long elapsedTicks = (nanoClock.getAsLong() - startedAt) / tickNanos;
+            long expiresAt = Math.max(tick + 1, elapsedTicks + delayTicks);
+            timeout.rounds = (expiresAt - tick - 1) / buckets.length;
+            timeout.bucket = (int) (expiresAt & mask);
+            link(timeout);
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (!stopped) {
+            long sleep = advance();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    /**
+     * Processes every tick that has come by the clock, then runs the tasks that expired on them, on the
+     * calling thread. Returns the nanoseconds until the next tick.
+     */
+    long advance() {
+        List<Runnable> expired = new ArrayList<>();
+        long untilNextTick;
+        lock.lock();
+        try {
+            long elapsed = nanoClock.getAsLong() - startedAt;
+            while ((tick + 1) * tickNanos <= elapsed) {
+                tick++;
+                expire((int) (tick & mask), expired);
+            }
+            untilNextTick = (tick + 1) * tickNanos - elapsed;
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable task : expired) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Timer Wheel: Task failed: " + e.getMessage());
+            }
+        }
+        return untilNextTick;
+    }
+
+    private void expire(int bucket, List<Runnable> expired) {
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds == 0) {
+                unlink(timeout);
+                pending--;
+                expired.add(timeout.task);
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private void link(Timeout timeout) {
+        Timeout head = buckets[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[timeout.bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        // Guarded by the wheel's lock; -1 once expired or cancelled
+        private int bucket;
+        private long rounds;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * @return false if the task has already been handed to the worker or was cancelled before
+         */
+        public boolean cancel() {
+            lock.lock();
+            try {
+                if (bucket < 0) {
+                    return false;
+                }
+                unlink(this);
+                pending--;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
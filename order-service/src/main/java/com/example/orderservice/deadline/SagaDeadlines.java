@@ -0,0 +1,252 @@
+package com.example.orderservice.deadline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.config.SagaDeadlineProperties;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.SagaRegistry;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.SagaCommand;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-state deadlines of the sagas running on this node, kept in a {@link HashedTimerWheel}. Entering a
+ * state replaces the saga's deadline with the new state's, settling removes it. A saga still waiting on a
+ * step when its deadline expires gets CANCEL_ORDER, which fails the order and compensates; an order in
+ * INVENTORY_RESERVED gets COMPLETE_ORDER. Expiry goes through the order's lane and is dropped if the saga
+ * has left the state by then.
+ * <p>
+ * The wheel only knows sagas that are live on this node. A low-frequency database pass adopts open sagas
+ * no node is running, e.g. after a restart with recovery disabled or whose rehydration failed, reading
+ * only orders in a state with a deadline and old enough to have overrun it.
+ */
+@Component
+public class SagaDeadlines implements SchedulingConfigurer, SmartLifecycle {
+
+    private static final OrderState[] STATES = OrderState.values();
+
+    private final SagaRegistry sagaRegistry;
+    private final OrderRepository orderRepository;
+    private final SagaCluster sagaCluster;
+    private final SagaDeadlineProperties properties;
+    private final HashedTimerWheel wheel;
+
+    // Indexed by state ordinal; null where the state has no deadline
+    private final OrderEvent[] expiryEvents = new OrderEvent[STATES.length];
+    private final Duration[] deadlines = new Duration[STATES.length];
+    // Indexed by event ordinal
+    private final Counter[] expired = new Counter[OrderEvent.values().length];
+    private final Counter adopted;
+
+    // The deadline each live saga is currently under; an expiring deadline fires only if it is still here
+    private final Map<UUID, Deadline> pending = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    @Autowired
+    public SagaDeadlines(SagaRegistry sagaRegistry,
+                         OrderRepository orderRepository,
+                         SagaCluster sagaCluster,
+                         SagaDeadlineProperties properties,
+                         MeterRegistry meterRegistry) {
+        this(sagaRegistry, orderRepository, sagaCluster, properties, meterRegistry,
+                new HashedTimerWheel("saga-deadlines", properties.getTick(), properties.getWheelSize()));
+    }
+
+    /**
+     * On a wheel of the caller's, e.g. one a test advances by hand.
+     */
+    SagaDeadlines(SagaRegistry sagaRegistry,
+                  OrderRepository orderRepository,
+                  SagaCluster sagaCluster,
+                  SagaDeadlineProperties properties,
+                  MeterRegistry meterRegistry,
+                  HashedTimerWheel wheel) {
+        this.sagaRegistry = sagaRegistry;
+        this.orderRepository = orderRepository;
+        this.sagaCluster = sagaCluster;
+        this.properties = properties;
+        this.wheel = wheel;
+
+        for (OrderState state : STATES) {
+            if (state == OrderState.INVENTORY_RESERVED) {
+                expiryEvents[state.ordinal()] = OrderEvent.COMPLETE_ORDER;
+                deadlines[state.ordinal()] = properties.getStates().getOrDefault(state, properties.getComplete());
+            } else if (!SagaCommand.awaitedIn(state).isEmpty()) {
+                expiryEvents[state.ordinal()] = OrderEvent.CANCEL_ORDER;
+                deadlines[state.ordinal()] = properties.getStates().getOrDefault(state, properties.getStep());
+            }
+        }
+        for (OrderEvent event : List.of(OrderEvent.CANCEL_ORDER, OrderEvent.COMPLETE_ORDER)) {
+            expired[event.ordinal()] = Counter.builder("saga.deadline.expired")
+                    .description("Saga deadlines that expired, by the event they sent")
+                    .tag("event", event.name())
+                    .register(meterRegistry);
+        }
+        this.adopted = Counter.builder("saga.deadline.adopted")
+                .description("Open sagas the reconciliation pass found running on no node and rehydrated")
+                .register(meterRegistry);
+        Gauge.builder("saga.deadline.pending", wheel, HashedTimerWheel::pending)
+                .description("Saga deadlines waiting in the timer wheel")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        // Not at startup: the recovery scan is rehydrating open sagas then
+        taskRegistrar.addFixedDelayTask(new FixedDelayTask(this::reconcile,
+                properties.getReconcileInterval(), properties.getReconcileInterval()));
+    }
+
+    @Override
+    public void start() {
+        wheel.start();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        wheel.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Called with every state the saga enters, on the order's lane or while the saga is rehydrated. A
+     * zero deadline sends its event straight away, queued on the lane behind the current one.
+     */
+    public void stateEntered(UUID orderId, OrderState state) {
+        cancel(orderId);
+        OrderEvent event = expiryEvents[state.ordinal()];
+        if (event == null) {
+            return;
+        }
+        Duration deadline = deadlines[state.ordinal()];
+        if (deadline.isZero() || deadline.isNegative()) {
+            expire(orderId, state, event);
+            return;
+        }
+        Deadline entry = new Deadline(orderId, state, event);
+        // Registered before it can fire, so the expiry always finds it
+        pending.put(orderId, entry);
+        entry.timeout = wheel.schedule(deadline, entry);
+    }
+
+    public void sagaEnded(UUID orderId) {
+        cancel(orderId);
+    }
+
+    private void cancel(UUID orderId) {
+        Deadline previous = pending.remove(orderId);
+        if (previous != null && previous.timeout != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    private void expire(UUID orderId, OrderState state, OrderEvent event) {
+        expired[event.ordinal()].increment();
+        if (event == OrderEvent.CANCEL_ORDER) {
+            System.err.println("Saga Deadlines: Order: " + orderId + " still in " + state + " after "
+                    + deadlines[state.ordinal()] + ", cancelling");
+        }
+        sagaRegistry.sendEvent(orderId, state, event).subscribe(null, e -> {
+            if (e instanceof TaskRejectedException && sagaRegistry.isLive(orderId)) {
+                // The lane is full; try again a tick later unless the saga has moved on meanwhile
+                Deadline retry = new Deadline(orderId, state, event);
+                if (pending.putIfAbsent(orderId, retry) == null) {
+                    retry.timeout = wheel.schedule(properties.getTick(), retry);
+                }
+                return;
+            }
+            System.err.println("Saga Deadlines: Could not send " + event + " to Order: " + orderId
+                    + " Error: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Rehydrates the open sagas of this node that are not live, which puts each under a fresh deadline.
+     * An order entered its state no earlier than it was created, so orders younger than the state's
+     * deadline cannot have overrun it and are left out of the query.
+     */
+    void reconcile() {
+        if (!running) {
+            return;
+        }
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        int found = 0;
+        for (OrderState state : STATES) {
+            if (expiryEvents[state.ordinal()] == null || !OrderService.RECOVERABLE_STATES.contains(state)) {
+                continue;
+            }
+            Instant cutoff = now.minus(deadlines[state.ordinal()]);
+            PageRequest page = PageRequest.of(0, properties.getReconcilePageSize());
+            List<Order> orders = orderRepository.findByStatusAndCreatedAtBeforeOrderByIdAsc(state, cutoff, page);
+            while (!orders.isEmpty()) {
+                for (Order order : orders) {
+                    UUID orderId = order.getId();
+                    if (!sagaRegistry.isLive(orderId) && sagaCluster.owns(orderId)
+                            && sagaRegistry.getOrLoad(orderId).isPresent()) {
+                        found++;
+                    }
+                }
+                if (orders.size() < properties.getReconcilePageSize()) {
+                    break;
+                }
+                UUID last = orders.get(orders.size() - 1).getId();
+                orders = orderRepository.findByStatusAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(state, cutoff, last, page);
+            }
+        }
+        if (found > 0) {
+            adopted.increment(found);
+            System.out.println("Saga Deadlines: Reconciliation adopted " + found + " open sagas in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+    }
+
+    private final class Deadline implements Runnable {
+
+        private final UUID orderId;
+        private final OrderState state;
+        private final OrderEvent event;
+        private volatile HashedTimerWheel.Timeout timeout;
+
+        private Deadline(UUID orderId, OrderState state, OrderEvent event) {
+            this.orderId = orderId;
+            this.state = state;
+            this.event = event;
+        }
+
+        @Override
+        public void run() {
+            // Replaced or removed since the wheel picked it up: the saga has moved on
+            if (pending.remove(orderId, this)) {
+                expire(orderId, state, event);
+            }
+        }
+    }
+}
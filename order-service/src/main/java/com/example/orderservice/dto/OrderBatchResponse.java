@@ -0,0 +1,16 @@
+package com.example.orderservice.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.example.orderservice.state.OrderState;
+
+/**
+ * Result of {@code POST /api/orders/batch}: per-order status in request order plus a count per status.
+ */
+public record OrderBatchResponse(int total, Map<OrderState, Long> statusCounts, List<Item> orders) {
+
+    public record Item(UUID orderId, OrderState status, String statusUrl) {
+    }
+}
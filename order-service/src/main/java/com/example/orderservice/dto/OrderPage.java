@@ -0,0 +1,13 @@
+package com.example.orderservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.example.orderservice.entity.Order;
+
+/**
+ * Result of {@code GET /api/orders}: one keyset page in id order. {@code nextAfter} and {@code next} are
+ * null on the last page; otherwise {@code next} is the same query continuing after {@code nextAfter}.
+ */
+public record OrderPage(List<Order> orders, UUID nextAfter, String next) {
+}
@@ -0,0 +1,15 @@
+package com.example.orderservice.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * One event of the order status streams: a committed transition, or the order's status when the stream
+ * opened, in which case {@code previousStatus} and {@code event} are null.
+ */
+public record OrderStatusUpdate(UUID orderId, Long customerId, OrderState previousStatus, OrderEvent event,
+                                OrderState status, Instant at) {
+}
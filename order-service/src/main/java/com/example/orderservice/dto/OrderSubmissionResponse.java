@@ -0,0 +1,12 @@
+package com.example.orderservice.dto;
+
+import java.util.UUID;
+
+import com.example.orderservice.state.OrderState;
+
+/**
+ * Body returned with 202 Accepted: the saga keeps running after the response is sent,
+ * poll {@code statusUrl} for the outcome.
+ */
+public record OrderSubmissionResponse(UUID orderId, OrderState status, String statusUrl) {
+}
@@ -0,0 +1,88 @@
+package com.example.orderservice.engine;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A state machine handed out by {@link StateMachinePool} together with the order and settled future of
+ * the saga currently running on it. Both are renewed every time the machine is borrowed.
+ */
+public class PooledStateMachine implements SagaInstance {
+
+    private final StateMachine<OrderState, OrderEvent> stateMachine;
+    // Built because the pool was exhausted; dropped instead of being returned
+    private final boolean overflow;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile UUID orderId;
+    private volatile CompletableFuture<OrderState> settled = new CompletableFuture<>();
+
+    PooledStateMachine(StateMachine<OrderState, OrderEvent> stateMachine, boolean overflow) {
+        this.stateMachine = stateMachine;
+        this.overflow = overflow;
+    }
+
+    public StateMachine<OrderState, OrderEvent> getStateMachine() {
+        return stateMachine;
+    }
+
+    @Override
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    @Override
+    public OrderState getState() {
+        return stateMachine.getState().getId();
+    }
+
+    /**
+     * Sends the event and blocks until the machine has processed it. The machine runs a transition on the
+     * sending thread, so an outcome sent from another thread while a transition is still in progress
+     * would be evaluated against the old state and dropped; the order's lane rules that out.
+     */
+    @Override
+    public void sendEvent(OrderEvent event) {
+        Message<OrderEvent> message = MessageBuilder
+                .withPayload(event)
+                .setHeader(OrderService.ORDER_ID_HEADER, orderId)
+                .build();
+        stateMachine.sendEvent(Mono.just(message)).blockLast();
+    }
+
+    @Override
+    public CompletableFuture<OrderState> getSettled() {
+        return settled;
+    }
+
+    boolean isOverflow() {
+        return overflow;
+    }
+
+    void renew(UUID orderId) {
+        this.orderId = orderId;
+        settled = new CompletableFuture<>();
+        released.set(false);
+    }
+
+    void settle(OrderState state) {
+        settled.complete(state);
+    }
+
+    /**
+     * True for exactly one caller per borrow.
+     */
+    boolean markReleased() {
+        return released.compareAndSet(false, true);
+    }
+}
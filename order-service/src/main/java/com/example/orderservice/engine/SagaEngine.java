@@ -0,0 +1,30 @@
+package com.example.orderservice.engine;
+
+import java.util.UUID;
+
+import com.example.orderservice.state.OrderState;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the order saga graph ({@link com.example.orderservice.state.OrderTransition}). Selected by
+ * saga.engine.type; both implementations drive the same SagaActions and OrderStatusWriter.
+ */
+public interface SagaEngine {
+
+    /**
+     * A saga for a new order, in ORDER_CREATED and waiting for CREATE_ORDER.
+     */
+    SagaInstance start(UUID orderId);
+
+    /**
+     * A saga picking up an order already in the given state, without re-running that state's entry step.
+     */
+    SagaInstance resume(UUID orderId, OrderState state);
+
+    /**
+     * Gives back whatever the instance held once its saga has settled and the settling event has been
+     * fully processed.
+     */
+    Mono<Void> release(SagaInstance instance);
+}
@@ -0,0 +1,29 @@
+package com.example.orderservice.engine;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * One running saga, as handed out by a {@link SagaEngine}.
+ */
+public interface SagaInstance {
+
+    UUID getOrderId();
+
+    OrderState getState();
+
+    /**
+     * Processes the event and returns once the transition, its status write and its actions are done. An
+     * event with no transition from the current state is ignored. Not safe for concurrent senders: events
+     * go through {@link SagaLanes}, which runs all of an order's events on one thread.
+     */
+    void sendEvent(OrderEvent event);
+
+    /**
+     * Completes with the first settled state the saga enters.
+     */
+    CompletableFuture<OrderState> getSettled();
+}
@@ -0,0 +1,153 @@
+package com.example.orderservice.engine;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.core.task.TaskRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-writer executor for saga events: each order id is hashed onto one of a fixed set of lanes, and
+ * a lane runs its tasks one at a time on its own thread, in the order they were queued. Every event of
+ * an order is therefore processed in order by one thread without a lock, while different orders spread
+ * over all lanes. Each lane has a bounded mailbox; a task for a full lane is rejected rather than queued.
+ */
+public class SagaLanes implements AutoCloseable {
+
+    private final Lane[] lanes;
+    private final Counter rejected;
+
+    public SagaLanes(int count, int mailboxCapacity, ThreadFactory threadFactory, MeterRegistry meterRegistry) {
+        this.lanes = new Lane[count];
+        this.rejected = Counter.builder("saga.lane.rejected")
+                .description("Saga events rejected because their lane's mailbox was full")
+                .register(meterRegistry);
+        for (int i = 0; i < count; i++) {
+            Lane lane = new Lane(i, mailboxCapacity);
+            lanes[i] = lane;
+            String tag = Integer.toString(i);
+            Gauge.builder("saga.lane.queue.depth", lane.mailbox, BlockingQueue::size)
+                    .description("Saga events waiting in the lane's mailbox")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("saga.lane.utilization", lane, Lane::utilization)
+                    .description("Share of the time since the previous sample the lane spent running events")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            FunctionCounter.builder("saga.lane.busy", lane, Lane::busySeconds)
+                    .description("Time the lane spent running events")
+                    .baseUnit("seconds")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            lane.thread = threadFactory.newThread(lane);
+            lane.thread.start();
+        }
+    }
+
+    /**
+     * Queues the task on the order's lane and returns without waiting for it.
+     *
+     * @throws TaskRejectedException when the lane's mailbox is full
+     */
+    public void execute(UUID orderId, Runnable task) {
+        Lane lane = lanes[Math.floorMod(orderId.hashCode(), lanes.length)];
+        if (!lane.mailbox.offer(task)) {
+            rejected.increment();
+            throw new TaskRejectedException("Saga lane " + lane.index + " is full, rejecting event for Order: " + orderId);
+        }
+    }
+
+    public int size() {
+        return lanes.length;
+    }
+
+    /**
+     * Stops every lane; events still queued are dropped, as on any shutdown mid-saga.
+     */
+    @Override
+    public void close() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            lane.thread.interrupt();
+        }
+    }
+
+    private static final class Lane implements Runnable {
+
+        private final int index;
+        private final BlockingQueue<Runnable> mailbox;
+        private Thread thread;
+        private volatile boolean running = true;
+
+        // Written by the lane's thread only
+        private volatile long busyNanos;
+        // Start of the task in progress, 0 while idle
+        private volatile long runningSince;
+
+        // Previous utilization sample
+        private final ReentrantLock sampleLock = new ReentrantLock();
+        private long sampledBusy;
+        private long sampledAt = System.nanoTime();
+
+        private Lane(int index, int mailboxCapacity) {
+            this.index = index;
+            this.mailbox = new ArrayBlockingQueue<>(mailboxCapacity);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Runnable task;
+                try {
+                    task = mailbox.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long started = System.nanoTime();
+                runningSince = started;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Saga Lanes: Event failed on lane " + index + " Error: " + e.getMessage());
+                } finally {
+                    runningSince = 0;
+                    busyNanos += System.nanoTime() - started;
+                }
+            }
+        }
+
+        /**
+         * Busy time so far, the task in progress included.
+         */
+        private long busy(long now) {
+            long since = runningSince;
+            return busyNanos + (since != 0 ? now - since : 0);
+        }
+
+        private double busySeconds() {
+            return busy(System.nanoTime()) / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+
+        private double utilization() {
+            sampleLock.lock();
+            try {
+                long now = System.nanoTime();
+                long busy = busy(now);
+                double share = now == sampledAt ? 0 : (busy - sampledBusy) / (double) (now - sampledAt);
+                sampledBusy = busy;
+                sampledAt = now;
+                return Math.min(1, Math.max(0, share));
+            } finally {
+                sampleLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.orderservice.engine;
+
+import java.util.UUID;
+
+/**
+ * Action slot of the transition table; bound once to a SagaActions method, so running it allocates nothing.
+ */
+@FunctionalInterface
+interface SagaStep {
+
+    void run(UUID orderId);
+}
@@ -0,0 +1,199 @@
+package com.example.orderservice.engine;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.StateMachineContext;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.listener.StateMachineListenerAdapter;
+import org.springframework.statemachine.state.State;
+
+import com.example.orderservice.config.OrderStateMachineInterceptor;
+import com.example.orderservice.config.SagaPoolProperties;
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.SagaContextStore;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounded pool of pre-built state machines. Each machine gets its interceptors and settle listener once,
+ * at build time; a borrow only resets it to the order's context and starts it. Machines come back through
+ * {@link #release} when their saga settles. The saga.engine.type=spring engine.
+ */
+public class StateMachinePool implements SagaEngine {
+
+    private final StateMachineFactory<OrderState, OrderEvent> stateMachineFactory;
+    private final OrderStateMachineInterceptor orderStateMachineInterceptor;
+    private final SagaContextStore sagaContextStore;
+    private final SagaPoolProperties properties;
+
+    private final BlockingQueue<PooledStateMachine> idle;
+    // Pooled machines in existence, idle or borrowed
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter overflows;
+    private final Timer borrowWait;
+
+    public StateMachinePool(StateMachineFactory<OrderState, OrderEvent> stateMachineFactory,
+                            OrderStateMachineInterceptor orderStateMachineInterceptor,
+                            SagaContextStore sagaContextStore,
+                            SagaPoolProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.stateMachineFactory = stateMachineFactory;
+        this.orderStateMachineInterceptor = orderStateMachineInterceptor;
+        this.sagaContextStore = sagaContextStore;
+        this.properties = properties;
+        this.idle = new ArrayBlockingQueue<>(properties.getMaxSize());
+
+        this.hits = borrowCounter(meterRegistry, "hit");
+        this.misses = borrowCounter(meterRegistry, "miss");
+        this.overflows = borrowCounter(meterRegistry, "overflow");
+        this.borrowWait = Timer.builder("saga.pool.borrow.wait")
+                .description("Time spent waiting for a pooled state machine")
+                .register(meterRegistry);
+        Gauge.builder("saga.pool.size", size, AtomicInteger::get)
+                .description("Pooled state machines, idle or in use")
+                .register(meterRegistry);
+        Gauge.builder("saga.pool.idle", idle, BlockingQueue::size)
+                .description("Pooled state machines ready to be borrowed")
+                .register(meterRegistry);
+        Gauge.builder("saga.pool.hit.ratio", this, StateMachinePool::hitRatio)
+                .description("Share of borrows served by an idle machine")
+                .register(meterRegistry);
+
+        for (int i = 0; i < Math.min(properties.getPrewarm(), properties.getMaxSize()); i++) {
+            size.incrementAndGet();
+            idle.add(build(false));
+        }
+    }
+
+    @Override
+    public SagaInstance start(UUID orderId) {
+        return borrow(orderId, sagaContextStore.initial(orderId, OrderState.ORDER_CREATED));
+    }
+
+    @Override
+    public SagaInstance resume(UUID orderId, OrderState state) {
+        return borrow(orderId, sagaContextStore.read(orderId, state));
+    }
+
+    /**
+     * Hands out a started machine reset to the given context. Builds a new pooled machine while the pool
+     * is below its max size; once exhausted, waits up to the borrow timeout and then builds a throwaway one.
+     */
+    private PooledStateMachine borrow(UUID orderId, StateMachineContext<OrderState, OrderEvent> context) {
+        long started = System.nanoTime();
+        PooledStateMachine pooled = idle.poll();
+        if (pooled != null) {
+            hits.increment();
+        } else if (reserve()) {
+            misses.increment();
+            pooled = build(false);
+        } else {
+            try {
+                pooled = idle.poll(properties.getBorrowTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (pooled != null) {
+                hits.increment();
+            } else {
+                overflows.increment();
+                pooled = build(true);
+            }
+        }
+        borrowWait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        pooled.renew(orderId);
+        StateMachine<OrderState, OrderEvent> stateMachine = pooled.getStateMachine();
+        stateMachine.getStateMachineAccessor()
+                .doWithAllRegions(accessor -> accessor.resetStateMachineReactively(context).block());
+        stateMachine.startReactively().block();
+        return pooled;
+    }
+
+    /**
+     * Drops the persisted context, stops the machine and puts it back. Must only be subscribed once the
+     * event that settled the saga has been fully processed, otherwise the next borrower could reset it
+     * mid-transition.
+     */
+    @Override
+    public Mono<Void> release(SagaInstance instance) {
+        PooledStateMachine pooled = (PooledStateMachine) instance;
+        if (!pooled.markReleased()) {
+            return Mono.empty();
+        }
+        UUID orderId = pooled.getOrderId();
+        return Mono.fromRunnable(() -> discard(orderId))
+                .then(pooled.getStateMachine().stopReactively())
+                .then(Mono.fromRunnable(() -> {
+                    if (!pooled.isOverflow() && !idle.offer(pooled)) {
+                        size.decrementAndGet();
+                    }
+                }));
+    }
+
+    private void discard(UUID orderId) {
+        try {
+            sagaContextStore.discard(orderId);
+        } catch (Exception e) {
+            System.err.println("Saga Context: Could not discard context for Order: " + orderId
+                    + " Error: " + e.getMessage());
+        }
+    }
+
+    private boolean reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= properties.getMaxSize()) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledStateMachine build(boolean overflow) {
+        StateMachine<OrderState, OrderEvent> stateMachine = stateMachineFactory.getStateMachine();
+        PooledStateMachine pooled = new PooledStateMachine(stateMachine, overflow);
+
+        // Register the interceptor on the state machine instance (Spring SM 4.x way)
+        stateMachine.getStateMachineAccessor()
+                .doWithAllRegions(accessor -> accessor.addStateMachineInterceptor(orderStateMachineInterceptor));
+        // After the status interceptor, so a transition rejected by the conditional update is never persisted
+        sagaContextStore.attach(stateMachine);
+        stateMachine.addStateListener(new StateMachineListenerAdapter<>() {
+            @Override
+            public void stateChanged(State<OrderState, OrderEvent> from, State<OrderState, OrderEvent> to) {
+                if (to != null && OrderService.SETTLED_STATES.contains(to.getId())) {
+                    pooled.settle(to.getId());
+                }
+            }
+        });
+        return pooled;
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count() + overflows.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private static Counter borrowCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("saga.pool.borrow")
+                .description("State machine borrows by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.orderservice.engine;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.example.orderservice.deadline.SagaDeadlines;
+import com.example.orderservice.monitoring.SagaMetrics;
+import com.example.orderservice.service.OrderReadCache;
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.service.OrderStatusWriter;
+import com.example.orderservice.service.SagaActions;
+import com.example.orderservice.service.StaleOrderStatusException;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.OrderTransition;
+import com.example.orderservice.state.SagaCommand;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The saga.engine.type=table engine: the {@link OrderTransition} graph compiled into flat arrays indexed
+ * by ordinal. An event is one table lookup, the conditional status write and at most two pre-bound
+ * steps; no message, state context or listener callback is created per event, and a saga holds nothing
+ * that needs to be returned.
+ */
+public class TableSagaEngine implements SagaEngine {
+
+    private static final OrderState[] STATES = OrderState.values();
+    private static final OrderEvent[] EVENTS = OrderEvent.values();
+
+    private final OrderStatusWriter orderStatusWriter;
+    private final SagaMetrics sagaMetrics;
+    private final OrderReadCache orderReadCache;
+    private final OrderStatusBroadcaster orderStatusBroadcaster;
+    private final SagaDeadlines sagaDeadlines;
+
+    // Indexed by slot(source, event); null where the event has no transition from the source
+    private final OrderState[] targets = new OrderState[STATES.length * EVENTS.length];
+    private final SagaStep[] transitionSteps = new SagaStep[targets.length];
+    // Indexed by state ordinal
+    private final SagaStep[] entrySteps = new SagaStep[STATES.length];
+    private final boolean[] settledStates = new boolean[STATES.length];
+
+    /**
+     * @param parallelSteps saga.engine.step-mode=parallel: fork into STEPS_PENDING instead of PAYMENT_PENDING
+     * @param withSteps false when the outbox is enabled: commands are then recorded by OrderStatusWriter
+     *                  and sent by OutboxRelay, exactly as with the Spring engine
+     */
+    public TableSagaEngine(SagaActions sagaActions, OrderStatusWriter orderStatusWriter, SagaMetrics sagaMetrics,
+                           OrderReadCache orderReadCache, OrderStatusBroadcaster orderStatusBroadcaster,
+                           SagaDeadlines sagaDeadlines, boolean parallelSteps, boolean withSteps) {
+        this.orderStatusWriter = orderStatusWriter;
+        this.sagaMetrics = sagaMetrics;
+        this.orderReadCache = orderReadCache;
+        this.orderStatusBroadcaster = orderStatusBroadcaster;
+        this.sagaDeadlines = sagaDeadlines;
+
+        for (OrderTransition transition : OrderTransition.graph(parallelSteps)) {
+            int slot = slot(transition.getSource(), transition.getEvent());
+            targets[slot] = transition.getTarget();
+            if (withSteps) {
+                transitionSteps[slot] = steps(sagaActions, transition.getCommands());
+            }
+        }
+        for (OrderState state : STATES) {
+            if (withSteps) {
+                entrySteps[state.ordinal()] = steps(sagaActions, SagaCommand.onEntry(state));
+            }
+            settledStates[state.ordinal()] = OrderService.SETTLED_STATES.contains(state);
+        }
+    }
+
+    @Override
+    public SagaInstance start(UUID orderId) {
+        return new TableSagaInstance(orderId, OrderState.ORDER_CREATED);
+    }
+
+    @Override
+    public SagaInstance resume(UUID orderId, OrderState state) {
+        return new TableSagaInstance(orderId, state);
+    }
+
+    @Override
+    public Mono<Void> release(SagaInstance instance) {
+        return Mono.empty();
+    }
+
+    /**
+     * Same order as the Spring StateMachine: transition actions, status write, read cache update, stream
+     * publish and deadline (the interceptor's preStateChange), state change, entry action, settle (the
+     * pool's state listener).
+     */
+    private void fire(TableSagaInstance instance, OrderEvent event) {
+        OrderState source = instance.state;
+        int slot = slot(source, event);
+        OrderState target = targets[slot];
+        if (target == null) {
+            return;
+        }
+
+        run(transitionSteps[slot], instance.orderId);
+        long started = System.nanoTime();
+        try {
+            orderStatusWriter.applyTransition(instance.orderId, source, target, event);
+        } catch (RuntimeException e) {
+            if (e instanceof StaleOrderStatusException) {
+                orderReadCache.invalidate(instance.orderId);
+            }
+            System.err.println("Saga Engine: Transition " + source + " -> " + target + " rejected for Order: "
+                    + instance.orderId + " Error: " + e.getMessage());
+            return;
+        }
+        sagaMetrics.transitionApplied(source, event, target, System.nanoTime() - started);
+        orderReadCache.statusChanged(instance.orderId, target);
+        orderStatusBroadcaster.publish(instance.orderId, source, event, target);
+        sagaDeadlines.stateEntered(instance.orderId, target);
+        instance.state = target;
+        run(entrySteps[target.ordinal()], instance.orderId);
+
+        if (settledStates[target.ordinal()]) {
+            instance.settled.complete(target);
+        }
+    }
+
+    private static void run(SagaStep step, UUID orderId) {
+        if (step == null) {
+            return;
+        }
+        try {
+            step.run(orderId);
+        } catch (RuntimeException e) {
+            System.err.println("Saga Engine: Step failed for Order: " + orderId + " Error: " + e.getMessage());
+        }
+    }
+
+    private static int slot(OrderState source, OrderEvent event) {
+        return source.ordinal() * EVENTS.length + event.ordinal();
+    }
+
+    private static SagaStep steps(SagaActions sagaActions, List<SagaCommand> commands) {
+        if (commands.isEmpty()) {
+            return null;
+        }
+        if (commands.size() == 1) {
+            return step(sagaActions, commands.get(0));
+        }
+        // Fork, or both compensations of a cancellation: each runs even if issuing another one throws
+        List<SagaStep> steps = commands.stream().map(command -> step(sagaActions, command)).toList();
+        return orderId -> steps.forEach(step -> run(step, orderId));
+    }
+
+    private static SagaStep step(SagaActions sagaActions, SagaCommand command) {
+        return switch (command) {
+            case PROCESS_PAYMENT -> sagaActions::processPayment;
+            case RESERVE_INVENTORY -> sagaActions::reserveInventory;
+            case CANCEL_PAYMENT -> sagaActions::compensatePayment;
+            case RELEASE_INVENTORY -> sagaActions::compensateInventory;
+            case CONFIRM_INVENTORY -> sagaActions::confirmInventory;
+        };
+    }
+
+    private final class TableSagaInstance implements SagaInstance {
+
+        private final UUID orderId;
+        private final CompletableFuture<OrderState> settled = new CompletableFuture<>();
+        private volatile OrderState state;
+
+        private TableSagaInstance(UUID orderId, OrderState state) {
+            this.orderId = orderId;
+            this.state = state;
+        }
+
+        @Override
+        public UUID getOrderId() {
+            return orderId;
+        }
+
+        @Override
+        public OrderState getState() {
+            return state;
+        }
+
+        @Override
+        public void sendEvent(OrderEvent event) {
+            fire(this, event);
+        }
+
+        @Override
+        public CompletableFuture<OrderState> getSettled() {
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.orderservice.entity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import com.example.orderservice.state.SagaCommand;
+
+/**
+ * A saga command waiting to be sent, written in the same transaction as the order status change that
+ * produced it. The row is deleted once the command has been delivered.
+ */
+@Entity
+@Table(name = "saga_outbox", indexes = {
+        @Index(name = "idx_saga_outbox_order", columnList = "orderId, id"),
+        @Index(name = "idx_saga_outbox_next_attempt", columnList = "nextAttemptAt")
+})
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private UUID orderId;
+
+    @Enumerated(EnumType.STRING)
+    private SagaCommand command;
+
+    private BigDecimal amount;
+    private Long productId;
+    private Integer quantity;
+
+    private Instant createdAt;
+
+    // Claimed rows are pushed into the future; a relay that dies mid-dispatch lets the claim lapse
+    private Instant nextAttemptAt;
+    private int attempts;
+
+    public OutboxMessage() {
+    }
+
+    public static OutboxMessage of(Order order, SagaCommand command) {
+        OutboxMessage message = forOrder(order.getId(), command);
+        message.amount = order.getAmount();
+        message.productId = order.getProductId();
+        message.quantity = order.getQuantity();
+        return message;
+    }
+
+    /**
+     * Commands without an outcome, compensations and the confirmation, only carry the order id.
+     */
+    public static OutboxMessage forOrder(UUID orderId, SagaCommand command) {
+        OutboxMessage message = new OutboxMessage();
+        message.orderId = orderId;
+        message.command = command;
+        message.createdAt = Instant.now();
+        message.nextAttemptAt = message.createdAt;
+        return message;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public SagaCommand getCommand() {
+        return command;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage [id=" + id + ", orderId=" + orderId + ", command=" + command + ", attempts=" + attempts + "]";
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.orderservice.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Ownership of one saga partition. A node holds the partition while it keeps pushing {@code expiresAt}
+ * forward; once it lapses, another node may claim it, which bumps the fencing token. Status writes carry
+ * the token they were issued under, so a node that lost the partition can no longer move its orders.
+ */
+@Entity
+@Table(name = "saga_lease")
+public class SagaLease {
+
+    @Id
+    private Integer partitionId;
+
+    // Null while unclaimed
+    private String owner;
+    // Base URL requests for the partition's orders are redirected to
+    private String ownerUrl;
+    private long token;
+    private Instant expiresAt;
+
+    public SagaLease() {
+    }
+
+    public SagaLease(Integer partitionId) {
+        this.partitionId = partitionId;
+        this.expiresAt = Instant.EPOCH;
+    }
+
+    public Integer getPartitionId() {
+        return partitionId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getOwnerUrl() {
+        return ownerUrl;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
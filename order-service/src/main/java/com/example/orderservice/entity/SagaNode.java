@@ -0,0 +1,43 @@
+package com.example.orderservice.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A running order-service node, kept alive by its heartbeat. Live nodes split the saga partitions evenly,
+ * including nodes that have not claimed any yet.
+ */
+@Entity
+@Table(name = "saga_node")
+public class SagaNode {
+
+    @Id
+    private String nodeId;
+
+    private String url;
+    private Instant expiresAt;
+
+    public SagaNode() {
+    }
+
+    public SagaNode(String nodeId, String url, Instant expiresAt) {
+        this.nodeId = nodeId;
+        this.url = url;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
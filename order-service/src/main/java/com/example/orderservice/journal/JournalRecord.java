@@ -0,0 +1,67 @@
+package com.example.orderservice.journal;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * One committed transition, stored in {@link #SIZE} bytes: a marker byte, event, source and target
+ * ordinals, order id, timestamp in epoch millis and a CRC32C of the bytes before it. A zero marker is
+ * unwritten space; a checksum mismatch is a record torn by a crash.
+ */
+record JournalRecord(UUID orderId, OrderEvent event, OrderState source, OrderState target, long timestamp) {
+
+    static final int SIZE = 32;
+
+    private static final byte MARKER = 1;
+    private static final byte NO_STATE = -1;
+    private static final int CHECKED = SIZE - Integer.BYTES;
+
+    private static final OrderEvent[] EVENTS = OrderEvent.values();
+    private static final OrderState[] STATES = OrderState.values();
+
+    /**
+     * Encodes the record into {@code scratch}, which must hold {@link #SIZE} bytes, from position 0.
+     */
+    void encode(ByteBuffer scratch) {
+        scratch.clear();
+        scratch.put(MARKER)
+                .put((byte) event.ordinal())
+                .put(source == null ? NO_STATE : (byte) source.ordinal())
+                .put((byte) target.ordinal())
+                .putLong(orderId.getMostSignificantBits())
+                .putLong(orderId.getLeastSignificantBits())
+                .putLong(timestamp);
+        scratch.putInt(checksum(scratch));
+        scratch.flip();
+    }
+
+    /**
+     * The record at {@code offset}, or null at unwritten space or a torn record.
+     */
+    static JournalRecord decode(ByteBuffer buffer, int offset) {
+        if (buffer.get(offset) != MARKER) {
+            return null;
+        }
+        ByteBuffer slice = buffer.slice(offset, SIZE);
+        if (slice.getInt(CHECKED) != checksum(slice)) {
+            return null;
+        }
+        byte source = slice.get(2);
+        return new JournalRecord(
+                new UUID(slice.getLong(4), slice.getLong(12)),
+                EVENTS[slice.get(1)],
+                source == NO_STATE ? null : STATES[source],
+                STATES[slice.get(3)],
+                slice.getLong(20));
+    }
+
+    private static int checksum(ByteBuffer bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.duplicate().position(0).limit(CHECKED));
+        return (int) crc.getValue();
+    }
+}
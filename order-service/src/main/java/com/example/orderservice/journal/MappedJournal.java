@@ -0,0 +1,382 @@
+package com.example.orderservice.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Append-only log of {@link JournalRecord}s in memory-mapped segment files of a fixed size. An append is a
+ * copy into the mapping under a lock; making it durable is a separate step, {@link #awaitDurable}, in which
+ * concurrent callers share one force of the mapping (group commit). When a segment is full the next one
+ * is started and the latest status of every order still tracked is written as snapshot-N, the state as of
+ * the start of segment N; older segments and snapshots are then deleted. On disk the journal is one
+ * snapshot plus the segments since. Opening loads both and starts a fresh segment.
+ */
+public class MappedJournal implements AutoCloseable {
+
+    private static final String SEGMENT = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x534a4e31;
+    private static final int SNAPSHOT_ENTRY = 2 * Long.BYTES + 1;
+
+    private static final OrderState[] STATES = OrderState.values();
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // Latest journaled status per order, until forgotten once written to the orders table and settled
+    private final Map<UUID, OrderState> statuses = new ConcurrentHashMap<>();
+
+    // Guards segment, position, appended and scratch
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.SIZE);
+    private Segment segment;
+    private int position;
+    private volatile long appended;
+
+    // Guards durable and flushing: one thread forces the mapping, the others wait for its result
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition committed = commitLock.newCondition();
+    private long durable;
+    private boolean flushing;
+
+    // Snapshots are written outside the append lock, one at a time
+    private final ReentrantLock compactLock = new ReentrantLock();
+
+    private final Timer fsyncs;
+    private final DistributionSummary commitSize;
+
+    public MappedJournal(Path directory, int segmentSize, MeterRegistry meterRegistry) throws IOException {
+        if (segmentSize < JournalRecord.SIZE) {
+            throw new IllegalArgumentException("Saga Journal: Segment size " + segmentSize + " is below one record");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % JournalRecord.SIZE;
+        this.fsyncs = Timer.builder("saga.journal.fsync")
+                .description("Forcing appended journal records to disk")
+                .register(meterRegistry);
+        this.commitSize = DistributionSummary.builder("saga.journal.commit.records")
+                .description("Journal records made durable by one fsync")
+                .register(meterRegistry);
+
+        Files.createDirectories(directory);
+        long next = recover() + 1;
+        Map<UUID, OrderState> snapshot;
+        appendLock.lock();
+        try {
+            snapshot = openSegment(next);
+        } finally {
+            appendLock.unlock();
+        }
+        compact(next, snapshot);
+    }
+
+    /**
+     * Latest journaled status of every order still tracked.
+     */
+    public Map<UUID, OrderState> statuses() {
+        return Collections.unmodifiableMap(statuses);
+    }
+
+    public OrderState status(UUID orderId) {
+        return statuses.get(orderId);
+    }
+
+    /**
+     * Stops tracking the order unless it moved on from {@code status}; its records stay until compaction.
+     */
+    public void forget(UUID orderId, OrderState status) {
+        statuses.remove(orderId, status);
+    }
+
+    /**
+     * Writes the record into the current segment, rolling to the next one when it is full, and returns
+     * without waiting for the disk.
+     *
+     * @return the record's sequence number for {@link #awaitDurable}
+     */
+    public long append(JournalRecord record) {
+        long rolledTo = 0;
+        Map<UUID, OrderState> snapshot = null;
+        long sequence;
+        appendLock.lock();
+        try {
+            if (position + JournalRecord.SIZE > segmentSize) {
+                rolledTo = segment.number + 1;
+                snapshot = openSegment(rolledTo);
+            }
+            record.encode(scratch);
+            segment.buffer.put(position, scratch, 0, JournalRecord.SIZE);
+            position += JournalRecord.SIZE;
+            statuses.put(record.orderId(), record.target());
+            sequence = ++appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Saga Journal: Could not roll to segment " + rolledTo, e);
+        } finally {
+            appendLock.unlock();
+        }
+        if (snapshot != null) {
+            compact(rolledTo, snapshot);
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns once every record up to {@code sequence} is on disk. If no other thread is forcing the
+     * mapping this one does, for everything appended so far; otherwise it waits for that force and
+     * checks again.
+     */
+    public void awaitDurable(long sequence) {
+        commitLock.lock();
+        try {
+            while (durable < sequence) {
+                if (flushing) {
+                    committed.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                long before = durable;
+                long flushed = before;
+                commitLock.unlock();
+                try {
+                    flushed = flush();
+                } finally {
+                    commitLock.lock();
+                    flushing = false;
+                    if (flushed > durable) {
+                        commitSize.record(flushed - before);
+                        durable = flushed;
+                    }
+                    committed.signalAll();
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Makes everything appended so far durable.
+     */
+    public void commit() {
+        awaitDurable(appended);
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        appendLock.lock();
+        try {
+            segment.channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private long flush() {
+        Segment current;
+        int end;
+        long sequence;
+        appendLock.lock();
+        try {
+            current = segment;
+            end = position;
+            sequence = appended;
+        } finally {
+            appendLock.unlock();
+        }
+        // A segment rolled in the meantime was forced whole before the roll
+        if (end > current.forced) {
+            long started = System.nanoTime();
+            current.buffer.force(current.forced, end - current.forced);
+            current.forced = end;
+            fsyncs.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return sequence;
+    }
+
+    /**
+     * Forces and closes the current segment, maps a new one and returns the statuses as of its start.
+     * Called under the append lock.
+     */
+    private Map<UUID, OrderState> openSegment(long number) throws IOException {
+        if (segment != null) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        FileChannel channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = new Segment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        position = 0;
+        return new HashMap<>(statuses);
+    }
+
+    /**
+     * Writes snapshot-N, then deletes everything it replaces. A failure leaves the older files, which
+     * still replay to the same state.
+     */
+    private void compact(long number, Map<UUID, OrderState> snapshot) {
+        compactLock.lock();
+        try {
+            writeSnapshot(number, snapshot);
+            for (long older : numbered(SEGMENT, SEGMENT_SUFFIX)) {
+                if (older < number) {
+                    Files.deleteIfExists(segmentPath(older));
+                }
+            }
+            for (long older : numbered(SNAPSHOT, SNAPSHOT_SUFFIX)) {
+                if (older < number) {
+                    Files.deleteIfExists(snapshotPath(older));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Saga Journal: Could not compact up to segment " + number + " Error: " + e.getMessage());
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    private void writeSnapshot(long number, Map<UUID, OrderState> snapshot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + snapshot.size() * SNAPSHOT_ENTRY + Integer.BYTES);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(snapshot.size());
+        snapshot.forEach((orderId, status) -> buffer
+                .putLong(orderId.getMostSignificantBits())
+                .putLong(orderId.getLeastSignificantBits())
+                .put((byte) status.ordinal()));
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().flip());
+        buffer.putInt((int) crc.getValue()).flip();
+
+        Path path = snapshotPath(number);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the newest snapshot and replays every segment from it on, stopping in each at the first
+     * unwritten or torn record. Returns the number of the last segment or snapshot found, 0 for a new
+     * journal.
+     */
+    private long recover() throws IOException {
+        List<Long> snapshots = numbered(SNAPSHOT, SNAPSHOT_SUFFIX);
+        long from = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        if (from > 0) {
+            readSnapshot(from);
+        }
+        int fromSnapshot = statuses.size();
+
+        long last = from;
+        long replayed = 0;
+        for (long number : numbered(SEGMENT, SEGMENT_SUFFIX)) {
+            if (number >= from) {
+                replayed += replay(number);
+                last = Math.max(last, number);
+            }
+        }
+        System.out.println("Saga Journal: Recovered " + statuses.size() + " orders from " + directory + " ("
+                + fromSnapshot + " from snapshot " + from + ", " + replayed + " records replayed)");
+        return last;
+    }
+
+    private void readSnapshot(long number) throws IOException {
+        Path path = snapshotPath(number);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int count = buffer.remaining() >= 2 * Integer.BYTES ? buffer.getInt(Integer.BYTES) : -1;
+        int length = 2 * Integer.BYTES + count * SNAPSHOT_ENTRY;
+        boolean valid = count >= 0 && buffer.getInt(0) == SNAPSHOT_MAGIC && buffer.remaining() == length + Integer.BYTES;
+        if (valid) {
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.duplicate().limit(length));
+            valid = (int) crc.getValue() == buffer.getInt(length);
+        }
+        if (!valid) {
+            // Older segments are gone; starting without this snapshot would silently lose open sagas
+            throw new IllegalStateException("Saga Journal: Damaged snapshot " + path);
+        }
+        buffer.position(2 * Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            statuses.put(new UUID(buffer.getLong(), buffer.getLong()), STATES[buffer.get()]);
+        }
+    }
+
+    private long replay(long number) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(segmentPath(number), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + JournalRecord.SIZE <= buffer.capacity(); offset += JournalRecord.SIZE) {
+                JournalRecord record = JournalRecord.decode(buffer, offset);
+                if (record == null) {
+                    break;
+                }
+                statuses.put(record.orderId(), record.target());
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private List<Long> numbered(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT, number, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(long number) {
+        return directory.resolve(String.format("%s%010d%s", SNAPSHOT, number, SNAPSHOT_SUFFIX));
+    }
+
+    private static final class Segment {
+
+        private final long number;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // End of the part already forced; only touched by the thread currently flushing
+        private int forced;
+
+        private Segment(long number, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.orderservice.journal;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderservice.config.SagaJournalProperties;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.service.StaleOrderStatusException;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * With saga.journal.enabled, status writes go to a local {@link MappedJournal} instead of the orders table,
+ * and the table is brought up to date in the background. Each projection run takes the latest status of
+ * the orders journaled since the last run and writes them in batch-size transactions of one UPDATE per
+ * target status, so several transitions of a saga within one interval cost a single row write. On
+ * startup the journal is replayed and projected before the application takes requests, so the recovery
+ * scanner finds open sagas in the orders table as usual. Disabled, {@link #isEnabled} is false and the
+ * rest is never called.
+ */
+@Component
+public class SagaJournal implements SchedulingConfigurer {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SagaJournalProperties properties;
+    // Null when saga.journal.enabled is false
+    private final MappedJournal journal;
+
+    // Latest journaled status of each order not yet written to the orders table
+    private final Map<UUID, OrderState> unprojected = new ConcurrentHashMap<>();
+    private final Counter projected;
+
+    public SagaJournal(OrderRepository orderRepository,
+                       TransactionTemplate transactionTemplate,
+                       SagaJournalProperties properties,
+                       SagaOutboxProperties outboxProperties,
+                       MeterRegistry meterRegistry) throws IOException {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        if (!properties.isEnabled()) {
+            this.journal = null;
+            this.projected = null;
+            return;
+        }
+        if (outboxProperties.isEnabled()) {
+            // The outbox row must commit with the status change, which the journal no longer writes
+            throw new IllegalStateException("Saga Journal: saga.journal and saga.outbox cannot both be enabled");
+        }
+
+        this.journal = new MappedJournal(Paths.get(properties.getDirectory()).toAbsolutePath(),
+                Math.toIntExact(properties.getSegmentSize().toBytes()), meterRegistry);
+        this.projected = Counter.builder("saga.journal.projected")
+                .description("Journaled order statuses written to the orders table")
+                .register(meterRegistry);
+        Gauge.builder("saga.journal.unprojected", unprojected, Map::size)
+                .description("Orders whose journaled status is ahead of the orders table")
+                .register(meterRegistry);
+
+        unprojected.putAll(journal.statuses());
+        int recovered = unprojected.size();
+        project();
+        System.out.println("Saga Journal: Projected " + recovered + " recovered orders into the orders table");
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        if (journal == null) {
+            return;
+        }
+        taskRegistrar.addFixedDelayTask(this::project, properties.getProjection().getInterval());
+        if (properties.getFsync() == SagaJournalProperties.Fsync.INTERVAL) {
+            taskRegistrar.addFixedDelayTask(journal::commit, properties.getFsyncInterval());
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Journals a transition, waiting for the disk when saga.journal.fsync is ALWAYS. Checking the current
+     * status and appending are two steps; the order's lane is what makes them atomic.
+     *
+     * @throws StaleOrderStatusException when the order is not in {@code source} any more
+     */
+    public void append(UUID orderId, OrderState source, OrderState target, OrderEvent event) {
+        OrderState current = journal.status(orderId);
+        if (current == null) {
+            // Nothing journaled since the row was last written: a new order, or one the projection caught up with
+            current = source == OrderState.ORDER_CREATED
+                    ? OrderState.ORDER_CREATED
+                    : orderRepository.findById(orderId).map(Order::getStatus).orElse(null);
+        }
+        if (current != source) {
+            throw new StaleOrderStatusException(orderId, source, target);
+        }
+
+        long sequence = journal.append(new JournalRecord(orderId, event, source, target, System.currentTimeMillis()));
+        unprojected.put(orderId, target);
+        if (properties.getFsync() == SagaJournalProperties.Fsync.ALWAYS) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * The order as in the orders table, with the journaled status when the journal is ahead of the row.
+     * The status is looked up before the row is read: an order is only forgotten once its row is
+     * written, so a status missing then means the row about to be read is current.
+     */
+    public Optional<Order> findOrder(UUID orderId) {
+        OrderState journaled = journal == null ? null : journal.status(orderId);
+        return orderRepository.findById(orderId).map(order -> withStatus(order, journaled));
+    }
+
+    /**
+     * {@link #findOrder} for several orders, read in one query.
+     */
+    public List<Order> findOrders(Collection<UUID> orderIds) {
+        if (journal == null) {
+            return orderRepository.findAllById(orderIds);
+        }
+        Map<UUID, OrderState> journaled = new HashMap<>();
+        for (UUID orderId : orderIds) {
+            OrderState status = journal.status(orderId);
+            if (status != null) {
+                journaled.put(orderId, status);
+            }
+        }
+        return orderRepository.findAllById(orderIds).stream()
+                .map(order -> withStatus(order, journaled.get(order.getId())))
+                .toList();
+    }
+
+    /**
+     * Writes the statuses journaled before the call, batch by batch. Settled orders are then dropped from
+     * the journal's memory; the row answers for them from here on.
+     */
+    public void project() {
+        int batchSize = properties.getProjection().getBatchSize();
+        int pending = unprojected.size();
+        int written = 0;
+        while (written < pending && !unprojected.isEmpty()) {
+            Map<UUID, OrderState> batch = new HashMap<>();
+            for (Map.Entry<UUID, OrderState> entry : unprojected.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() == batchSize) {
+                    break;
+                }
+            }
+            Map<OrderState, List<UUID>> byStatus = batch.entrySet().stream()
+                    .collect(Collectors.groupingBy(Map.Entry::getValue, () -> new EnumMap<>(OrderState.class),
+                            Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        byStatus.forEach((target, orderIds) -> orderRepository.updateStatus(orderIds, target)));
+            } catch (RuntimeException e) {
+                System.err.println("Saga Journal: Projection of " + batch.size() + " orders failed, retrying next run"
+                        + " Error: " + e.getMessage());
+                return;
+            }
+
+            batch.forEach((orderId, status) -> {
+                // A transition journaled meanwhile stays pending for the next run
+                unprojected.remove(orderId, status);
+                if (OrderService.SETTLED_STATES.contains(status)) {
+                    journal.forget(orderId, status);
+                }
+            });
+            projected.increment(batch.size());
+            written += batch.size();
+        }
+    }
+
+    private static Order withStatus(Order order, OrderState journaled) {
+        if (journaled != null) {
+            order.setStatus(journaled);
+        }
+        return order;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            project();
+            journal.close();
+        }
+    }
+}
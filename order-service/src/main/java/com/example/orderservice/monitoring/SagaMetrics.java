@@ -0,0 +1,127 @@
+package com.example.orderservice.monitoring;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.example.orderservice.service.OrderService;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.OrderTransition;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Saga metrics shared by both engines: transitions by source, target and event, sagas in flight per
+ * state, the status write behind each transition and end-to-end saga duration. Meters are looked up by
+ * enum ordinal rather than by tags, so recording a transition allocates nothing.
+ */
+@Component
+public class SagaMetrics {
+
+    private static final OrderState[] STATES = OrderState.values();
+    private static final OrderEvent[] EVENTS = OrderEvent.values();
+
+    private final MeterRegistry meterRegistry;
+    // [source][event][target]; the graph's transitions are registered up front, anything else on first use
+    private final Counter[][][] transitions = new Counter[STATES.length][EVENTS.length][STATES.length];
+    // Null for settled states: a saga there is no longer in flight
+    private final AtomicLong[] inState = new AtomicLong[STATES.length];
+    private final Timer[] durations = new Timer[STATES.length];
+    private final Timer statusWrite;
+
+    public SagaMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (OrderTransition transition : OrderTransition.values()) {
+            counter(transition.getSource(), transition.getEvent(), transition.getTarget());
+        }
+        for (OrderState state : STATES) {
+            if (OrderService.SETTLED_STATES.contains(state)) {
+                durations[state.ordinal()] = Timer.builder("saga.duration")
+                        .description("Time from order creation until its saga settled")
+                        .tag("state", state.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+            } else {
+                AtomicLong count = new AtomicLong();
+                inState[state.ordinal()] = count;
+                Gauge.builder("saga.in.state", count, AtomicLong::get)
+                        .description("Sagas in flight currently in this state")
+                        .tag("state", state.name())
+                        .register(meterRegistry);
+            }
+        }
+        this.statusWrite = Timer.builder("saga.status.write")
+                .description("Time spent persisting a transition, including the commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * A saga started in, or was rehydrated into, the given state.
+     */
+    public void sagaStarted(OrderState state) {
+        AtomicLong count = inState[state.ordinal()];
+        if (count != null) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * A saga stopped running in the given state without settling: abandoned, or moved to another node.
+     */
+    public void sagaDropped(OrderState state) {
+        AtomicLong count = inState[state.ordinal()];
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * A saga settled in the given state; its duration is counted from the order's creation.
+     */
+    public void sagaSettled(OrderState state, Instant createdAt) {
+        Timer duration = durations[state.ordinal()];
+        if (duration != null && createdAt != null) {
+            duration.record(Duration.between(createdAt, Instant.now()));
+        }
+    }
+
+    /**
+     * A transition whose status write succeeded after {@code writeNanos}.
+     */
+    public void transitionApplied(OrderState source, OrderEvent event, OrderState target, long writeNanos) {
+        statusWrite.record(writeNanos, TimeUnit.NANOSECONDS);
+        Counter counter = transitions[source.ordinal()][event.ordinal()][target.ordinal()];
+        if (counter == null) {
+            counter = counter(source, event, target);
+        }
+        counter.increment();
+        AtomicLong from = inState[source.ordinal()];
+        if (from != null) {
+            from.decrementAndGet();
+        }
+        AtomicLong to = inState[target.ordinal()];
+        if (to != null) {
+            to.incrementAndGet();
+        }
+    }
+
+    private Counter counter(OrderState source, OrderEvent event, OrderState target) {
+        // The registry hands out the same counter for the same tags, so a racing first use is harmless
+        Counter counter = Counter.builder("saga.transitions")
+                .description("State machine transitions applied")
+                .tag("source", source.name())
+                .tag("event", event.name())
+                .tag("target", target.name())
+                .register(meterRegistry);
+        transitions[source.ordinal()][event.ordinal()][target.ordinal()] = counter;
+        return counter;
+    }
+}
@@ -1,15 +1,70 @@
 package com.example.orderservice.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.orderservice.entity.Order;
+import com.example.orderservice.state.OrderState;
 
-
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
     Optional<Order> findById(UUID id);
+
+    /**
+     * Keyset pages of orders in one status, served by idx_orders_status; pass the last id of the
+     * previous page to {@link #findByStatusAndIdGreaterThanOrderByIdAsc}.
+     */
+    List<Order> findByStatusOrderByIdAsc(OrderState status, Pageable page);
+
+    List<Order> findByStatusAndIdGreaterThanOrderByIdAsc(OrderState status, UUID after, Pageable page);
+
+    /**
+     * The same keyset pages limited to orders created before the cutoff; the status index still drives
+     * the scan, so only open orders are read however large the table is.
+     */
+    List<Order> findByStatusAndCreatedAtBeforeOrderByIdAsc(OrderState status, Instant cutoff, Pageable page);
+
+    List<Order> findByStatusAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(OrderState status, Instant cutoff,
+                                                                          UUID after, Pageable page);
+
+    /**
+     * Keyset pages of one customer's orders, served by idx_orders_customer; same paging as by status.
+     */
+    List<Order> findByCustomerIdOrderByIdAsc(Long customerId, Pageable page);
+
+    List<Order> findByCustomerIdAndIdGreaterThanOrderByIdAsc(Long customerId, UUID after, Pageable page);
+
+    /**
+     * Moves the order to {@code target} only if it is still in {@code expected}.
+     * Returns the number of rows changed: 0 means another writer got there first or the event is a duplicate.
+     */
+    @Modifying
+    @Query("update Order o set o.status = :target where o.id = :id and o.status = :expected")
+    int compareAndSetStatus(UUID id, OrderState expected, OrderState target);
+
+    /**
+     * {@link #compareAndSetStatus} for a node in a saga cluster: applies only while the order's partition
+     * is still held under {@code token}, so a node whose lease was taken over cannot move the order.
+     */
+    @Modifying
+    @Query("update Order o set o.status = :target where o.id = :id and o.status = :expected "
+            + "and exists (select l.partitionId from SagaLease l where l.partitionId = :partitionId and l.token = :token)")
+    int compareAndSetStatusFenced(UUID id, OrderState expected, OrderState target, int partitionId, long token);
+
+    /**
+     * Moves every listed order to {@code status} unconditionally; the saga journal's projection, one call
+     * per target status.
+     */
+    @Modifying
+    @Query("update Order o set o.status = :status where o.id in :ids")
+    int updateStatus(Collection<UUID> ids, OrderState status);
 }
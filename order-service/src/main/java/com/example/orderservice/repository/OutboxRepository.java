@@ -0,0 +1,31 @@
+package com.example.orderservice.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import com.example.orderservice.entity.OutboxMessage;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Oldest due messages that are at the head of their order's queue, so commands of one order are
+     * never in flight together. Rows locked by another relay are skipped (SKIP LOCKED on PostgreSQL).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select m from OutboxMessage m where m.nextAttemptAt <= :now "
+            + "and not exists (select e.id from OutboxMessage e where e.orderId = m.orderId and e.id < m.id) "
+            + "order by m.id")
+    List<OutboxMessage> findDispatchable(Instant now, Pageable page);
+}
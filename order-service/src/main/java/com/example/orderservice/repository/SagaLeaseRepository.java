@@ -0,0 +1,45 @@
+package com.example.orderservice.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.orderservice.entity.SagaLease;
+
+@Repository
+public interface SagaLeaseRepository extends JpaRepository<SagaLease, Integer> {
+
+    List<SagaLease> findAllByOrderByPartitionIdAsc();
+
+    /**
+     * Extends every lease the node still holds; leases another node has claimed meanwhile are not touched.
+     */
+    @Modifying
+    @Query("update SagaLease l set l.expiresAt = :expiresAt where l.owner = :owner")
+    int renew(String owner, Instant expiresAt);
+
+    /**
+     * Takes the partition if it is unowned or its lease has lapsed, with the next fencing token.
+     * Returns 0 when another node holds it or got there first.
+     */
+    @Modifying
+    @Query("update SagaLease l set l.owner = :owner, l.ownerUrl = :ownerUrl, l.token = l.token + 1, l.expiresAt = :expiresAt "
+            + "where l.partitionId = :partitionId and (l.owner is null or l.expiresAt < :now)")
+    int claim(int partitionId, String owner, String ownerUrl, Instant expiresAt, Instant now);
+
+    /**
+     * Hands the partition back, claimable at once; a no-op unless {@code owner} still holds it.
+     */
+    @Modifying
+    @Query("update SagaLease l set l.owner = null, l.ownerUrl = null, l.expiresAt = :now "
+            + "where l.partitionId = :partitionId and l.owner = :owner")
+    int release(int partitionId, String owner, Instant now);
+
+    @Modifying
+    @Query("update SagaLease l set l.owner = null, l.ownerUrl = null, l.expiresAt = :now where l.owner = :owner")
+    int releaseAll(String owner, Instant now);
+}
@@ -0,0 +1,20 @@
+package com.example.orderservice.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.example.orderservice.entity.SagaNode;
+
+@Repository
+public interface SagaNodeRepository extends JpaRepository<SagaNode, String> {
+
+    long countByExpiresAtAfter(Instant now);
+
+    @Modifying
+    @Query("delete from SagaNode n where n.expiresAt < :now")
+    int deleteExpired(Instant now);
+}
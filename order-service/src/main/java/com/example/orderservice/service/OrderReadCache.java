@@ -0,0 +1,88 @@
+package com.example.orderservice.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+
+import com.example.orderservice.config.SagaReadProperties;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.journal.SagaJournal;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.state.OrderState;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Orders by id for the read endpoints, kept in memory so support tooling polling an order does not reach
+ * the database. Both engines report each committed transition here, so a cached order follows its saga;
+ * a transition that loses the conditional write drops the entry instead. Orders are cached as detached
+ * copies and replaced, never changed in place. Hit and miss counts are published as cache.gets{cache=orders}.
+ */
+@Component
+public class OrderReadCache {
+
+    private final OrderRepository orderRepository;
+    private final SagaJournal sagaJournal;
+    // Null when saga.read.cache.enabled is false
+    private final Cache<UUID, Order> orders;
+
+    public OrderReadCache(OrderRepository orderRepository, SagaJournal sagaJournal, SagaReadProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.sagaJournal = sagaJournal;
+        SagaReadProperties.Cache cache = properties.getCache();
+        if (cache.isEnabled()) {
+            this.orders = Caffeine.newBuilder()
+                    .maximumSize(cache.getMaxSize())
+                    .expireAfterWrite(cache.getTtl())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, orders, "orders");
+        } else {
+            this.orders = null;
+        }
+    }
+
+    public Optional<Order> find(UUID orderId) {
+        if (orders == null) {
+            return load(orderId);
+        }
+        // Unknown ids are not cached; the loader runs once per id however many readers miss at once
+        return Optional.ofNullable(orders.get(orderId, id -> load(id).orElse(null)));
+    }
+
+    private Optional<Order> load(UUID orderId) {
+        // Through the journal, which may be ahead of the row
+        return sagaJournal.findOrder(orderId);
+    }
+
+    /**
+     * A transition to {@code status} was committed. Only orders already cached are touched; a load racing
+     * with the commit finishes first, so it is corrected rather than left behind.
+     */
+    public void statusChanged(UUID orderId, OrderState status) {
+        if (orders != null) {
+            orders.asMap().computeIfPresent(orderId, (id, order) -> withStatus(order, status));
+        }
+    }
+
+    /**
+     * The row's status is not what the saga expected; the next read goes to the database.
+     */
+    public void invalidate(UUID orderId) {
+        if (orders != null) {
+            orders.invalidate(orderId);
+        }
+    }
+
+    private static Order withStatus(Order order, OrderState status) {
+        Order updated = new Order(order.getId(), order.getCustomerId(), order.getProductId(), order.getQuantity(),
+                order.getAmount(), status);
+        updated.setCreatedAt(order.getCreatedAt());
+        return updated;
+    }
+}
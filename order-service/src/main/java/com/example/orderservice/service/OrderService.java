@@ -1,58 +1,449 @@
 package com.example.orderservice.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.orderservice.admission.AdmissionLimiter;
+import com.example.orderservice.admission.AdmissionRejectedException;
+import com.example.orderservice.cluster.NoSagaPartitionException;
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.deadline.SagaDeadlines;
 import com.example.orderservice.entity.Order;
 import com.example.orderservice.repository.OrderRepository;
 import com.example.orderservice.state.OrderState;
 import com.example.orderservice.state.OrderEvent;
-import com.example.orderservice.config.OrderStateMachineInterceptor;
-import org.springframework.statemachine.config.StateMachineFactory;
-import org.springframework.statemachine.StateMachine;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
+import com.example.orderservice.config.SagaBatchProperties;
+import com.example.orderservice.config.SagaExecutorConfig;
+import com.example.orderservice.config.SagaTransportConfig;
+import com.example.orderservice.config.SagaSubmissionProperties;
+import com.example.orderservice.engine.SagaEngine;
+import com.example.orderservice.engine.SagaInstance;
+import com.example.orderservice.journal.SagaJournal;
+import com.example.orderservice.monitoring.SagaMetrics;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
         public static final String ORDER_ID_HEADER = "order_id";
 
+        /**
+         * States in which the saga has nothing more in flight.
+         */
+        public static final Set<OrderState> SETTLED_STATES = EnumSet.of(
+                        OrderState.ORDER_COMPLETED, OrderState.ORDER_FAILED);
+
+        /**
+         * States in which a saga is waiting on a downstream step, or on its deadline (INVENTORY_RESERVED,
+         * completed by SagaDeadlines), and can be rehydrated after a restart. ORDER_CREATED is left out:
+         * nothing has been sent downstream yet and the submitting node may still be about to start it.
+         */
+        public static final Set<OrderState> RECOVERABLE_STATES = EnumSet.of(
+                        OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED, OrderState.INVENTORY_RESERVED,
+                        OrderState.STEPS_PENDING, OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING,
+                        OrderState.INVENTORY_RESERVED_PAYMENT_PENDING, OrderState.PAYMENT_FAILED_INVENTORY_PENDING,
+                        OrderState.INVENTORY_FAILED_PAYMENT_PENDING);
+
         private final OrderRepository orderRepository;
-        private final StateMachineFactory<OrderState, OrderEvent> stateMachineFactory;
-        private final OrderStateMachineInterceptor orderStateMachineInterceptor;
+        private final SagaEngine sagaEngine;
+        private final TaskExecutor sagaExecutor;
+        private final SagaSubmissionProperties submissionProperties;
+        private final SagaRegistry sagaRegistry;
+        private final SagaBatchProperties batchProperties;
+        private final Scheduler sagaScheduler;
+        private final TransactionTemplate transactionTemplate;
+        private final AdmissionLimiter admissionLimiter;
+        private final SagaMetrics sagaMetrics;
+        private final OrderReadCache orderReadCache;
+        private final OrderStatusBroadcaster orderStatusBroadcaster;
+        private final SagaJournal sagaJournal;
+        private final SagaCluster sagaCluster;
+        private final SagaDeadlines sagaDeadlines;
+        private final OrderStatusWriter orderStatusWriter;
+
+        // Sagas started and not yet settled, compared against jvm.threads.live to size thread usage
+        private final AtomicInteger inFlightSagas = new AtomicInteger();
 
         public OrderService(OrderRepository orderRepository,
-                        StateMachineFactory<OrderState, OrderEvent> stateMachineFactory,
-                        OrderStateMachineInterceptor orderStateMachineInterceptor) {
+                        SagaEngine sagaEngine,
+                        @Qualifier(SagaExecutorConfig.SAGA_EXECUTOR) TaskExecutor sagaExecutor,
+                        SagaSubmissionProperties submissionProperties,
+                        SagaRegistry sagaRegistry,
+                        SagaBatchProperties batchProperties,
+                        @Qualifier(SagaTransportConfig.SAGA_SCHEDULER) Scheduler sagaScheduler,
+                        TransactionTemplate transactionTemplate,
+                        AdmissionLimiter admissionLimiter,
+                        SagaMetrics sagaMetrics,
+                        OrderReadCache orderReadCache,
+                        OrderStatusBroadcaster orderStatusBroadcaster,
+                        SagaJournal sagaJournal,
+                        SagaCluster sagaCluster,
+                        SagaDeadlines sagaDeadlines,
+                        OrderStatusWriter orderStatusWriter,
+                        MeterRegistry meterRegistry) {
                 this.orderRepository = orderRepository;
-                this.stateMachineFactory = stateMachineFactory;
-                this.orderStateMachineInterceptor = orderStateMachineInterceptor;
+                this.sagaEngine = sagaEngine;
+                this.sagaExecutor = sagaExecutor;
+                this.submissionProperties = submissionProperties;
+                this.sagaRegistry = sagaRegistry;
+                this.batchProperties = batchProperties;
+                this.sagaScheduler = sagaScheduler;
+                this.transactionTemplate = transactionTemplate;
+                this.admissionLimiter = admissionLimiter;
+                this.sagaMetrics = sagaMetrics;
+                this.orderReadCache = orderReadCache;
+                this.orderStatusBroadcaster = orderStatusBroadcaster;
+                this.sagaJournal = sagaJournal;
+                this.sagaCluster = sagaCluster;
+                this.sagaDeadlines = sagaDeadlines;
+                this.orderStatusWriter = orderStatusWriter;
+                Gauge.builder("saga.in.flight", inFlightSagas, AtomicInteger::get)
+                                .description("Sagas started and not yet settled")
+                                .register(meterRegistry);
         }
 
+        /**
+         * Blocking submission: runs the whole saga on the caller's thread and returns the settled order.
+         *
+         * @throws AdmissionRejectedException when the admission window is full; nothing is persisted
+         * @throws NoSagaPartitionException in a saga cluster, when this node holds no partition; nothing is persisted
+         */
         public Order createOrder(Order order) {
+                AdmissionLimiter.Permit permit = admissionLimiter.acquire(1);
+                Order saveOrder;
+                try {
+                        saveOrder = persistNewOrder(order);
+                } catch (RuntimeException e) {
+                        // No saga was started, so there is no latency to learn from
+                        permit.release();
+                        throw e;
+                }
+
+                boolean settled = false;
+                try {
+                        // Saga steps complete asynchronously, wait for the machine to settle
+                        settled = awaitSettled(saveOrder, runSaga(saveOrder));
+
+                        // Re-fetch from DB to get the latest status after saga completion
+                        return sagaJournal.findOrder(saveOrder.getId()).orElse(saveOrder);
+                } finally {
+                        permit.complete(!settled);
+                }
+        }
+
+        /**
+         * Async submission: persists the order and hands the saga to the saga executor.
+         * The returned order is still in ORDER_CREATED unless the executor rejected it.
+         *
+         * @throws AdmissionRejectedException when the admission window is full; nothing is persisted
+         * @throws NoSagaPartitionException in a saga cluster, when this node holds no partition; nothing is persisted
+         */
+        public Order submitOrder(Order order) {
+                AdmissionLimiter.Permit permit = admissionLimiter.acquire(1);
+                Order saveOrder;
+                try {
+                        saveOrder = persistNewOrder(order);
+                } catch (RuntimeException e) {
+                        permit.release();
+                        throw e;
+                }
+
+                try {
+                        sagaExecutor.execute(() -> {
+                                try {
+                                        holdUntilSettled(permit, runSaga(saveOrder));
+                                } catch (Exception e) {
+                                        permit.complete(true);
+                                        System.err.println("Saga execution failed for Order: " + saveOrder.getId()
+                                                        + " Error: " + e.getMessage());
+                                }
+                        });
+                } catch (TaskRejectedException e) {
+                        permit.complete(true);
+                        System.err.println("Saga executor saturated, rejecting Order: " + saveOrder.getId());
+                        // Counted in ORDER_CREATED like a started saga, so the failure moves it out again
+                        sagaMetrics.sagaStarted(OrderState.ORDER_CREATED);
+                        if (!failUnstarted(saveOrder)) {
+                                sagaMetrics.sagaDropped(OrderState.ORDER_CREATED);
+                        }
+                }
+
+                return saveOrder;
+        }
+
+        /**
+         * Blocking bulk submission: persists all orders in one batched transaction, runs their sagas with
+         * at most saga.batch.parallelism in flight and returns the settled orders in request order.
+         *
+         * @throws AdmissionRejectedException when the admission window has no room for the batch's parallelism
+         * @throws NoSagaPartitionException in a saga cluster, when this node holds no partition; nothing is persisted
+         */
+        public List<Order> createOrders(List<Order> orders) {
+                AdmissionLimiter.Permit permit = admissionLimiter.acquire(batchWeight(orders));
+                List<Order> saveOrders;
+                try {
+                        saveOrders = persistNewOrders(orders);
+
+                        // Every saga is bounded by the sync timeout, so the batch as a whole is too
+                        startSagas(saveOrders).blockLast();
+                } finally {
+                        permit.release();
+                }
+
+                // Re-fetch in one query and restore request order
+                Map<UUID, Order> settledOrders = sagaJournal.findOrders(saveOrders.stream().map(Order::getId).toList())
+                                .stream()
+                                .collect(Collectors.toMap(Order::getId, Function.identity()));
+                return saveOrders.stream()
+                                .map(order -> settledOrders.getOrDefault(order.getId(), order))
+                                .toList();
+        }
+
+        /**
+         * Async bulk submission: persists all orders in one batched transaction and starts their sagas in
+         * the background with at most saga.batch.parallelism in flight.
+         */
+        public List<Order> submitOrders(List<Order> orders) {
+                AdmissionLimiter.Permit permit = admissionLimiter.acquire(batchWeight(orders));
+                List<Order> saveOrders;
+                try {
+                        saveOrders = persistNewOrders(orders);
+                } catch (RuntimeException e) {
+                        permit.release();
+                        throw e;
+                }
+
+                startSagas(saveOrders)
+                                .doFinally(signal -> permit.release())
+                                .subscribe();
+
+                return saveOrders;
+        }
+
+        public Optional<Order> findOrder(UUID orderId) {
+                return orderReadCache.find(orderId);
+        }
+
+        /**
+         * One keyset page of a customer's orders in id order, read from the database; {@code after} is the
+         * last id of the previous page, null for the first.
+         */
+        public List<Order> findOrdersByCustomer(Long customerId, UUID after, int limit) {
+                Pageable page = PageRequest.of(0, limit);
+                return after == null
+                                ? orderRepository.findByCustomerIdOrderByIdAsc(customerId, page)
+                                : orderRepository.findByCustomerIdAndIdGreaterThanOrderByIdAsc(customerId, after, page);
+        }
+
+        /**
+         * One keyset page of the orders in a status, as {@link #findOrdersByCustomer}.
+         */
+        public List<Order> findOrdersByStatus(OrderState status, UUID after, int limit) {
+                Pageable page = PageRequest.of(0, limit);
+                return after == null
+                                ? orderRepository.findByStatusOrderByIdAsc(status, page)
+                                : orderRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, after, page);
+        }
+
+        /**
+         * Resumes a saga left open by a previous run in the state recorded in the orders row, without
+         * re-running entry actions. Called through {@link SagaRegistry#getOrLoad}, which registers the result.
+         * In a saga cluster only the node holding the order's partition may run it.
+         */
+        public Optional<SagaInstance> rehydrate(UUID orderId) {
+                if (!sagaCluster.owns(orderId)) {
+                        return Optional.empty();
+                }
+                Order order = sagaJournal.findOrder(orderId).orElse(null);
+                if (order == null || !RECOVERABLE_STATES.contains(order.getStatus())) {
+                        return Optional.empty();
+                }
+
+                SagaInstance saga = sagaEngine.resume(orderId, order.getStatus());
+                track(order, saga);
+                // Counted from now: when the state was entered is not recorded
+                sagaDeadlines.stateEntered(orderId, order.getStatus());
+
+                System.out.println("Saga Recovery: Rehydrated Order: " + orderId + " in " + order.getStatus());
+                return Optional.of(saga);
+        }
+
+        private Order persistNewOrder(Order order) {
+                order.setId(sagaCluster.newOrderId());
                 order.setStatus(OrderState.ORDER_CREATED);
-                Order saveOrder = orderRepository.save(order);
+                order.setCreatedAt(Instant.now());
+                return orderRepository.save(order);
+        }
+
+        private List<Order> persistNewOrders(List<Order> orders) {
+                Instant now = Instant.now();
+                orders.forEach(order -> {
+                        order.setId(sagaCluster.newOrderId());
+                        order.setStatus(OrderState.ORDER_CREATED);
+                        order.setCreatedAt(now);
+                });
+                // One transaction, inserts grouped into JDBC batches (hibernate.jdbc.batch_size)
+                return transactionTemplate.execute(status -> orderRepository.saveAll(orders));
+        }
+
+        /**
+         * A batch holds one permit per saga it may run at once, not one per order.
+         */
+        private int batchWeight(List<Order> orders) {
+                return Math.min(orders.size(), batchProperties.getParallelism());
+        }
+
+        /**
+         * Keeps an async saga's admission permit until it settles, or for at most saga.submission.sync-timeout
+         * so a saga that never settles cannot hold its share of the window forever.
+         */
+        private void holdUntilSettled(AdmissionLimiter.Permit permit, CompletableFuture<OrderState> settled) {
+                settled.copy()
+                                .orTimeout(submissionProperties.getSyncTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                                .whenComplete((state, error) -> permit.complete(error != null));
+        }
 
-                StateMachine<OrderState, OrderEvent> stateMachine = stateMachineFactory
-                                .getStateMachine(saveOrder.getId().toString());
+        /**
+         * Starts each saga on the saga scheduler; a slot is held until the saga settles, which is what
+         * bounds a large batch instead of letting it flood the executor. Each saga is sampled by the
+         * admission limiter on its own.
+         */
+        private Flux<OrderState> startSagas(List<Order> saveOrders) {
+                return Flux.fromIterable(saveOrders)
+                                .flatMap(order -> Mono.fromCallable(() -> runSaga(order))
+                                                .subscribeOn(sagaScheduler)
+                                                .flatMap(Mono::fromFuture)
+                                                .timeout(submissionProperties.getSyncTimeout())
+                                                .elapsed()
+                                                .doOnNext(sample -> admissionLimiter.sample(
+                                                                TimeUnit.MILLISECONDS.toNanos(sample.getT1()), false))
+                                                .map(sample -> sample.getT2())
+                                                .doOnError(e -> admissionLimiter.sample(
+                                                                submissionProperties.getSyncTimeout().toNanos(), true))
+                                                .onErrorResume(e -> {
+                                                        System.err.println("Saga execution failed for Order: " + order.getId()
+                                                                        + " Error: " + e.getMessage());
+                                                        return Mono.empty();
+                                                }), batchProperties.getParallelism());
+        }
+
+        /**
+         * @return whether the saga settled within saga.submission.sync-timeout
+         */
+        private boolean awaitSettled(Order order, CompletableFuture<OrderState> settled) {
+                try {
+                        settled.get(submissionProperties.getSyncTimeout().toMillis(), TimeUnit.MILLISECONDS);
+                        return true;
+                } catch (TimeoutException e) {
+                        System.err.println("Saga did not settle within " + submissionProperties.getSyncTimeout()
+                                        + " for Order: " + order.getId());
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                        System.err.println("Saga execution failed for Order: " + order.getId()
+                                        + " Error: " + e.getCause().getMessage());
+                }
+                return false;
+        }
 
-                // Register the interceptor on the state machine instance (Spring SM 4.x way)
-                stateMachine.getStateMachineAccessor()
-                                .doWithAllRegions(accessor -> accessor
-                                                .addStateMachineInterceptor(orderStateMachineInterceptor));
+        /**
+         * Starts the saga and queues CREATE_ORDER on the order's lane. A saga whose first event cannot be
+         * queued or fails is abandoned: its settled future completes exceptionally and, if the lane
+         * was full, the order is failed as when the saga executor rejects it.
+         */
+        private CompletableFuture<OrderState> runSaga(Order saveOrder) {
+                SagaInstance saga = sagaEngine.start(saveOrder.getId());
 
-                // Use reactive start for SM 4.x
-                stateMachine.startReactively().block();
+                track(saveOrder, saga);
+                sagaRegistry.register(saveOrder.getId(), saga);
 
-                Message<OrderEvent> message = MessageBuilder
-                                .withPayload(OrderEvent.CREATE_ORDER)
-                                .setHeader(ORDER_ID_HEADER, saveOrder.getId())
-                                .build();
-                stateMachine.sendEvent(Mono.just(message)).blockLast();
+                sagaRegistry.sendEvent(saveOrder.getId(), OrderEvent.CREATE_ORDER)
+                                .subscribe(null, e -> abandon(saveOrder, saga, e));
+                return saga.getSettled();
+        }
+
+        private void abandon(Order saveOrder, SagaInstance saga, Throwable error) {
+                // Before the saga ends, while its customer's streams still route the transition
+                if (error instanceof TaskRejectedException) {
+                        failUnstarted(saveOrder);
+                }
+                saga.getSettled().completeExceptionally(error);
+                sagaEngine.release(saga).subscribe(null, e -> System.err.println(
+                                "Saga Engine: Could not release saga for Order: " + saveOrder.getId() + " Error: " + e.getMessage()));
+        }
+
+        /**
+         * Fails an order whose saga never got past ORDER_CREATED, written like a saga transition: only from
+         * ORDER_CREATED, fenced in a cluster, through the journal when enabled, then cached and published.
+         * False if the write failed and the order is left to recovery.
+         */
+        private boolean failUnstarted(Order saveOrder) {
+                UUID orderId = saveOrder.getId();
+                long writeStarted = System.nanoTime();
+                try {
+                        orderStatusWriter.applyTransition(orderId, OrderState.ORDER_CREATED, OrderState.ORDER_FAILED,
+                                        OrderEvent.CANCEL_ORDER);
+                        sagaMetrics.transitionApplied(OrderState.ORDER_CREATED, OrderEvent.CANCEL_ORDER,
+                                        OrderState.ORDER_FAILED, System.nanoTime() - writeStarted);
+                } catch (RuntimeException e) {
+                        orderReadCache.invalidate(orderId);
+                        System.err.println("Could not fail unstarted Order: " + orderId + " Error: " + e.getMessage());
+                        return false;
+                }
+                saveOrder.setStatus(OrderState.ORDER_FAILED);
+                orderReadCache.statusChanged(orderId, OrderState.ORDER_FAILED);
+                orderStatusBroadcaster.publish(orderId, OrderState.ORDER_CREATED, OrderEvent.CANCEL_ORDER,
+                                OrderState.ORDER_FAILED);
+                return true;
+        }
 
-                // Re-fetch from DB to get the latest status after saga completion
-                return orderRepository.findById(saveOrder.getId()).orElse(saveOrder);
+        /**
+         * Counts the saga as in flight, routes its transitions to its customer's status streams and keeps
+         * it under its state's deadline until it settles, then unregisters it. The saga is released to the
+         * engine from {@link SagaRegistry#sendEvent}, once the settling event has been processed.
+         */
+        private void track(Order order, SagaInstance saga) {
+                UUID orderId = order.getId();
+                Instant createdAt = order.getCreatedAt();
+                inFlightSagas.incrementAndGet();
+                sagaMetrics.sagaStarted(saga.getState());
+                orderStatusBroadcaster.sagaStarted(orderId, order.getCustomerId());
+                saga.getSettled().whenComplete((state, error) -> {
+                        inFlightSagas.decrementAndGet();
+                        sagaDeadlines.sagaEnded(orderId);
+                        sagaRegistry.unregister(orderId);
+                        orderStatusBroadcaster.sagaEnded(orderId);
+                        if (state != null) {
+                                sagaMetrics.sagaSettled(state, createdAt);
+                        } else if (!SETTLED_STATES.contains(order.getStatus())) {
+                                // Dropped or evicted; an order failUnstarted failed was already moved out
+                                sagaMetrics.sagaDropped(saga.getState());
+                        }
+                });
         }
 
 }
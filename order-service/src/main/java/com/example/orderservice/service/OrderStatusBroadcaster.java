@@ -0,0 +1,177 @@
+package com.example.orderservice.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+
+import com.example.orderservice.config.SagaStreamProperties;
+import com.example.orderservice.dto.OrderStatusUpdate;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Fans committed transitions out to the order and customer status streams. Publishing is two map
+ * lookups when nobody listens and a non-blocking offer into each subscriber's bounded buffer when
+ * somebody does; writing to the client happens later on the stream executor. A subscriber whose buffer
+ * is full is completed, so one slow client never holds up a saga or other clients.
+ */
+@Component
+public class OrderStatusBroadcaster {
+
+    private final OrderReadCache orderReadCache;
+    private final int bufferSize;
+    private final Counter overflows;
+
+    private final Map<UUID, List<Subscriber>> byOrder = new ConcurrentHashMap<>();
+    private final Map<Long, List<Subscriber>> byCustomer = new ConcurrentHashMap<>();
+    // Customer of every saga in flight, so customer streams are routed without reading the order
+    private final Map<UUID, Long> customers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public OrderStatusBroadcaster(OrderReadCache orderReadCache, SagaStreamProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.orderReadCache = orderReadCache;
+        this.bufferSize = properties.getBufferSize();
+        this.overflows = Counter.builder("saga.stream.overflows")
+                .description("Status streams closed because the client fell a full buffer behind")
+                .register(meterRegistry);
+        Gauge.builder("saga.stream.subscribers", subscribers, AtomicInteger::get)
+                .description("Open order and customer status streams")
+                .register(meterRegistry);
+    }
+
+    public void sagaStarted(UUID orderId, Long customerId) {
+        if (customerId != null) {
+            customers.put(orderId, customerId);
+        }
+    }
+
+    public void sagaEnded(UUID orderId) {
+        customers.remove(orderId);
+    }
+
+    /**
+     * A transition was committed; called after the status write, on the saga's thread.
+     */
+    public void publish(UUID orderId, OrderState source, OrderEvent event, OrderState target) {
+        List<Subscriber> orderSubscribers = byOrder.get(orderId);
+        Long customerId = customers.get(orderId);
+        List<Subscriber> customerSubscribers = customerId == null ? null : byCustomer.get(customerId);
+        if (orderSubscribers == null && customerSubscribers == null) {
+            return;
+        }
+
+        OrderStatusUpdate update = new OrderStatusUpdate(orderId, customerId, source, event, target, Instant.now());
+        if (orderSubscribers != null) {
+            orderSubscribers.forEach(subscriber -> subscriber.emit(update));
+        }
+        if (customerSubscribers != null) {
+            customerSubscribers.forEach(subscriber -> subscriber.emit(update));
+        }
+    }
+
+    /**
+     * The order's current status followed by each transition, completing once it settles; empty when the
+     * order does not exist.
+     */
+    public Optional<Flux<OrderStatusUpdate>> orderUpdates(UUID orderId) {
+        Subscriber subscriber = register(byOrder, orderId);
+        // Read after registering: a transition committed in between is then in the snapshot, delivered, or both
+        Order order = orderReadCache.find(orderId).orElse(null);
+        if (order == null || OrderService.SETTLED_STATES.contains(order.getStatus())) {
+            unregister(byOrder, orderId, subscriber);
+            return Optional.ofNullable(order).map(settled -> Flux.just(snapshot(settled)));
+        }
+
+        OrderState[] last = { order.getStatus() };
+        Flux<OrderStatusUpdate> transitions = subscriber.sink.asFlux()
+                // Each update must continue from the last status sent, which drops those the snapshot covered
+                .filter(update -> {
+                    if (update.previousStatus() != last[0]) {
+                        return false;
+                    }
+                    last[0] = update.status();
+                    return true;
+                });
+        return Optional.of(Flux.concat(Flux.just(snapshot(order)), transitions)
+                .takeUntil(update -> OrderService.SETTLED_STATES.contains(update.status()))
+                .doFinally(signal -> unregister(byOrder, orderId, subscriber)));
+    }
+
+    /**
+     * Transitions of every saga of the customer started after the stream opened or still in flight. Never
+     * completes on its own.
+     */
+    public Flux<OrderStatusUpdate> customerUpdates(Long customerId) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = register(byCustomer, customerId);
+            return subscriber.sink.asFlux()
+                    .doFinally(signal -> unregister(byCustomer, customerId, subscriber));
+        });
+    }
+
+    private static OrderStatusUpdate snapshot(Order order) {
+        return new OrderStatusUpdate(order.getId(), order.getCustomerId(), null, null, order.getStatus(), Instant.now());
+    }
+
+    private <K> Subscriber register(Map<K, List<Subscriber>> index, K key) {
+        Subscriber subscriber = new Subscriber();
+        index.compute(key, (k, list) -> {
+            List<Subscriber> subscribed = list == null ? new CopyOnWriteArrayList<>() : list;
+            subscribed.add(subscriber);
+            return subscribed;
+        });
+        subscribers.incrementAndGet();
+        return subscriber;
+    }
+
+    private <K> void unregister(Map<K, List<Subscriber>> index, K key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, list) -> {
+            if (list.remove(subscriber)) {
+                subscribers.decrementAndGet();
+            }
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private final class Subscriber {
+
+        private final Sinks.Many<OrderStatusUpdate> sink = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<OrderStatusUpdate>get(bufferSize).get());
+        // Sagas of one customer publish from different threads; a sink takes one emitter at a time
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private void emit(OrderStatusUpdate update) {
+            Sinks.EmitResult result;
+            lock.lock();
+            try {
+                result = sink.tryEmitNext(update);
+                if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    // What is buffered is still delivered; the client reconnects from the current status
+                    sink.tryEmitComplete();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                overflows.increment();
+            }
+        }
+    }
+}
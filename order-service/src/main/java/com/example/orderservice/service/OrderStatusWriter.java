@@ -0,0 +1,88 @@
+package com.example.orderservice.service;
+
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.entity.OutboxMessage;
+import com.example.orderservice.journal.SagaJournal;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.repository.OutboxRepository;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.SagaCommand;
+
+/**
+ * Persists a state machine transition as a single conditional UPDATE. With the outbox enabled the
+ * command the transition issues is written in the same transaction, so a crash can never keep one
+ * without the other. With the saga journal enabled the transition is appended to the journal instead
+ * and reaches the orders table through its projection. In a saga cluster the update also requires the
+ * fencing token this node holds the order's partition under to still be current.
+ */
+@Service
+public class OrderStatusWriter {
+
+    private final OrderRepository orderRepository;
+    private final OutboxRepository outboxRepository;
+    private final SagaOutboxProperties outboxProperties;
+    private final SagaJournal sagaJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final SagaCluster sagaCluster;
+
+    public OrderStatusWriter(OrderRepository orderRepository,
+                             OutboxRepository outboxRepository,
+                             SagaOutboxProperties outboxProperties,
+                             SagaJournal sagaJournal,
+                             TransactionTemplate transactionTemplate,
+                             SagaCluster sagaCluster) {
+        this.orderRepository = orderRepository;
+        this.outboxRepository = outboxRepository;
+        this.outboxProperties = outboxProperties;
+        this.sagaJournal = sagaJournal;
+        this.transactionTemplate = transactionTemplate;
+        this.sagaCluster = sagaCluster;
+    }
+
+    /**
+     * @throws StaleOrderStatusException when the row is not in {@code source} any more
+     */
+    public void applyTransition(UUID orderId, OrderState source, OrderState target, OrderEvent event) {
+        if (sagaJournal.isEnabled()) {
+            // No transaction and no database round trip on the saga's path
+            sagaJournal.append(orderId, source, target, event);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> writeTransition(orderId, source, target, event));
+    }
+
+    private void writeTransition(UUID orderId, OrderState source, OrderState target, OrderEvent event) {
+        int updated = sagaCluster.isEnabled()
+                ? compareAndSetFenced(orderId, source, target)
+                : orderRepository.compareAndSetStatus(orderId, source, target);
+        if (updated == 0) {
+            throw new StaleOrderStatusException(orderId, source, target);
+        }
+
+        if (outboxProperties.isEnabled()) {
+            SagaCommand.forTransition(source, target, event)
+                    .forEach(command -> outboxRepository.save(!command.hasOutcome()
+                            ? OutboxMessage.forOrder(orderId, command)
+                            // Only step commands need the order's payload, so only they pay for the read
+                            : OutboxMessage.of(orderRepository.findById(orderId).orElseThrow(), command)));
+        }
+    }
+
+    private int compareAndSetFenced(UUID orderId, OrderState source, OrderState target) {
+        OptionalLong token = sagaCluster.token(orderId);
+        if (token.isEmpty()) {
+            // The partition is not this node's any more
+            return 0;
+        }
+        return orderRepository.compareAndSetStatusFenced(orderId, source, target,
+                sagaCluster.partition(orderId), token.getAsLong());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.orderservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.entity.OutboxMessage;
+import com.example.orderservice.repository.OutboxRepository;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.transport.SagaTransport;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drains saga_outbox in batches and sends each command through the {@link SagaTransport}. With the outbox
+ * disabled the table only holds compensations that failed when sent directly, and the relay is their
+ * durable retry queue, polled every retry-backoff.
+ *
+ * Delivery is at-least-once: a message is deleted only after its outcome event has been processed by
+ * the saga, and a claim that is never completed (crash, hung call) lapses after the claim timeout.
+ * Commands of one order are strictly ordered because only the oldest message of an order is ever
+ * claimable. Throughput comes from the batch size and the number of orders dispatched concurrently.
+ */
+@Component
+public class OutboxRelay implements SchedulingConfigurer {
+
+    private final OutboxRepository outboxRepository;
+    private final SagaTransport sagaTransport;
+    private final SagaRegistry sagaRegistry;
+    private final SagaOutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       SagaTransport sagaTransport,
+                       SagaRegistry sagaRegistry,
+                       SagaOutboxProperties properties,
+                       TransactionTemplate transactionTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.sagaTransport = sagaTransport;
+        this.sagaRegistry = sagaRegistry;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::drain,
+                properties.isEnabled() ? properties.getPollInterval() : properties.getRetryBackoff());
+    }
+
+    public void drain() {
+        List<OutboxMessage> batch;
+        do {
+            batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            dispatchBatch(batch);
+            // A full batch means more is probably waiting, keep draining without waiting for the next poll
+        } while (batch.size() == properties.getBatchSize());
+    }
+
+    private List<OutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxMessage> batch = outboxRepository.findDispatchable(now, PageRequest.of(0, properties.getBatchSize()));
+            Instant claimedUntil = now.plus(properties.getClaimTimeout());
+            for (OutboxMessage message : batch) {
+                message.setNextAttemptAt(claimedUntil);
+                message.setAttempts(message.getAttempts() + 1);
+            }
+            return batch;
+        });
+    }
+
+    private void dispatchBatch(List<OutboxMessage> batch) {
+        Map<UUID, List<OutboxMessage>> byOrder = batch.stream()
+                .collect(Collectors.groupingBy(OutboxMessage::getOrderId, LinkedHashMap::new, Collectors.toList()));
+
+        List<Long> delivered = Collections.synchronizedList(new ArrayList<>());
+        Flux.fromIterable(byOrder.values())
+                .flatMap(messages -> Flux.fromIterable(messages).concatMap(this::dispatch), properties.getParallelism())
+                .doOnNext(delivered::add)
+                .blockLast();
+
+        if (!delivered.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(delivered);
+        }
+    }
+
+    /**
+     * Emits the message id once it is delivered, or completes empty when it must be retried later.
+     */
+    private Mono<Long> dispatch(OutboxMessage message) {
+        // Only the command's own outcome decides between the success and failure event
+        return send(message)
+                .materialize()
+                .flatMap(signal -> signal.isOnError()
+                        ? onFailure(message, signal.getThrowable())
+                        : onSuccess(message));
+    }
+
+    private Mono<Void> send(OutboxMessage message) {
+        return switch (message.getCommand()) {
+            case PROCESS_PAYMENT -> sagaTransport.processPayment(message.getOrderId(), message.getAmount());
+            case RESERVE_INVENTORY -> sagaTransport.reserveInventory(message.getOrderId(), message.getProductId(), message.getQuantity());
+            case CANCEL_PAYMENT -> sagaTransport.cancelPayment(message.getOrderId());
+            case RELEASE_INVENTORY -> sagaTransport.releaseInventory(message.getOrderId());
+            case CONFIRM_INVENTORY -> sagaTransport.confirmInventory(message.getOrderId());
+        };
+    }
+
+    private Mono<Long> onSuccess(OutboxMessage message) {
+        System.out.println("Outbox Relay: " + message.getCommand() + " SUCCESS for Order: " + message.getOrderId());
+        if (!message.getCommand().hasOutcome()) {
+            return Mono.just(message.getId());
+        }
+        return deliver(message, message.getCommand().getSuccessEvent());
+    }
+
+    private Mono<Long> onFailure(OutboxMessage message, Throwable error) {
+        System.err.println("Outbox Relay: " + message.getCommand() + " Failed for Order: " + message.getOrderId()
+                + " Error: " + error.getMessage());
+        if (!message.getCommand().hasOutcome()) {
+            // Compensations and confirmations must eventually land: keep the row and try again after the backoff
+            return Mono.fromRunnable(() -> reschedule(message)).then(Mono.empty());
+        }
+        return deliver(message, message.getCommand().getFailureEvent());
+    }
+
+    /**
+     * A saga that cannot take the outcome now, e.g. because its lane is full, gets the command again after
+     * the backoff rather than losing the outcome; the downstream services answer a repeated command
+     * with the outcome of the first.
+     */
+    private Mono<Long> deliver(OutboxMessage message, OrderEvent event) {
+        return sagaRegistry.sendEvent(message.getOrderId(), event)
+                .thenReturn(message.getId())
+                .onErrorResume(e -> {
+                    System.err.println("Outbox Relay: Could not deliver " + event + " for Order: " + message.getOrderId()
+                            + ", retrying " + message.getCommand() + " Error: " + e.getMessage());
+                    return Mono.fromRunnable(() -> reschedule(message)).then(Mono.empty());
+                });
+    }
+
+    private void reschedule(OutboxMessage message) {
+        Duration backoff = backoff(message.getAttempts());
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.findById(message.getId())
+                .ifPresent(stored -> stored.setNextAttemptAt(Instant.now().plus(backoff))));
+    }
+
+    /**
+     * retry-backoff doubled per attempt up to max-retry-backoff, then randomised to 50-100% of itself so
+     * compensations queued together during an outage do not all retry at the same instant.
+     */
+    private Duration backoff(int attempts) {
+        long base = properties.getRetryBackoff().toMillis();
+        long capped = Math.min(properties.getMaxRetryBackoff().toMillis(),
+                base << Math.min(Math.max(attempts - 1, 0), 20));
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+}
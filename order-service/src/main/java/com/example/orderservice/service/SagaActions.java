@@ -1,153 +1,252 @@
 package com.example.orderservice.service;
 
-import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.statemachine.StateContext;
 import org.springframework.statemachine.action.Action;
+import com.example.orderservice.config.SagaResilienceProperties;
+import com.example.orderservice.config.SagaTransportConfig;
 import com.example.orderservice.entity.Order;
+import com.example.orderservice.entity.OutboxMessage;
 import com.example.orderservice.state.OrderEvent;
 import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.SagaCommand;
+import com.example.orderservice.transport.SagaTransport;
 
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
 import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.repository.OutboxRepository;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
+import java.util.concurrent.TimeoutException;
 import reactor.core.publisher.Mono;
-
+import reactor.core.scheduler.Scheduler;
+import reactor.util.retry.Retry;
+
+/**
+ * Saga step actions. Each step fires a non-blocking call through {@link SagaTransport} and returns
+ * immediately; the outcome is fed back through {@link SagaRegistry} as a success/failure event once the
+ * downstream answers or the step deadline expires. A compensation or confirmation that still fails after
+ * the transport's retries is written to saga_outbox, where {@link OutboxRelay} retries it until it lands.
+ */
 @Configuration
 public class SagaActions {
 
-    private final OrderRepository orderRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    private final String PAYMENT_SERVICE_URL = "http://payment-service:8081/payment";
-    private final String INVENTORY_SERVICE_URL = "http://inventory-service:8082/inventory";
+    private static final Duration OUTCOME_RETRY_BACKOFF = Duration.ofMillis(10);
+    private static final Duration OUTCOME_MAX_RETRY_BACKOFF = Duration.ofSeconds(1);
 
-    public SagaActions(OrderRepository orderRepository) {
+    private final OrderRepository orderRepository;
+    private final SagaTransport sagaTransport;
+    private final SagaRegistry sagaRegistry;
+    private final OutboxRepository outboxRepository;
+    private final SagaResilienceProperties resilienceProperties;
+    private final Scheduler sagaScheduler;
+
+    public SagaActions(OrderRepository orderRepository,
+                       SagaTransport sagaTransport,
+                       SagaRegistry sagaRegistry,
+                       OutboxRepository outboxRepository,
+                       SagaResilienceProperties resilienceProperties,
+                       @Qualifier(SagaTransportConfig.SAGA_SCHEDULER) Scheduler sagaScheduler) {
         this.orderRepository = orderRepository;
+        this.sagaTransport = sagaTransport;
+        this.sagaRegistry = sagaRegistry;
+        this.outboxRepository = outboxRepository;
+        this.resilienceProperties = resilienceProperties;
+        this.sagaScheduler = sagaScheduler;
     }
 
     @Bean
     public Action<OrderState, OrderEvent> processPaymentAction() {
         return context -> {
-            UUID orderId = (UUID) context.getMessageHeader(OrderService.ORDER_ID_HEADER);
-            if (orderId == null) {
-                // Fallback: try extended state
-                orderId = context.getExtendedState().get("orderId", UUID.class);
-            }
+            UUID orderId = resolveOrderId(context);
             if (orderId == null) {
                 System.err.println("Saga Action: No orderId found in context for processPayment");
                 return;
             }
-            Order order = orderRepository.findById(orderId).orElseThrow();
-
-            System.out.println("Saga Action: Processing Payment for Order: " + orderId);
-
-            try {
-                String url = PAYMENT_SERVICE_URL + "?orderId=" + orderId + "&amount=" + order.getAmount();
-                restTemplate.postForEntity(url, null, String.class);
-
-                System.out.println("Saga Action: Payment SUCCESS for Order: " + orderId);
-
-                Message<OrderEvent> message = MessageBuilder
-                        .withPayload(OrderEvent.PAYMENT_SUCCESS)
-                        .setHeader(OrderService.ORDER_ID_HEADER, orderId)
-                        .build();
-                context.getStateMachine().sendEvent(Mono.just(message)).subscribe();
-
-            } catch (Exception e) {
-                System.err.println("Payment Failed for Order: " + orderId + " Error: " + e.getMessage());
-
-                Message<OrderEvent> message = MessageBuilder
-                        .withPayload(OrderEvent.PAYMENT_FAILURE)
-                        .setHeader(OrderService.ORDER_ID_HEADER, orderId)
-                        .build();
-                context.getStateMachine().sendEvent(Mono.just(message)).subscribe();
-            }
+            processPayment(orderId);
         };
     }
 
     @Bean
     public Action<OrderState, OrderEvent> reserveInventoryAction() {
         return context -> {
-            UUID orderId = (UUID) context.getMessageHeader(OrderService.ORDER_ID_HEADER);
-            if (orderId == null) {
-                orderId = context.getExtendedState().get("orderId", UUID.class);
-            }
+            UUID orderId = resolveOrderId(context);
             if (orderId == null) {
                 System.err.println("Saga Action: No orderId found in context for reserveInventory");
                 return;
             }
-            Order order = orderRepository.findById(orderId).orElseThrow();
-
-            System.out.println("Saga Action: Reserving Inventory for Order: " + orderId);
+            reserveInventory(orderId);
+        };
+    }
 
-            try {
-                String url = INVENTORY_SERVICE_URL + "/reserve?orderId=" + orderId + "&quantity=" + order.getQuantity();
-                restTemplate.postForEntity(url, null, String.class);
+    @Bean
+    public Action<OrderState, OrderEvent> compensatePaymentAction() {
+        return context -> compensatePayment(resolveOrderId(context));
+    }
 
-                System.out.println("Saga Action: Inventory SUCCESS for Order: " + orderId);
+    @Bean
+    public Action<OrderState, OrderEvent> compensateInventoryAction() {
+        return context -> compensateInventory(resolveOrderId(context));
+    }
 
-                Message<OrderEvent> message = MessageBuilder
-                        .withPayload(OrderEvent.INVENTORY_SUCCESS)
-                        .setHeader(OrderService.ORDER_ID_HEADER, orderId)
-                        .build();
-                context.getStateMachine().sendEvent(Mono.just(message)).subscribe();
+    @Bean
+    public Action<OrderState, OrderEvent> confirmInventoryAction() {
+        return context -> confirmInventory(resolveOrderId(context));
+    }
 
-            } catch (Exception e) {
-                System.err.println("Inventory Reservation Failed for Order: " + orderId + " Error: " + e.getMessage());
+    /**
+     * Issues a command directly; used by the recovery scanner to re-send or undo the steps a saga awaits.
+     */
+    public void run(SagaCommand command, UUID orderId) {
+        switch (command) {
+            case PROCESS_PAYMENT -> processPayment(orderId);
+            case RESERVE_INVENTORY -> reserveInventory(orderId);
+            case CANCEL_PAYMENT -> compensatePayment(orderId);
+            case RELEASE_INVENTORY -> compensateInventory(orderId);
+            case CONFIRM_INVENTORY -> confirmInventory(orderId);
+        }
+    }
 
-                Message<OrderEvent> message = MessageBuilder
-                        .withPayload(OrderEvent.INVENTORY_FAILURE)
-                        .setHeader(OrderService.ORDER_ID_HEADER, orderId)
-                        .build();
-                context.getStateMachine().sendEvent(Mono.just(message)).subscribe();
-            }
-        };
+    /**
+     * Payment step; also called by the recovery scanner to resume a saga waiting on payment.
+     */
+    public void processPayment(UUID orderId) {
+        Order order = orderRepository.findById(orderId).orElseThrow();
+
+        System.out.println("Saga Action: Processing Payment for Order: " + orderId);
+
+        withinSagaDeadline(order, sagaTransport.processPayment(orderId, order.getAmount()))
+                .then(Mono.fromCallable(() -> {
+                    System.out.println("Saga Action: Payment SUCCESS for Order: " + orderId);
+                    return OrderEvent.PAYMENT_SUCCESS;
+                }))
+                .onErrorResume(e -> {
+                    System.err.println("Payment Failed for Order: " + orderId + " Error: " + e.getMessage());
+                    return Mono.just(OrderEvent.PAYMENT_FAILURE);
+                })
+                .subscribe(event -> sendOutcome(orderId, event));
     }
 
-    @Bean
-    public Action<OrderState, OrderEvent> compensatePaymentAction() {
-        return context -> {
-            UUID orderId = (UUID) context.getMessageHeader(OrderService.ORDER_ID_HEADER);
-            if (orderId == null) {
-                orderId = context.getExtendedState().get("orderId", UUID.class);
-            }
+    /**
+     * Inventory step; also called by the recovery scanner to resume a saga waiting on inventory.
+     */
+    public void reserveInventory(UUID orderId) {
+        Order order = orderRepository.findById(orderId).orElseThrow();
+
+        System.out.println("Saga Action: Reserving Inventory for Order: " + orderId);
+
+        withinSagaDeadline(order, sagaTransport.reserveInventory(orderId, order.getProductId(), order.getQuantity()))
+                .then(Mono.fromCallable(() -> {
+                    System.out.println("Saga Action: Inventory SUCCESS for Order: " + orderId);
+                    return OrderEvent.INVENTORY_SUCCESS;
+                }))
+                .onErrorResume(e -> {
+                    System.err.println("Inventory Reservation Failed for Order: " + orderId + " Error: " + e.getMessage());
+                    return Mono.just(OrderEvent.INVENTORY_FAILURE);
+                })
+                .subscribe(event -> sendOutcome(orderId, event));
+    }
 
-            System.out.println("Saga Action: Compensating Payment for Order: " + orderId);
+    public void compensatePayment(UUID orderId) {
+        System.out.println("Saga Action: Compensating Payment for Order: " + orderId);
+
+        sagaTransport.cancelPayment(orderId)
+                .subscribe(
+                        null,
+                        e -> {
+                            System.err.println("Payment Compensation Failed for Order: " + orderId + " Error: " + e.getMessage());
+                            queueForRetry(orderId, SagaCommand.CANCEL_PAYMENT);
+                        },
+                        () -> System.out.println("Saga Action: Payment Compensation SUCCESS for Order: " + orderId));
+    }
 
-            try {
-                String url = PAYMENT_SERVICE_URL + "/cancel?orderId=" + orderId;
-                restTemplate.postForEntity(url, null, String.class);
-                System.out.println("Saga Action: Payment Compensation SUCCESS for Order: " + orderId);
+    public void compensateInventory(UUID orderId) {
+        System.out.println("Saga Action: Compensating Inventory for Order: " + orderId);
+
+        sagaTransport.releaseInventory(orderId)
+                .subscribe(
+                        null,
+                        e -> {
+                            System.err.println("Inventory Compensation Failed for Order: " + orderId + " Error: " + e.getMessage());
+                            queueForRetry(orderId, SagaCommand.RELEASE_INVENTORY);
+                        },
+                        () -> System.out.println("Saga Action: Inventory Compensation SUCCESS for Order: " + orderId));
+    }
 
-            } catch (Exception e) {
-                System.err.println("Payment Compensation Failed for Order: " + orderId + " Error: " + e.getMessage());
-            }
-        };
+    /**
+     * Consumes the completed order's reservation; until it lands the hold is only kept by its TTL.
+     */
+    public void confirmInventory(UUID orderId) {
+        System.out.println("Saga Action: Confirming Inventory for Order: " + orderId);
+
+        sagaTransport.confirmInventory(orderId)
+                .subscribe(
+                        null,
+                        e -> {
+                            System.err.println("Inventory Confirmation Failed for Order: " + orderId + " Error: " + e.getMessage());
+                            queueForRetry(orderId, SagaCommand.CONFIRM_INVENTORY);
+                        },
+                        () -> System.out.println("Saga Action: Inventory Confirmation SUCCESS for Order: " + orderId));
     }
 
-    @Bean
-    public Action<OrderState, OrderEvent> compensateInventoryAction() {
-        return context -> {
-            UUID orderId = (UUID) context.getMessageHeader(OrderService.ORDER_ID_HEADER);
-            if (orderId == null) {
-                orderId = context.getExtendedState().get("orderId", UUID.class);
-            }
+    /**
+     * Bounds a step by what is left of saga.resilience.saga-deadline, counted from the order's creation,
+     * so retries cannot keep a saga open indefinitely. A resumed saga past its deadline fails at once.
+     */
+    private Mono<Void> withinSagaDeadline(Order order, Mono<Void> step) {
+        if (!resilienceProperties.isEnabled() || order.getCreatedAt() == null) {
+            return step;
+        }
+        Duration remaining = Duration.between(Instant.now(), order.getCreatedAt().plus(resilienceProperties.getSagaDeadline()));
+        Mono<Void> expired = Mono.error(() -> new TimeoutException("Saga deadline of " + resilienceProperties.getSagaDeadline() + " passed"));
+        if (remaining.isNegative() || remaining.isZero()) {
+            return expired;
+        }
+        return step.timeout(remaining, expired);
+    }
 
-            System.out.println("Saga Action: Compensating Inventory for Order: " + orderId);
+    /**
+     * Feeds a step's outcome back to the saga. A full lane is retried with backoff for as long as the
+     * saga is live; one that is gone by then has settled, or was cancelled by its deadline, which also
+     * compensates the step.
+     */
+    private void sendOutcome(UUID orderId, OrderEvent event) {
+        Mono.defer(() -> sagaRegistry.sendEvent(orderId, event))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, OUTCOME_RETRY_BACKOFF)
+                        .maxBackoff(OUTCOME_MAX_RETRY_BACKOFF)
+                        .filter(e -> e instanceof TaskRejectedException && sagaRegistry.isLive(orderId))
+                        .doBeforeRetry(signal -> {
+                            if (signal.totalRetries() == 0) {
+                                System.err.println("Saga Action: Lane full, retrying " + event + " for Order: " + orderId);
+                            }
+                        }))
+                .subscribe(null, e -> System.err.println("Saga Action: Could not deliver " + event + " for Order: " + orderId + " Error: " + e.getMessage()));
+    }
 
-            try {
-                String url = INVENTORY_SERVICE_URL + "/release?orderId=" + orderId;
-                restTemplate.postForEntity(url, null, String.class);
-                System.out.println("Saga Action: Inventory Compensation SUCCESS for Order: " + orderId);
+    /**
+     * Hands a failed compensation or confirmation to the durable retry queue. Written off the transport's
+     * thread, which may be a Netty event loop.
+     */
+    private void queueForRetry(UUID orderId, SagaCommand command) {
+        Mono.fromRunnable(() -> outboxRepository.save(OutboxMessage.forOrder(orderId, command)))
+                .subscribeOn(sagaScheduler)
+                .subscribe(
+                        null,
+                        e -> System.err.println("Saga Action: Could not queue " + command + " for Order: " + orderId + " Error: " + e.getMessage()),
+                        () -> System.out.println("Saga Action: " + command + " queued for retry for Order: " + orderId));
+    }
 
-            } catch (Exception e) {
-                System.err.println("Inventory Compensation Failed for Order: " + orderId + " Error: " + e.getMessage());
-            }
-        };
+    private UUID resolveOrderId(StateContext<OrderState, OrderEvent> context) {
+        UUID orderId = (UUID) context.getMessageHeader(OrderService.ORDER_ID_HEADER);
+        if (orderId == null) {
+            // Fallback: try extended state
+            orderId = context.getExtendedState().get("orderId", UUID.class);
+        }
+        return orderId;
     }
 
 }
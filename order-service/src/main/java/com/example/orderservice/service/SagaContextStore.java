@@ -0,0 +1,92 @@
+package com.example.orderservice.service;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.StateMachineContext;
+import org.springframework.statemachine.data.jpa.JpaStateMachineRepository;
+import org.springframework.statemachine.persist.StateMachineRuntimePersister;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+import org.springframework.stereotype.Component;
+
+import com.example.orderservice.config.SagaJournalProperties;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+/**
+ * Persisted state machine contexts of open sagas. A no-op when saga.recovery.enabled is false, and with the
+ * saga journal, which keeps the database off the transition path; the extended state only carries the
+ * order id, which a bare context restores. The orders row stays the source of truth for the state.
+ */
+@Component
+public class SagaContextStore {
+
+    private final StateMachineRuntimePersister<OrderState, OrderEvent, String> persister;
+    private final JpaStateMachineRepository jpaStateMachineRepository;
+
+    public SagaContextStore(ObjectProvider<StateMachineRuntimePersister<OrderState, OrderEvent, String>> persister,
+                            JpaStateMachineRepository jpaStateMachineRepository,
+                            SagaJournalProperties journalProperties) {
+        this.persister = journalProperties.isEnabled() ? null : persister.getIfAvailable();
+        this.jpaStateMachineRepository = jpaStateMachineRepository;
+    }
+
+    /**
+     * Registers the persisting interceptor. Must run after the status interceptor is added so a
+     * transition rejected by the conditional status update is never persisted.
+     */
+    public void attach(StateMachine<OrderState, OrderEvent> stateMachine) {
+        if (persister != null) {
+            stateMachine.getStateMachineAccessor()
+                    .doWithAllRegions(accessor -> accessor.addStateMachineInterceptor(persister.getInterceptor()));
+        }
+    }
+
+    /**
+     * Context to reset a fresh machine to. Falls back to a bare context when nothing was persisted or the
+     * persisted state lags behind the orders row.
+     */
+    public StateMachineContext<OrderState, OrderEvent> read(UUID orderId, OrderState status) {
+        StateMachineContext<OrderState, OrderEvent> context = null;
+        if (persister != null) {
+            try {
+                context = persister.read(orderId.toString());
+            } catch (Exception e) {
+                System.err.println("Saga Context: Unreadable context for Order: " + orderId + " Error: " + e.getMessage());
+            }
+        }
+        if (context != null && context.getState() == status) {
+            return context;
+        }
+        return initial(orderId, status, context);
+    }
+
+    /**
+     * Bare context for a machine that starts serving the order in the given state.
+     */
+    public StateMachineContext<OrderState, OrderEvent> initial(UUID orderId, OrderState status) {
+        return initial(orderId, status, null);
+    }
+
+    private StateMachineContext<OrderState, OrderEvent> initial(UUID orderId, OrderState status,
+                                                               StateMachineContext<OrderState, OrderEvent> persisted) {
+        DefaultExtendedState extendedState = new DefaultExtendedState();
+        if (persisted != null && persisted.getExtendedState() != null) {
+            extendedState.getVariables().putAll(persisted.getExtendedState().getVariables());
+        }
+        // Lets the actions resolve the order when an event arrives without the header
+        extendedState.getVariables().put("orderId", orderId);
+        return new DefaultStateMachineContext<>(status, null, null, extendedState, null, orderId.toString());
+    }
+
+    /**
+     * Drops the context once the saga has settled; the orders row is enough to answer for it from then on.
+     */
+    public void discard(UUID orderId) {
+        if (persister != null) {
+            jpaStateMachineRepository.deleteById(orderId.toString());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.orderservice.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.config.RecoveryMode;
+import com.example.orderservice.config.SagaExecutorConfig;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.config.SagaRecoveryProperties;
+import com.example.orderservice.config.SagaTransportConfig;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.SagaCommand;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Startup scan for sagas a previous run left waiting on a step (OrderService.RECOVERABLE_STATES). Each one is
+ * rehydrated into the {@link SagaRegistry} and resumed or compensated per saga.recovery.mode, with at
+ * most saga.recovery.parallelism recovered sagas in flight. In a saga cluster each node scans for the sagas
+ * of the partitions it claims, when it claims them.
+ */
+@Service
+@ConditionalOnProperty(prefix = "saga.recovery", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SagaRecoveryService {
+
+    private static final List<OrderState> SCAN_ORDER = List.of(
+            OrderState.INVENTORY_RESERVED, OrderState.PAYMENT_COMPLETED, OrderState.PAYMENT_PENDING,
+            OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING, OrderState.INVENTORY_RESERVED_PAYMENT_PENDING,
+            OrderState.PAYMENT_FAILED_INVENTORY_PENDING, OrderState.INVENTORY_FAILED_PAYMENT_PENDING,
+            OrderState.STEPS_PENDING);
+
+    private final OrderRepository orderRepository;
+    private final SagaRegistry sagaRegistry;
+    private final SagaActions sagaActions;
+    private final SagaRecoveryProperties properties;
+    private final SagaOutboxProperties outboxProperties;
+    private final SagaCluster sagaCluster;
+    private final TaskExecutor sagaExecutor;
+    private final Scheduler sagaScheduler;
+
+    public SagaRecoveryService(OrderRepository orderRepository,
+                               SagaRegistry sagaRegistry,
+                               SagaActions sagaActions,
+                               SagaRecoveryProperties properties,
+                               SagaOutboxProperties outboxProperties,
+                               SagaCluster sagaCluster,
+                               @Qualifier(SagaExecutorConfig.SAGA_EXECUTOR) TaskExecutor sagaExecutor,
+                               @Qualifier(SagaTransportConfig.SAGA_SCHEDULER) Scheduler sagaScheduler) {
+        this.orderRepository = orderRepository;
+        this.sagaRegistry = sagaRegistry;
+        this.sagaActions = sagaActions;
+        this.properties = properties;
+        this.outboxProperties = outboxProperties;
+        this.sagaCluster = sagaCluster;
+        this.sagaExecutor = sagaExecutor;
+        this.sagaScheduler = sagaScheduler;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (outboxProperties.isEnabled()) {
+            // Pending commands are still in saga_outbox; the relay re-sends them and the registry
+            // rehydrates each machine when its outcome arrives
+            System.out.println("Saga Recovery: Outbox enabled, open sagas resume through the relay");
+            return;
+        }
+        if (sagaCluster.isEnabled()) {
+            // SagaCluster starts the scan for each partition as it is claimed
+            return;
+        }
+        recoverOpenSagas(orderId -> true);
+    }
+
+    /**
+     * Scans in the background for the open sagas of the orders the filter accepts and recovers them.
+     */
+    public void recoverOpenSagas(Predicate<UUID> filter) {
+        sagaExecutor.execute(() -> scan(filter));
+    }
+
+    private void scan(Predicate<UUID> filter) {
+        long started = System.nanoTime();
+        AtomicInteger recovered = new AtomicInteger();
+
+        // Latest state first: a recovered saga only ever moves into a state already scanned
+        for (OrderState status : SCAN_ORDER) {
+            PageRequest page = PageRequest.of(0, properties.getPageSize());
+            List<Order> orders = orderRepository.findByStatusOrderByIdAsc(status, page);
+            while (!orders.isEmpty()) {
+                Flux.fromIterable(orders)
+                        .filter(order -> filter.test(order.getId()))
+                        .flatMap(order -> recover(order.getId())
+                                .doOnNext(state -> recovered.incrementAndGet()), properties.getParallelism())
+                        .blockLast();
+                if (orders.size() < properties.getPageSize()) {
+                    break;
+                }
+                UUID last = orders.get(orders.size() - 1).getId();
+                orders = orderRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, last, page);
+            }
+        }
+
+        System.out.println("Saga Recovery: " + recovered.get() + " open sagas handled (" + properties.getMode()
+                + ") in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Completes once the recovered saga settles or the settle timeout passes; empty when the saga is
+     * already live on this node or closed in the meantime.
+     */
+    private Mono<OrderState> recover(UUID orderId) {
+        return Mono.fromCallable(() -> sagaRegistry.isLive(orderId) ? null : sagaRegistry.getOrLoad(orderId).orElse(null))
+                .subscribeOn(sagaScheduler)
+                .flatMap(saga -> {
+                    Mono<OrderState> settled = Mono.fromFuture(saga.getSettled());
+                    OrderState state = saga.getState();
+                    return (properties.getMode() == RecoveryMode.COMPENSATE
+                            ? compensate(orderId, state)
+                            : resume(orderId, state))
+                            .then(settled);
+                })
+                .timeout(properties.getSettleTimeout())
+                .onErrorResume(e -> {
+                    System.err.println("Saga Recovery: Failed for Order: " + orderId + " Error: " + e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> resume(UUID orderId, OrderState state) {
+        // Steps are re-sent at least once; the downstream may already have applied them
+        return Mono.fromRunnable(() -> SagaCommand.awaitedIn(state)
+                .forEach(step -> sagaActions.run(step, orderId)));
+    }
+
+    /**
+     * Undoes every step still awaited and feeds in its failure. The charge may or may not have gone
+     * through, so payment-service refunds it or voids the order so a charge still in flight is refused;
+     * a branch that had already succeeded is undone by the failure transition's own compensation.
+     */
+    private Mono<Void> compensate(UUID orderId, OrderState state) {
+        return Flux.fromIterable(SagaCommand.awaitedIn(state))
+                .concatMap(step -> {
+                    sagaActions.run(step.getCompensation(), orderId);
+                    return sagaRegistry.sendEvent(orderId, step.getFailureEvent());
+                })
+                .then();
+    }
+}
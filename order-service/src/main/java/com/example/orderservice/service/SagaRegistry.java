@@ -0,0 +1,139 @@
+package com.example.orderservice.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import com.example.orderservice.engine.SagaEngine;
+import com.example.orderservice.engine.SagaInstance;
+import com.example.orderservice.engine.SagaLanes;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Saga instances of the sagas this node is currently running, so components outside the machine
+ * (the saga actions, the outbox relay, the recovery scanner) can feed step outcomes back to the right
+ * instance. A saga left open by a previous run is rehydrated on first use.
+ */
+@Component
+public class SagaRegistry {
+
+    private final Map<UUID, SagaInstance> sagas = new ConcurrentHashMap<>();
+    private final SagaLanes sagaLanes;
+    // Lazy: both depend on the registry through the saga actions
+    private final ObjectProvider<OrderService> orderService;
+    private final ObjectProvider<SagaEngine> sagaEngine;
+
+    public SagaRegistry(SagaLanes sagaLanes,
+                        ObjectProvider<OrderService> orderService,
+                        ObjectProvider<SagaEngine> sagaEngine) {
+        this.sagaLanes = sagaLanes;
+        this.orderService = orderService;
+        this.sagaEngine = sagaEngine;
+    }
+
+    public void register(UUID orderId, SagaInstance saga) {
+        sagas.put(orderId, saga);
+    }
+
+    public void unregister(UUID orderId) {
+        sagas.remove(orderId);
+    }
+
+    public boolean isLive(UUID orderId) {
+        return sagas.containsKey(orderId);
+    }
+
+    public int size() {
+        return sagas.size();
+    }
+
+    /**
+     * The live saga for the order, rehydrating it from the database if the saga is still open but not
+     * running on this node. Empty for unknown or settled orders.
+     */
+    public Optional<SagaInstance> getOrLoad(UUID orderId) {
+        return Optional.ofNullable(sagas.computeIfAbsent(orderId,
+                id -> orderService.getObject().rehydrate(id).orElse(null)));
+    }
+
+    /**
+     * Drops the live sagas of the orders matching the filter, each on its own lane so an event in progress
+     * finishes first. Their settled futures fail and their instances go back to the engine. For
+     * partitions another node has taken over, which recovers them from the orders table.
+     *
+     * @return the number of sagas dropped
+     */
+    public int evict(Predicate<UUID> filter) {
+        int evicted = 0;
+        for (UUID orderId : sagas.keySet()) {
+            if (!filter.test(orderId)) {
+                continue;
+            }
+            try {
+                sagaLanes.execute(orderId, () -> {
+                    SagaInstance saga = sagas.remove(orderId);
+                    if (saga != null) {
+                        saga.getSettled().completeExceptionally(
+                                new IllegalStateException("Saga for Order: " + orderId + " moved to another node"));
+                        sagaEngine.getObject().release(saga).subscribe(null, e -> System.err.println(
+                                "Saga Engine: Could not release saga for Order: " + orderId + " Error: " + e.getMessage()));
+                    }
+                });
+                evicted++;
+            } catch (TaskRejectedException e) {
+                // Its writes are fenced off all the same; it goes when it settles or the node restarts
+                System.err.println("Saga Registry: Could not drop saga: " + e.getMessage());
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Sends the event on the order's lane; completes once the saga has processed it, including the status
+     * write. Completes empty when the order has no open saga, and with a {@link TaskRejectedException} when
+     * the lane is full. If the event settled the saga, it is released to the engine here, on the lane,
+     * after processing has finished.
+     */
+    public Mono<Void> sendEvent(UUID orderId, OrderEvent event) {
+        return sendEvent(orderId, null, event);
+    }
+
+    /**
+     * As {@link #sendEvent(UUID, OrderEvent)}, but the event is dropped unless the saga is still in the
+     * expected state when its turn on the lane comes: a deadline that expired just as the saga moved on
+     * must not apply to the state after it.
+     */
+    public Mono<Void> sendEvent(UUID orderId, OrderState expected, OrderEvent event) {
+        return Mono.<SagaInstance>create(sink -> {
+            try {
+                sagaLanes.execute(orderId, () -> {
+                    try {
+                        SagaInstance saga = getOrLoad(orderId).orElse(null);
+                        if (saga == null) {
+                            System.err.println("Saga Registry: No live saga for Order: " + orderId + ", dropping " + event);
+                        } else if (expected == null || saga.getState() == expected) {
+                            saga.sendEvent(event);
+                        }
+                        sink.success(saga);
+                    } catch (RuntimeException e) {
+                        sink.error(e);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                System.err.println("Saga Registry: Dropping " + event + ": " + e.getMessage());
+                sink.error(e);
+            }
+        }).flatMap(saga -> saga.getSettled().isDone()
+                ? sagaEngine.getObject().release(saga)
+                : Mono.empty());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.orderservice.service;
+
+import java.util.UUID;
+
+import com.example.orderservice.state.OrderState;
+
+/**
+ * The order row was no longer in the state the transition started from: a concurrent writer or a
+ * replayed event already moved it. Thrown from the interceptor so the transition is not applied.
+ */
+public class StaleOrderStatusException extends IllegalStateException {
+
+    public StaleOrderStatusException(UUID orderId, OrderState expected, OrderState target) {
+        super("Order " + orderId + " is no longer " + expected + ", refusing transition to " + target);
+    }
+}
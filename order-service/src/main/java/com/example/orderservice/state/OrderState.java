@@ -6,5 +6,12 @@ public enum OrderState {
     PAYMENT_COMPLETED,
     INVENTORY_RESERVED,
     ORDER_COMPLETED,
-    ORDER_FAILED
+    ORDER_FAILED,
+    // saga.engine.step-mode=parallel: payment and inventory in flight at once, one state per combination
+    // of branch outcomes; the join is INVENTORY_RESERVED as in the sequential saga
+    STEPS_PENDING,
+    PAYMENT_COMPLETED_INVENTORY_PENDING,
+    INVENTORY_RESERVED_PAYMENT_PENDING,
+    PAYMENT_FAILED_INVENTORY_PENDING,
+    INVENTORY_FAILED_PAYMENT_PENDING
 }
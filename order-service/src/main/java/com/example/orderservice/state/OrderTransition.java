@@ -0,0 +1,129 @@
+package com.example.orderservice.state;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The saga graph. Both engines are built from this list: StateMachineConfig registers one external
+ * transition per entry and the table engine compiles it into arrays, so they cannot drift apart.
+ * <p>
+ * The parallel saga is the product of two orthogonal regions, payment and inventory, flattened into one
+ * state per combination of branch outcomes. Flat states keep a single current state per order, so the
+ * status column, the pool, the outbox and recovery need nothing new. Both shapes are always in the graph
+ * and only the fork out of ORDER_CREATED differs, so sagas started before a step-mode switch still finish.
+ */
+public enum OrderTransition {
+    CREATE(OrderState.ORDER_CREATED, OrderEvent.CREATE_ORDER, OrderState.PAYMENT_PENDING),
+    // saga.engine.step-mode=parallel replaces CREATE with this fork
+    CREATE_PARALLEL(OrderState.ORDER_CREATED, OrderEvent.CREATE_ORDER, OrderState.STEPS_PENDING),
+    PAYMENT_ACCEPTED(OrderState.PAYMENT_PENDING, OrderEvent.PAYMENT_SUCCESS, OrderState.PAYMENT_COMPLETED),
+    PAYMENT_DECLINED(OrderState.PAYMENT_PENDING, OrderEvent.PAYMENT_FAILURE, OrderState.ORDER_FAILED),
+    INVENTORY_ACCEPTED(OrderState.PAYMENT_COMPLETED, OrderEvent.INVENTORY_SUCCESS, OrderState.INVENTORY_RESERVED),
+    INVENTORY_DECLINED(OrderState.PAYMENT_COMPLETED, OrderEvent.INVENTORY_FAILURE, OrderState.ORDER_FAILED,
+            SagaCommand.CANCEL_PAYMENT),
+    COMPLETE(OrderState.INVENTORY_RESERVED, OrderEvent.COMPLETE_ORDER, OrderState.ORDER_COMPLETED,
+            SagaCommand.CONFIRM_INVENTORY),
+
+    // Parallel saga: a branch outcome moves to the state waiting on the other branch
+    STEPS_PAYMENT_ACCEPTED(OrderState.STEPS_PENDING, OrderEvent.PAYMENT_SUCCESS,
+            OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING),
+    STEPS_PAYMENT_DECLINED(OrderState.STEPS_PENDING, OrderEvent.PAYMENT_FAILURE,
+            OrderState.PAYMENT_FAILED_INVENTORY_PENDING),
+    STEPS_INVENTORY_ACCEPTED(OrderState.STEPS_PENDING, OrderEvent.INVENTORY_SUCCESS,
+            OrderState.INVENTORY_RESERVED_PAYMENT_PENDING),
+    STEPS_INVENTORY_DECLINED(OrderState.STEPS_PENDING, OrderEvent.INVENTORY_FAILURE,
+            OrderState.INVENTORY_FAILED_PAYMENT_PENDING),
+    // Join: the second outcome settles the saga and undoes whichever branch succeeded alone
+    JOIN_INVENTORY_ACCEPTED(OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING, OrderEvent.INVENTORY_SUCCESS,
+            OrderState.INVENTORY_RESERVED),
+    JOIN_INVENTORY_DECLINED(OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING, OrderEvent.INVENTORY_FAILURE,
+            OrderState.ORDER_FAILED, SagaCommand.CANCEL_PAYMENT),
+    JOIN_PAYMENT_ACCEPTED(OrderState.INVENTORY_RESERVED_PAYMENT_PENDING, OrderEvent.PAYMENT_SUCCESS,
+            OrderState.INVENTORY_RESERVED),
+    JOIN_PAYMENT_DECLINED(OrderState.INVENTORY_RESERVED_PAYMENT_PENDING, OrderEvent.PAYMENT_FAILURE,
+            OrderState.ORDER_FAILED, SagaCommand.RELEASE_INVENTORY),
+    FAILED_INVENTORY_ACCEPTED(OrderState.PAYMENT_FAILED_INVENTORY_PENDING, OrderEvent.INVENTORY_SUCCESS,
+            OrderState.ORDER_FAILED, SagaCommand.RELEASE_INVENTORY),
+    FAILED_INVENTORY_DECLINED(OrderState.PAYMENT_FAILED_INVENTORY_PENDING, OrderEvent.INVENTORY_FAILURE,
+            OrderState.ORDER_FAILED),
+    FAILED_PAYMENT_ACCEPTED(OrderState.INVENTORY_FAILED_PAYMENT_PENDING, OrderEvent.PAYMENT_SUCCESS,
+            OrderState.ORDER_FAILED, SagaCommand.CANCEL_PAYMENT),
+    FAILED_PAYMENT_DECLINED(OrderState.INVENTORY_FAILED_PAYMENT_PENDING, OrderEvent.PAYMENT_FAILURE,
+            OrderState.ORDER_FAILED),
+
+    // Deadline expired (SagaDeadlines): fail the order and undo every step that may have gone through,
+    // including the one still awaited, whose outcome is ignored from here on
+    PAYMENT_CANCELLED(OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER, OrderState.ORDER_FAILED,
+            SagaCommand.CANCEL_PAYMENT),
+    INVENTORY_CANCELLED(OrderState.PAYMENT_COMPLETED, OrderEvent.CANCEL_ORDER, OrderState.ORDER_FAILED,
+            SagaCommand.CANCEL_PAYMENT, SagaCommand.RELEASE_INVENTORY),
+    STEPS_CANCELLED(OrderState.STEPS_PENDING, OrderEvent.CANCEL_ORDER, OrderState.ORDER_FAILED,
+            SagaCommand.CANCEL_PAYMENT, SagaCommand.RELEASE_INVENTORY),
+    JOIN_INVENTORY_CANCELLED(OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING, OrderEvent.CANCEL_ORDER,
+            OrderState.ORDER_FAILED, SagaCommand.CANCEL_PAYMENT, SagaCommand.RELEASE_INVENTORY),
+    JOIN_PAYMENT_CANCELLED(OrderState.INVENTORY_RESERVED_PAYMENT_PENDING, OrderEvent.CANCEL_ORDER,
+            OrderState.ORDER_FAILED, SagaCommand.CANCEL_PAYMENT, SagaCommand.RELEASE_INVENTORY),
+    FAILED_INVENTORY_CANCELLED(OrderState.PAYMENT_FAILED_INVENTORY_PENDING, OrderEvent.CANCEL_ORDER,
+            OrderState.ORDER_FAILED, SagaCommand.RELEASE_INVENTORY),
+    FAILED_PAYMENT_CANCELLED(OrderState.INVENTORY_FAILED_PAYMENT_PENDING, OrderEvent.CANCEL_ORDER,
+            OrderState.ORDER_FAILED, SagaCommand.CANCEL_PAYMENT);
+
+    private final OrderState source;
+    private final OrderEvent event;
+    private final OrderState target;
+    // Compensations, or the confirmation, run as the transition's actions, before the state changes
+    private final List<SagaCommand> commands;
+
+    OrderTransition(OrderState source, OrderEvent event, OrderState target, SagaCommand... commands) {
+        this.source = source;
+        this.event = event;
+        this.target = target;
+        this.commands = List.of(commands);
+    }
+
+    public OrderState getSource() {
+        return source;
+    }
+
+    public OrderEvent getEvent() {
+        return event;
+    }
+
+    public OrderState getTarget() {
+        return target;
+    }
+
+    public List<SagaCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Whether the transition undoes a step: the saga failed after something went through.
+     */
+    public boolean isCompensating() {
+        return target == OrderState.ORDER_FAILED && !commands.isEmpty();
+    }
+
+    /**
+     * The transitions of one saga shape: every entry except the fork the other shape starts with.
+     */
+    public static List<OrderTransition> graph(boolean parallelSteps) {
+        List<OrderTransition> graph = new ArrayList<>(List.of(values()));
+        graph.remove(parallelSteps ? CREATE : CREATE_PARALLEL);
+        return graph;
+    }
+
+    /**
+     * Looks up a transition in either shape; the two forks share a source and event but carry no
+     * command, so callers after the transition's commands get the same answer from both.
+     */
+    public static Optional<OrderTransition> find(OrderState source, OrderEvent event) {
+        for (OrderTransition transition : values()) {
+            if (transition.source == source && transition.event == event) {
+                return Optional.of(transition);
+            }
+        }
+        return Optional.empty();
+    }
+}
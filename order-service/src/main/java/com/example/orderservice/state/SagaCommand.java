@@ -0,0 +1,85 @@
+package com.example.orderservice.state;
+
+import java.util.List;
+
+/**
+ * Downstream commands the saga issues, and the transitions that issue them. Steps run on entry to a state,
+ * compensations and the confirmation of a completed order as a transition action ({@link OrderTransition});
+ * both engines and the outbox use these rules so the outbox records exactly what direct dispatch would have
+ * sent.
+ */
+public enum SagaCommand {
+    CANCEL_PAYMENT(null, null, null),
+    RELEASE_INVENTORY(null, null, null),
+    // Consumes the reserved stock once the order completes, so the hold does not expire back into stock
+    CONFIRM_INVENTORY(null, null, null),
+    PROCESS_PAYMENT(OrderEvent.PAYMENT_SUCCESS, OrderEvent.PAYMENT_FAILURE, CANCEL_PAYMENT),
+    RESERVE_INVENTORY(OrderEvent.INVENTORY_SUCCESS, OrderEvent.INVENTORY_FAILURE, RELEASE_INVENTORY);
+
+    private final OrderEvent successEvent;
+    private final OrderEvent failureEvent;
+    private final SagaCommand compensation;
+
+    SagaCommand(OrderEvent successEvent, OrderEvent failureEvent, SagaCommand compensation) {
+        this.successEvent = successEvent;
+        this.failureEvent = failureEvent;
+        this.compensation = compensation;
+    }
+
+    /**
+     * Steps feed a result event back to the saga. Compensations and the confirmation have none; they are
+     * retried until the downstream accepts them.
+     */
+    public boolean hasOutcome() {
+        return successEvent != null;
+    }
+
+    public OrderEvent getSuccessEvent() {
+        return successEvent;
+    }
+
+    public OrderEvent getFailureEvent() {
+        return failureEvent;
+    }
+
+    /**
+     * Command that undoes this step, whether or not the downstream applied it; null for commands without
+     * an outcome.
+     */
+    public SagaCommand getCompensation() {
+        return compensation;
+    }
+
+    /**
+     * Steps issued on entering the state; the parallel fork issues both at once.
+     */
+    public static List<SagaCommand> onEntry(OrderState state) {
+        return switch (state) {
+            case PAYMENT_PENDING -> List.of(PROCESS_PAYMENT);
+            case PAYMENT_COMPLETED -> List.of(RESERVE_INVENTORY);
+            case STEPS_PENDING -> List.of(PROCESS_PAYMENT, RESERVE_INVENTORY);
+            default -> List.of();
+        };
+    }
+
+    /**
+     * Steps whose outcome a saga in the state is still waiting for: what recovery re-sends or compensates.
+     */
+    public static List<SagaCommand> awaitedIn(OrderState state) {
+        return switch (state) {
+            case PAYMENT_PENDING, INVENTORY_RESERVED_PAYMENT_PENDING, INVENTORY_FAILED_PAYMENT_PENDING ->
+                    List.of(PROCESS_PAYMENT);
+            case PAYMENT_COMPLETED, PAYMENT_COMPLETED_INVENTORY_PENDING, PAYMENT_FAILED_INVENTORY_PENDING ->
+                    List.of(RESERVE_INVENTORY);
+            case STEPS_PENDING -> List.of(PROCESS_PAYMENT, RESERVE_INVENTORY);
+            default -> List.of();
+        };
+    }
+
+    public static List<SagaCommand> forTransition(OrderState source, OrderState target, OrderEvent event) {
+        List<SagaCommand> commands = OrderTransition.find(source, event)
+                .map(OrderTransition::getCommands)
+                .orElse(List.of());
+        return !commands.isEmpty() ? commands : onEntry(target);
+    }
+}
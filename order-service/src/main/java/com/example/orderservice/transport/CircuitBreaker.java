@@ -0,0 +1,167 @@
+package com.example.orderservice.transport;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.orderservice.config.SagaResilienceProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Count-based circuit breaker for one downstream. CLOSED records the outcome of the last window-size
+ * calls and opens once the failure rate reaches the threshold; OPEN fails every call at once for
+ * open-duration; HALF_OPEN lets half-open-calls trial calls through and closes if their failure rate is
+ * below the threshold, otherwise opens again. Transport errors and cancelled calls count as failures, refusals
+ * by the downstream as successes: it answered.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String downstream;
+    private final SagaResilienceProperties.CircuitBreaker properties;
+
+    // Not synchronized: outcomes arrive on virtual threads as well as event-loop threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] failed;
+    private int recorded;
+    private int next;
+    private int failures;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsRecorded;
+    private int trialsFailed;
+
+    private final Counter rejected;
+
+    public CircuitBreaker(String downstream, SagaResilienceProperties.CircuitBreaker properties, MeterRegistry meterRegistry) {
+        this.downstream = downstream;
+        this.properties = properties;
+        this.failed = new boolean[properties.getWindowSize()];
+        this.rejected = Counter.builder("saga.transport.circuit.rejected")
+                .description("Calls failed fast by an open circuit breaker")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+        Gauge.builder("saga.transport.circuit.state", this, breaker -> breaker.state.ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .tag("downstream", downstream)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new CircuitBreakerOpenException(downstream));
+            }
+            // Exactly one outcome per admitted call, whichever signal comes first
+            AtomicBoolean recordedOutcome = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> {
+                        if (recordedOutcome.compareAndSet(false, true)) {
+                            record(false);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (recordedOutcome.compareAndSet(false, true)) {
+                            record(!(e instanceof SagaStepRejectedException));
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recordedOutcome.compareAndSet(false, true)) {
+                            record(true);
+                        }
+                    });
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < properties.getOpenDuration().toNanos()) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                trialsStarted = 0;
+                trialsRecorded = 0;
+                trialsFailed = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsStarted >= properties.getHalfOpenCalls()) {
+                    return false;
+                }
+                trialsStarted++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    if (recorded == failed.length) {
+                        failures -= failed[next] ? 1 : 0;
+                    } else {
+                        recorded++;
+                    }
+                    failed[next] = failure;
+                    failures += failure ? 1 : 0;
+                    next = (next + 1) % failed.length;
+                    if (recorded >= properties.getMinimumCalls()
+                            && failures * 100 >= properties.getFailureRateThreshold() * recorded) {
+                        open();
+                    }
+                }
+                case HALF_OPEN -> {
+                    trialsFailed += failure ? 1 : 0;
+                    if (++trialsRecorded < properties.getHalfOpenCalls()) {
+                        return;
+                    }
+                    if (trialsFailed * 100 >= properties.getFailureRateThreshold() * trialsRecorded) {
+                        open();
+                    } else {
+                        transition(State.CLOSED);
+                        recorded = 0;
+                        next = 0;
+                        failures = 0;
+                    }
+                }
+                // Calls admitted before the breaker opened; their outcome no longer matters
+                case OPEN -> {
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void transition(State target) {
+        System.out.println("Circuit Breaker: " + downstream + " " + state + " -> " + target);
+        state = target;
+    }
+}
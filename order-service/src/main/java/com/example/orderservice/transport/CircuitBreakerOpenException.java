@@ -0,0 +1,12 @@
+package com.example.orderservice.transport;
+
+/**
+ * The downstream's circuit breaker is open: the call was not attempted. A transport error, but never
+ * retried in place since the breaker stays open longer than any step backoff.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String downstream) {
+        super("Circuit breaker for " + downstream + " is open");
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.orderservice.transport;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import com.example.orderservice.config.SagaTransportProperties;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Decorator that coalesces the forward steps of concurrent sagas. Payment and inventory calls are
+ * gathered for up to saga.transport.batch.max-delay or until max-size of them are pending, sent as one
+ * batch request, and every per-item result completes the call of its own order, so each saga still sees
+ * its own success or {@link SagaStepRejectedException}. A failed batch fails every call in it as a
+ * transport error. Compensations are rare and pass through to the delegate one by one.
+ */
+public class CoalescingSagaTransport implements SagaTransport {
+
+    private final SagaTransport delegate;
+    private final Coalescer<PaymentStep> payments;
+    private final Coalescer<InventoryStep> reservations;
+
+    public <T extends SagaTransport & SagaBatchTransport> CoalescingSagaTransport(T delegate,
+                                                                                 SagaTransportProperties properties,
+                                                                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.payments = new Coalescer<>("payment", delegate::processPayments, PaymentStep::orderId,
+                properties.getPaymentDeadline(), properties.getBatch(), meterRegistry);
+        this.reservations = new Coalescer<>("inventory", delegate::reserveInventory, InventoryStep::orderId,
+                properties.getInventoryDeadline(), properties.getBatch(), meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> processPayment(UUID orderId, BigDecimal amount) {
+        return payments.submit(new PaymentStep(orderId, amount));
+    }
+
+    @Override
+    public Mono<Void> cancelPayment(UUID orderId) {
+        return delegate.cancelPayment(orderId);
+    }
+
+    @Override
+    public Mono<Void> reserveInventory(UUID orderId, Long productId, Integer quantity) {
+        return reservations.submit(new InventoryStep(orderId, productId, quantity));
+    }
+
+    @Override
+    public Mono<Void> releaseInventory(UUID orderId) {
+        return delegate.releaseInventory(orderId);
+    }
+
+    @Override
+    public Mono<Void> confirmInventory(UUID orderId) {
+        return delegate.confirmInventory(orderId);
+    }
+
+    private record Pending<S>(S step, MonoSink<Void> sink) {
+    }
+
+    /**
+     * Buffers the steps of one kind and sends them in batches, at most max-in-flight batches at a time.
+     * While that many are outstanding new steps keep queueing, so batches grow instead of requests.
+     */
+    private static final class Coalescer<S> {
+
+        private final String kind;
+        private final Function<List<S>, Mono<List<StepResult>>> send;
+        private final Function<S, UUID> orderId;
+        // Same bound as a single call, time spent waiting for the batch included
+        private final Duration deadline;
+        private final Sinks.Many<Pending<S>> pending = Sinks.many().unicast().onBackpressureBuffer();
+        private final DistributionSummary batchSize;
+
+        private Coalescer(String kind,
+                          Function<List<S>, Mono<List<StepResult>>> send,
+                          Function<S, UUID> orderId,
+                          Duration deadline,
+                          SagaTransportProperties.Batch properties,
+                          MeterRegistry meterRegistry) {
+            this.kind = kind;
+            this.send = send;
+            this.orderId = orderId;
+            this.deadline = deadline;
+            this.batchSize = DistributionSummary.builder("saga.transport.batch.size")
+                    .description("Saga steps sent per batch request")
+                    .tag("step", kind)
+                    .register(meterRegistry);
+
+            pending.asFlux()
+                    // Fair backpressure: a buffer is only cut when a send slot is free
+                    .bufferTimeout(properties.getMaxSize(), properties.getMaxDelay(), true)
+                    .flatMap(this::dispatch, properties.getMaxInFlight())
+                    .subscribe();
+        }
+
+        private Mono<Void> submit(S step) {
+            // Concurrent sagas emit at once; the sink takes one emitter at a time and the rest spin briefly
+            return Mono.<Void>create(sink -> pending.emitNext(new Pending<>(step, sink),
+                    Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1))))
+                    .timeout(deadline);
+        }
+
+        private Mono<Void> dispatch(List<Pending<S>> batch) {
+            batchSize.record(batch.size());
+            return send.apply(batch.stream().map(Pending::step).toList())
+                    .doOnNext(results -> complete(batch, results))
+                    .doOnError(e -> batch.forEach(item -> item.sink().error(e)))
+                    .onErrorResume(e -> {
+                        System.err.println("Saga Transport: " + kind + " batch of " + batch.size()
+                                + " failed Error: " + e.getMessage());
+                        return Mono.empty();
+                    })
+                    .then();
+        }
+
+        private void complete(List<Pending<S>> batch, List<StepResult> results) {
+            Map<UUID, StepResult> byOrder = new HashMap<>(results.size() * 2);
+            for (StepResult result : results) {
+                byOrder.put(result.orderId(), result);
+            }
+            for (Pending<S> item : batch) {
+                StepResult result = byOrder.get(orderId.apply(item.step()));
+                if (result == null) {
+                    item.sink().error(new IllegalStateException("No " + kind + " result for Order: "
+                            + orderId.apply(item.step())));
+                } else if (result.accepted()) {
+                    item.sink().success();
+                } else {
+                    item.sink().error(new SagaStepRejectedException(result.message()));
+                }
+            }
+        }
+    }
+}
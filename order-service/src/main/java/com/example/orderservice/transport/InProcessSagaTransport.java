@@ -0,0 +1,94 @@
+package com.example.orderservice.transport;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.example.orderservice.config.SagaTransportProperties;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Network-free stand-in for payment-service and inventory-service, applying the same accept rules
+ * (amount above 1000 is refused, quantity above 100 is refused) after a configurable latency. Stock
+ * levels of inventory-service's ledger are not modelled. A share of each downstream's calls, set by its
+ * failure rate, fails with a transport error, to exercise retries and circuit breakers.
+ * Used by tests and benchmarks that should not depend on the other containers.
+ */
+public class InProcessSagaTransport implements SagaTransport, SagaBatchTransport {
+
+    private static final BigDecimal MAX_PAYMENT_AMOUNT = BigDecimal.valueOf(1000);
+    private static final int MAX_RESERVE_QUANTITY = 100;
+
+    private final SagaTransportProperties.InProcess properties;
+
+    public InProcessSagaTransport(SagaTransportProperties.InProcess properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> processPayment(UUID orderId, BigDecimal amount) {
+        if (amount != null && amount.compareTo(MAX_PAYMENT_AMOUNT) > 0) {
+            return respond(properties.getPaymentLatency(), properties.getPaymentFailureRate(), Mono.error(
+                    new SagaStepRejectedException("Payment Failed: Insufficient funds for Order: " + orderId)));
+        }
+        return respond(properties.getPaymentLatency(), properties.getPaymentFailureRate(), Mono.empty());
+    }
+
+    @Override
+    public Mono<List<StepResult>> processPayments(List<PaymentStep> steps) {
+        List<StepResult> results = steps.stream()
+                .map(step -> step.amount() != null && step.amount().compareTo(MAX_PAYMENT_AMOUNT) > 0
+                        ? new StepResult(step.orderId(), false, "Payment Failed: Insufficient funds for Order: " + step.orderId())
+                        : new StepResult(step.orderId(), true, null))
+                .toList();
+        return respond(properties.getPaymentLatency(), properties.getPaymentFailureRate(), Mono.just(results));
+    }
+
+    @Override
+    public Mono<Void> cancelPayment(UUID orderId) {
+        return respond(properties.getPaymentLatency(), properties.getPaymentFailureRate(), Mono.empty());
+    }
+
+    @Override
+    public Mono<Void> reserveInventory(UUID orderId, Long productId, Integer quantity) {
+        if (quantity == null || quantity > MAX_RESERVE_QUANTITY) {
+            return respond(properties.getInventoryLatency(), properties.getInventoryFailureRate(), Mono.error(
+                    new SagaStepRejectedException("Inventory reservation failed: Out of Stock")));
+        }
+        return respond(properties.getInventoryLatency(), properties.getInventoryFailureRate(), Mono.empty());
+    }
+
+    @Override
+    public Mono<List<StepResult>> reserveInventory(List<InventoryStep> steps) {
+        List<StepResult> results = steps.stream()
+                .map(step -> step.quantity() == null || step.quantity() > MAX_RESERVE_QUANTITY
+                        ? new StepResult(step.orderId(), false, "Inventory reservation failed: Out of Stock")
+                        : new StepResult(step.orderId(), true, null))
+                .toList();
+        return respond(properties.getInventoryLatency(), properties.getInventoryFailureRate(), Mono.just(results));
+    }
+
+    @Override
+    public Mono<Void> releaseInventory(UUID orderId) {
+        return respond(properties.getInventoryLatency(), properties.getInventoryFailureRate(), Mono.empty());
+    }
+
+    @Override
+    public Mono<Void> confirmInventory(UUID orderId) {
+        return respond(properties.getInventoryLatency(), properties.getInventoryFailureRate(), Mono.empty());
+    }
+
+    private <T> Mono<T> respond(Duration latency, double failureRate, Mono<T> outcome) {
+        // Decided per subscription, so a retried call gets a fresh draw
+        Mono<T> answer = Mono.defer(() -> ThreadLocalRandom.current().nextDouble() < failureRate
+                ? Mono.<T>error(new IllegalStateException("503 Service Unavailable (injected)"))
+                : outcome);
+        if (latency.isZero()) {
+            return answer;
+        }
+        return Mono.delay(latency).then(answer);
+    }
+}
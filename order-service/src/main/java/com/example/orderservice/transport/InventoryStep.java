@@ -0,0 +1,9 @@
+package com.example.orderservice.transport;
+
+import java.util.UUID;
+
+/**
+ * One item of a {@code POST /inventory/reserve/batch} request.
+ */
+public record InventoryStep(UUID orderId, Long productId, Integer quantity) {
+}
@@ -0,0 +1,10 @@
+package com.example.orderservice.transport;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One item of a {@code POST /payment/batch} request.
+ */
+public record PaymentStep(UUID orderId, BigDecimal amount) {
+}
@@ -0,0 +1,84 @@
+package com.example.orderservice.transport;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import com.example.orderservice.config.SagaResilienceProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+/**
+ * Decorator that retries transport errors with jittered exponential backoff, per step kind, behind one
+ * {@link CircuitBreaker} per downstream. Every attempt goes through the breaker, so an opening breaker
+ * also cuts short the retries of calls already in progress. Refusals ({@link SagaStepRejectedException})
+ * pass straight through. Retrying is safe because payment-service and inventory-service are idempotent
+ * per orderId.
+ */
+public class ResilientSagaTransport implements SagaTransport {
+
+    private final SagaTransport delegate;
+    private final CircuitBreaker paymentBreaker;
+    private final CircuitBreaker inventoryBreaker;
+    private final RetryBackoffSpec paymentRetry;
+    private final RetryBackoffSpec inventoryRetry;
+    private final RetryBackoffSpec compensationRetry;
+
+    public ResilientSagaTransport(SagaTransport delegate, SagaResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.paymentBreaker = new CircuitBreaker("payment", properties.getCircuitBreaker(), meterRegistry);
+        this.inventoryBreaker = new CircuitBreaker("inventory", properties.getCircuitBreaker(), meterRegistry);
+        this.paymentRetry = retry("payment", properties.getPayment(), meterRegistry);
+        this.inventoryRetry = retry("inventory", properties.getInventory(), meterRegistry);
+        this.compensationRetry = retry("compensation", properties.getCompensation(), meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> processPayment(UUID orderId, BigDecimal amount) {
+        return paymentBreaker.protect(Mono.defer(() -> delegate.processPayment(orderId, amount)))
+                .retryWhen(paymentRetry);
+    }
+
+    @Override
+    public Mono<Void> cancelPayment(UUID orderId) {
+        return paymentBreaker.protect(Mono.defer(() -> delegate.cancelPayment(orderId)))
+                .retryWhen(compensationRetry);
+    }
+
+    @Override
+    public Mono<Void> reserveInventory(UUID orderId, Long productId, Integer quantity) {
+        return inventoryBreaker.protect(Mono.defer(() -> delegate.reserveInventory(orderId, productId, quantity)))
+                .retryWhen(inventoryRetry);
+    }
+
+    @Override
+    public Mono<Void> releaseInventory(UUID orderId) {
+        return inventoryBreaker.protect(Mono.defer(() -> delegate.releaseInventory(orderId)))
+                .retryWhen(compensationRetry);
+    }
+
+    @Override
+    public Mono<Void> confirmInventory(UUID orderId) {
+        // Like a compensation it has no outcome to wait for and must eventually land
+        return inventoryBreaker.protect(Mono.defer(() -> delegate.confirmInventory(orderId)))
+                .retryWhen(compensationRetry);
+    }
+
+    private static RetryBackoffSpec retry(String step, SagaResilienceProperties.RetryPolicy policy,
+                                          MeterRegistry meterRegistry) {
+        Counter retries = Counter.builder("saga.transport.retries")
+                .description("Saga step calls retried after a transport error")
+                .tag("step", step)
+                .register(meterRegistry);
+        return Retry.backoff(Math.max(0, policy.getMaxAttempts() - 1), policy.getInitialBackoff())
+                .maxBackoff(policy.getMaxBackoff())
+                .jitter(policy.getJitter())
+                .filter(e -> !(e instanceof SagaStepRejectedException) && !(e instanceof CircuitBreakerOpenException))
+                .doBeforeRetry(signal -> retries.increment())
+                // Surface the last transport error rather than a RetryExhaustedException wrapper
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+}
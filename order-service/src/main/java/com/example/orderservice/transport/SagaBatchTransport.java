@@ -0,0 +1,16 @@
+package com.example.orderservice.transport;
+
+import java.util.List;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Batch form of the forward saga steps, one request for many orders. The returned Mono errors only
+ * when the call as a whole failed; refusals are per item in the results.
+ */
+public interface SagaBatchTransport {
+
+    Mono<List<StepResult>> processPayments(List<PaymentStep> steps);
+
+    Mono<List<StepResult>> reserveInventory(List<InventoryStep> steps);
+}
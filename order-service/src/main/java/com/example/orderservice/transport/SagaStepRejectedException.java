@@ -0,0 +1,12 @@
+package com.example.orderservice.transport;
+
+/**
+ * The downstream service answered and refused the command (insufficient funds, out of stock).
+ * Unlike transport errors this is a final business outcome for the step.
+ */
+public class SagaStepRejectedException extends RuntimeException {
+
+    public SagaStepRejectedException(String message) {
+        super(message);
+    }
+}
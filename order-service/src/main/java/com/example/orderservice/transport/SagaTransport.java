@@ -0,0 +1,26 @@
+package com.example.orderservice.transport;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Outbound calls a saga step makes to payment-service and inventory-service.
+ *
+ * Every call is non-blocking: the returned Mono completes empty when the downstream accepted the
+ * command, errors with {@link SagaStepRejectedException} when it refused it, and errors with any
+ * other exception when the call itself failed (timeout, connection refused, 5xx).
+ */
+public interface SagaTransport {
+
+    Mono<Void> processPayment(UUID orderId, BigDecimal amount);
+
+    Mono<Void> cancelPayment(UUID orderId);
+
+    Mono<Void> reserveInventory(UUID orderId, Long productId, Integer quantity);
+
+    Mono<Void> releaseInventory(UUID orderId);
+
+    Mono<Void> confirmInventory(UUID orderId);
+}
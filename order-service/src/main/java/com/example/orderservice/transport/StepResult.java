@@ -0,0 +1,10 @@
+package com.example.orderservice.transport;
+
+import java.util.UUID;
+
+/**
+ * Per-item answer of a batch endpoint: accepted, or refused with the same message the single-item
+ * endpoint would have answered with.
+ */
+public record StepResult(UUID orderId, boolean accepted, String message) {
+}
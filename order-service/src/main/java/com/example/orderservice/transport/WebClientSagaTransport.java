@@ -0,0 +1,133 @@
+package com.example.orderservice.transport;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.example.orderservice.config.SagaTransportProperties;
+
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * HTTP transport over a pooled, keep-alive Reactor Netty client. No thread waits on a downstream call:
+ * the connection pool, connect timeout, response timeout and per-step deadline all bound how long a
+ * saga step can stay in flight.
+ */
+public class WebClientSagaTransport implements SagaTransport, SagaBatchTransport {
+
+    private static final ParameterizedTypeReference<List<StepResult>> STEP_RESULTS = new ParameterizedTypeReference<>() {
+    };
+
+    private final WebClient paymentClient;
+    private final WebClient inventoryClient;
+    private final SagaTransportProperties properties;
+
+    public WebClientSagaTransport(SagaTransportProperties properties) {
+        this.properties = properties;
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("saga-transport")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout());
+
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector(httpClient);
+        this.paymentClient = WebClient.builder()
+                .clientConnector(connector)
+                .baseUrl(properties.getPaymentBaseUrl())
+                .build();
+        this.inventoryClient = WebClient.builder()
+                .clientConnector(connector)
+                .baseUrl(properties.getInventoryBaseUrl())
+                .build();
+    }
+
+    @Override
+    public Mono<Void> processPayment(UUID orderId, BigDecimal amount) {
+        return post(paymentClient.post()
+                .uri(uri -> uri.path("/payment")
+                        .queryParam("orderId", orderId)
+                        .queryParam("amount", amount)
+                        .build()), properties.getPaymentDeadline());
+    }
+
+    @Override
+    public Mono<Void> cancelPayment(UUID orderId) {
+        return post(paymentClient.post()
+                .uri(uri -> uri.path("/payment/cancel")
+                        .queryParam("orderId", orderId)
+                        .build()), properties.getCompensationDeadline());
+    }
+
+    @Override
+    public Mono<Void> reserveInventory(UUID orderId, Long productId, Integer quantity) {
+        return post(inventoryClient.post()
+                .uri(uri -> uri.path("/inventory/reserve")
+                        .queryParam("orderId", orderId)
+                        .queryParam("productId", productId)
+                        .queryParam("quantity", quantity)
+                        .build()), properties.getInventoryDeadline());
+    }
+
+    @Override
+    public Mono<Void> releaseInventory(UUID orderId) {
+        return post(inventoryClient.post()
+                .uri(uri -> uri.path("/inventory/release")
+                        .queryParam("orderId", orderId)
+                        .build()), properties.getCompensationDeadline());
+    }
+
+    @Override
+    public Mono<Void> confirmInventory(UUID orderId) {
+        return post(inventoryClient.post()
+                .uri(uri -> uri.path("/inventory/confirm")
+                        .queryParam("orderId", orderId)
+                        .build()), properties.getCompensationDeadline());
+    }
+
+    @Override
+    public Mono<List<StepResult>> processPayments(List<PaymentStep> steps) {
+        return postBatch(paymentClient, "/payment/batch", steps, properties.getPaymentDeadline());
+    }
+
+    @Override
+    public Mono<List<StepResult>> reserveInventory(List<InventoryStep> steps) {
+        return postBatch(inventoryClient, "/inventory/reserve/batch", steps, properties.getInventoryDeadline());
+    }
+
+    private Mono<List<StepResult>> postBatch(WebClient client, String path, List<?> steps, Duration deadline) {
+        // Any non-2xx fails the whole batch as a transport error; refusals come back per item
+        return client.post()
+                .uri(path)
+                .bodyValue(steps)
+                .retrieve()
+                .bodyToMono(STEP_RESULTS)
+                .timeout(deadline);
+    }
+
+    private Mono<Void> post(WebClient.RequestHeadersSpec<?> request, Duration deadline) {
+        return request.retrieve()
+                // 4xx is the downstream refusing the command, 5xx stays a transport error
+                .onStatus(HttpStatusCode::is4xxClientError, response -> response.bodyToMono(String.class)
+                        .defaultIfEmpty(response.statusCode().toString())
+                        .map(SagaStepRejectedException::new))
+                .toBodilessEntity()
+                .then()
+                .timeout(deadline);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.orderservice.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionLimiterTest {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void refusesOnceTheWindowIsFull() {
+        AdmissionLimiter limiter = limiter(3, true);
+        limiter.acquire(2);
+        limiter.acquire(1);
+
+        assertThatThrownBy(() -> limiter.acquire(1))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((AdmissionRejectedException) e).getRetryAfter()).isEqualTo(RETRY_AFTER));
+        assertThat(limiter.getInFlight()).isEqualTo(3);
+        assertThat(meterRegistry.get("saga.admission.requests").tag("result", "rejected").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void batchWiderThanTheWindowIsAdmittedWhenIdle() {
+        AdmissionLimiter limiter = limiter(5, true);
+
+        AdmissionLimiter.Permit batch = limiter.acquire(10);
+
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+        assertThatThrownBy(() -> limiter.acquire(1)).isInstanceOf(AdmissionRejectedException.class);
+        batch.release();
+        limiter.acquire(1);
+    }
+
+    @Test
+    void disabledLimiterAdmitsEverything() {
+        AdmissionLimiter limiter = limiter(1, false);
+
+        limiter.acquire(1);
+        limiter.acquire(5);
+
+        assertThat(limiter.getInFlight()).isEqualTo(6);
+    }
+
+    @Test
+    void completeSamplesAndReleasesOnce() {
+        AdmissionLimiter limiter = limiter(10, true);
+        AdmissionLimiter.Permit permit = limiter.acquire(3);
+
+        permit.complete(true);
+        permit.complete(true);
+        permit.release();
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(meterRegistry.get("saga.admission.latency").timer().count()).isEqualTo(1);
+        // One dropped sample: 10 * 0.5
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void releaseFreesThePermitWithoutASample() {
+        AdmissionLimiter limiter = limiter(10, true);
+        AdmissionLimiter.Permit permit = limiter.acquire(2);
+
+        permit.release();
+        permit.release();
+        permit.complete(true);
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(meterRegistry.get("saga.admission.latency").timer().count()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    private AdmissionLimiter limiter(int limit, boolean enabled) {
+        return new AdmissionLimiter(new AimdLimit(limit, 1, 100, 0.5, Duration.ofSeconds(1)), enabled, RETRY_AFTER,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.orderservice.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class AimdLimitTest {
+
+    private static final Duration THRESHOLD = Duration.ofMillis(100);
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(500).toNanos();
+
+    @Test
+    void growsByOneOnlyWhileTheWindowIsAtLeastHalfUsed() {
+        AimdLimit limit = new AimdLimit(10, 1, 20, 0.5, THRESHOLD);
+
+        assertThat(limit.update(FAST, 4, false)).isEqualTo(10);
+        assertThat(limit.update(FAST, 5, false)).isEqualTo(11);
+        assertThat(limit.update(FAST, 11, false)).isEqualTo(12);
+    }
+
+    @Test
+    void slowOrDroppedSagaShrinksTheWindowByTheBackoffRatio() {
+        AimdLimit limit = new AimdLimit(40, 1, 100, 0.5, THRESHOLD);
+
+        assertThat(limit.update(SLOW, 40, false)).isEqualTo(20);
+        // Dropped counts as slow whatever its latency, and the window's use does not matter
+        assertThat(limit.update(FAST, 0, true)).isEqualTo(10);
+    }
+
+    @Test
+    void shrinksByAtLeastOneWhateverTheRatio() {
+        AimdLimit limit = new AimdLimit(10, 1, 100, 0.99, THRESHOLD);
+
+        assertThat(limit.update(SLOW, 10, false)).isEqualTo(9);
+    }
+
+    @Test
+    void staysWithinMinAndMax() {
+        AimdLimit atMax = new AimdLimit(20, 5, 20, 0.5, THRESHOLD);
+        AimdLimit nearMin = new AimdLimit(8, 5, 20, 0.5, THRESHOLD);
+
+        assertThat(atMax.update(FAST, 20, false)).isEqualTo(20);
+        assertThat(nearMin.update(SLOW, 8, false)).isEqualTo(5);
+        assertThat(nearMin.update(SLOW, 5, true)).isEqualTo(5);
+        assertThat(nearMin.getLimit()).isEqualTo(5);
+    }
+}
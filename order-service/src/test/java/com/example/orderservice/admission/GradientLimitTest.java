@@ -0,0 +1,73 @@
+package com.example.orderservice.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class GradientLimitTest {
+
+    private static final long STEADY = Duration.ofMillis(10).toNanos();
+    private static final long QUEUED = Duration.ofMillis(100).toNanos();
+
+    @Test
+    void growsWhileLatencyHoldsAndTheWindowIsAtLeastHalfUsed() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 1.0, 2.0, 100);
+
+        // Target is limit + sqrt(limit) while recent latency matches the long-term average
+        assertThat(limit.update(STEADY, 50, false)).isEqualTo(110);
+        assertThat(limit.update(STEADY, 110, false)).isEqualTo(120);
+    }
+
+    @Test
+    void holdsWhileLessThanHalfTheWindowIsUsed() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 1.0, 2.0, 100);
+
+        assertThat(limit.update(STEADY, 49, false)).isEqualTo(100);
+        // Slow samples from a mostly idle window still do not move it
+        assertThat(limit.update(QUEUED, 10, false)).isEqualTo(100);
+    }
+
+    @Test
+    void shrinksWhenRecentSagasGetSlowerThanTheLongTermAverage() {
+        GradientLimit limit = new GradientLimit(100, 1, 100, 1.0, 1.0, 100);
+        for (int i = 0; i < 50; i++) {
+            limit.update(STEADY, 100, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(100);
+
+        int before = limit.getLimit();
+        for (int i = 0; i < 10; i++) {
+            limit.update(QUEUED, 100, false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    void droppedSagaHalvesTheTargetEvenWithAnIdleWindow() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 1.0, 2.0, 100);
+
+        // 100 * 0.5 + sqrt(100)
+        assertThat(limit.update(STEADY, 0, true)).isEqualTo(60);
+    }
+
+    @Test
+    void staysWithinMinAndMax() {
+        GradientLimit atMax = new GradientLimit(100, 1, 100, 1.0, 2.0, 100);
+        GradientLimit nearMin = new GradientLimit(60, 50, 1000, 1.0, 2.0, 100);
+
+        assertThat(atMax.update(STEADY, 100, false)).isEqualTo(100);
+        assertThat(nearMin.update(STEADY, 60, true)).isEqualTo(50);
+        assertThat(nearMin.update(STEADY, 50, true)).isEqualTo(50);
+    }
+
+    @Test
+    void smoothingMovesOnlyPartWayToTheTarget() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 0.5, 2.0, 100);
+
+        // Half way from 100 to the dropped target of 60
+        assertThat(limit.update(STEADY, 100, true)).isEqualTo(80);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.orderservice.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.orderservice.config.SagaClusterProperties;
+import com.example.orderservice.config.SagaJournalProperties;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.repository.SagaLeaseRepository;
+import com.example.orderservice.repository.SagaNodeRepository;
+import com.example.orderservice.service.SagaRecoveryService;
+import com.example.orderservice.service.SagaRegistry;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two nodes sharing one H2 database. Heartbeats are driven by the test; a node that misses them is one
+ * the test stops calling.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+// Each node commits its own lease transactions, as against a shared database
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SagaClusterTest {
+
+    private static final int PARTITIONS = 8;
+    private static final Duration LEASE_DURATION = Duration.ofMillis(500);
+
+    @Autowired
+    private SagaLeaseRepository leaseRepository;
+    @Autowired
+    private SagaNodeRepository nodeRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<SagaCluster> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(SagaCluster::stop);
+        orderRepository.deleteAll();
+        leaseRepository.deleteAll();
+        nodeRepository.deleteAll();
+    }
+
+    @Test
+    void joiningNodeGetsAnEvenShare() {
+        SagaCluster a = node("A", mock(SagaRecoveryService.class));
+        a.start();
+        assertThat(held(a)).hasSize(PARTITIONS);
+
+        SagaCluster b = node("B", mock(SagaRecoveryService.class));
+        b.start();
+        // Every lease is live: B waits for A to hand some back
+        assertThat(held(b)).isEmpty();
+        a.heartbeat();
+        b.heartbeat();
+
+        assertThat(held(a)).hasSize(PARTITIONS / 2);
+        assertThat(held(b)).hasSize(PARTITIONS / 2).doesNotContainAnyElementsOf(held(a));
+    }
+
+    @Test
+    void lapsedLeasesAreTakenOverAndTheirSagasRecovered() throws InterruptedException {
+        SagaRecoveryService recoveryA = mock(SagaRecoveryService.class);
+        SagaRecoveryService recoveryB = mock(SagaRecoveryService.class);
+        SagaCluster a = node("A", recoveryA);
+        a.start();
+        SagaCluster b = node("B", recoveryB);
+        b.start();
+        a.heartbeat();
+        b.heartbeat();
+        Set<Integer> heldByA = held(a);
+        Set<Integer> heldByB = held(b);
+
+        keepBeating(b);
+
+        assertThat(held(b)).hasSize(PARTITIONS);
+        assertThat(held(a)).isEmpty();
+        assertThat(a.acceptsOrders()).isFalse();
+        assertThat(b.ownerUrl(orderIn(heldByA.iterator().next()))).isEmpty();
+
+        // One recovery per heartbeat that claimed something: B's share, then A's partitions
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Predicate<UUID>> recovered = ArgumentCaptor.forClass(Predicate.class);
+        verify(recoveryB, atLeastOnce()).recoverOpenSagas(recovered.capture());
+        Predicate<UUID> takeover = recovered.getValue();
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            assertThat(takeover.test(orderIn(partition))).as("partition %d", partition)
+                    .isEqualTo(heldByA.contains(partition));
+        }
+        assertThat(recovered.getAllValues()).hasSize(2);
+        assertThat(heldByB).allMatch(partition -> recovered.getAllValues().get(0).test(orderIn(partition)));
+        // A claimed all partitions on its own start only
+        verify(recoveryA).recoverOpenSagas(any());
+    }
+
+    @Test
+    void staleNodeCannotMoveAnOrderOnceItsPartitionIsTakenOver() throws InterruptedException {
+        SagaCluster a = node("A", mock(SagaRecoveryService.class));
+        a.start();
+        UUID orderId = orderIn(3);
+        orderRepository.save(new Order(orderId, 1L, 1L, 1, BigDecimal.TEN, OrderState.PAYMENT_PENDING));
+        long staleToken = a.token(orderId).orElseThrow();
+
+        SagaCluster b = node("B", mock(SagaRecoveryService.class));
+        b.start();
+        keepBeating(b);
+
+        // A, paused while its lease lapsed, resumes the write it had started under the old token
+        assertThat(compareAndSetFenced(orderId, 3, staleToken)).isZero();
+        assertThat(a.token(orderId)).isEmpty();
+        assertThat(b.token(orderId)).hasValue(staleToken + 1);
+        assertThat(compareAndSetFenced(orderId, 3, staleToken + 1)).isEqualTo(1);
+        assertThat(orderRepository.findById(orderId)).map(Order::getStatus).contains(OrderState.PAYMENT_COMPLETED);
+    }
+
+    @Test
+    void stoppedNodeHandsItsPartitionsBackAtOnce() {
+        SagaRecoveryService recoveryB = mock(SagaRecoveryService.class);
+        SagaCluster a = node("A", mock(SagaRecoveryService.class));
+        a.start();
+        SagaCluster b = node("B", recoveryB);
+        b.start();
+        verify(recoveryB, never()).recoverOpenSagas(any());
+
+        a.stop();
+        b.heartbeat();
+
+        assertThat(held(b)).hasSize(PARTITIONS);
+        verify(recoveryB).recoverOpenSagas(any());
+    }
+
+    private SagaCluster node(String nodeId, SagaRecoveryService recovery) {
+        SagaClusterProperties properties = new SagaClusterProperties();
+        properties.setEnabled(true);
+        properties.setNodeId(nodeId);
+        properties.setUrl("http://" + nodeId.toLowerCase() + ":8080");
+        properties.setPartitions(PARTITIONS);
+        properties.setLeaseDuration(LEASE_DURATION);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("sagaRecoveryService", recovery);
+
+        SagaCluster node = new SagaCluster(leaseRepository, nodeRepository, transactionTemplate, properties,
+                new SagaOutboxProperties(), new SagaJournalProperties(), mock(SagaRegistry.class),
+                beanFactory.getBeanProvider(SagaRecoveryService.class), new SimpleMeterRegistry());
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Heartbeats the node until the other nodes' leases have run out, as if they had missed theirs.
+     */
+    private static void keepBeating(SagaCluster node) throws InterruptedException {
+        long until = System.nanoTime() + LEASE_DURATION.toNanos() + Duration.ofMillis(100).toNanos();
+        while (System.nanoTime() < until) {
+            Thread.sleep(LEASE_DURATION.toMillis() / 5);
+            node.heartbeat();
+        }
+    }
+
+    private int compareAndSetFenced(UUID orderId, int partition, long token) {
+        return transactionTemplate.execute(status -> orderRepository.compareAndSetStatusFenced(orderId,
+                OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED, partition, token));
+    }
+
+    private static Set<Integer> held(SagaCluster node) {
+        return IntStream.range(0, PARTITIONS)
+                .filter(partition -> node.owns(orderIn(partition)))
+                .boxed()
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * An order id hashing onto the partition: SagaCluster takes the most significant bits modulo the count.
+     */
+    private static UUID orderIn(int partition) {
+        return new UUID(ThreadLocalRandom.current().nextLong(1_000_000) * PARTITIONS + partition,
+                ThreadLocalRandom.current().nextLong());
+    }
+}
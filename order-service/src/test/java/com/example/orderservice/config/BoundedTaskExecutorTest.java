@@ -0,0 +1,77 @@
+package com.example.orderservice.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+class BoundedTaskExecutorTest {
+
+    @Test
+    void rejectsTasksBeyondTheLimitInsteadOfBlocking() throws InterruptedException {
+        SimpleAsyncTaskExecutor threads = new SimpleAsyncTaskExecutor("test-");
+        threads.setVirtualThreads(true);
+        BoundedTaskExecutor executor = new BoundedTaskExecutor(threads, 2);
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch finish = new CountDownLatch(1);
+        Runnable waiting = () -> {
+            running.countDown();
+            await(finish);
+        };
+
+        executor.execute(waiting);
+        executor.execute(waiting);
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+
+        // A finished task frees its slot
+        finish.countDown();
+        CountDownLatch ran = new CountDownLatch(1);
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ran.getCount() > 0 && System.nanoTime() < until) {
+            try {
+                executor.execute(ran::countDown);
+            } catch (TaskRejectedException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void slotIsFreedWhenTheDelegateRefusesTheTask() {
+        TaskExecutor refusing = task -> {
+            throw new TaskRejectedException("shut down");
+        };
+        BoundedTaskExecutor executor = new BoundedTaskExecutor(refusing, 1);
+
+        assertThatThrownBy(() -> executor.execute(() -> { })).hasMessage("shut down");
+        assertThatThrownBy(() -> executor.execute(() -> { })).hasMessage("shut down");
+    }
+
+    @Test
+    void failingTaskFreesItsSlot() {
+        TaskExecutor callerRuns = Runnable::run;
+        BoundedTaskExecutor executor = new BoundedTaskExecutor(callerRuns, 1);
+
+        assertThatThrownBy(() -> executor.execute(() -> {
+            throw new IllegalStateException("boom");
+        })).hasMessage("boom");
+        executor.execute(() -> { });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.orderservice.deadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HashedTimerWheelTest {
+
+    private static final long TICK_NANOS = Duration.ofMillis(10).toNanos();
+    private static final int WHEEL_SIZE = 8;
+
+    // Starts away from zero so nothing relies on the clock reading zero at construction
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private HashedTimerWheel wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimerWheel("test-wheel", Duration.ofNanos(TICK_NANOS), WHEEL_SIZE, clock::get);
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    void firesOnTheTickTheDelayEndsOn() {
+        wheel.schedule(Duration.ofMillis(30), () -> fired.add("a"));
+
+        advanceTicks(2);
+        assertThat(fired).isEmpty();
+        advanceTicks(1);
+
+        assertThat(fired).containsExactly("a");
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void roundsPartialTicksUp() {
+        wheel.schedule(Duration.ofMillis(25), () -> fired.add("a"));
+
+        advanceTicks(2);
+        assertThat(fired).isEmpty();
+        advanceTicks(1);
+
+        assertThat(fired).containsExactly("a");
+    }
+
+    @Test
+    void zeroDelayFiresOnTheNextTick() {
+        wheel.schedule(Duration.ZERO, () -> fired.add("a"));
+
+        assertThat(wheel.advance()).isEqualTo(TICK_NANOS);
+        assertThat(fired).isEmpty();
+        advanceTicks(1);
+
+        assertThat(fired).containsExactly("a");
+    }
+
+    @Test
+    void deadlinesSpanningSeveralRotationsWaitOutEveryTurn() {
+        // 8 buckets: 3 full turns plus 5 ticks share a bucket with the 5-tick timeout
+        wheel.schedule(Duration.ofNanos(TICK_NANOS * (3 * WHEEL_SIZE + 5)), () -> fired.add("late"));
+        wheel.schedule(Duration.ofNanos(TICK_NANOS * 5), () -> fired.add("early"));
+        wheel.schedule(Duration.ofNanos(TICK_NANOS * (WHEEL_SIZE + 5)), () -> fired.add("middle"));
+
+        advanceTicks(5);
+        assertThat(fired).containsExactly("early");
+        advanceTicks(WHEEL_SIZE - 1);
+        assertThat(fired).containsExactly("early");
+        advanceTicks(1);
+        assertThat(fired).containsExactly("early", "middle");
+        advanceTicks(2 * WHEEL_SIZE - 1);
+        assertThat(fired).containsExactly("early", "middle");
+        advanceTicks(1);
+
+        assertThat(fired).containsExactly("early", "middle", "late");
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void scheduledMidTurnCountsFromTheCurrentTick() {
+        advanceTicks(6);
+        // Wraps past the end of the ring into bucket 1 of the next turn
+        wheel.schedule(Duration.ofNanos(TICK_NANOS * WHEEL_SIZE * 2 + TICK_NANOS * 3), () -> fired.add("a"));
+
+        advanceTicks(2 * WHEEL_SIZE + 2);
+        assertThat(fired).isEmpty();
+        advanceTicks(1);
+
+        assertThat(fired).containsExactly("a");
+    }
+
+    @Test
+    void catchesUpOnTicksMissedByALateWorker() {
+        wheel.schedule(Duration.ofNanos(TICK_NANOS * 2), () -> fired.add("a"));
+        wheel.schedule(Duration.ofNanos(TICK_NANOS * (WHEEL_SIZE + 4)), () -> fired.add("b"));
+
+        clock.addAndGet(TICK_NANOS * (WHEEL_SIZE + 10));
+        wheel.advance();
+
+        assertThat(fired).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        HashedTimerWheel.Timeout timeout = wheel.schedule(Duration.ofMillis(20), () -> fired.add("a"));
+        wheel.schedule(Duration.ofMillis(20), () -> fired.add("b"));
+
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(wheel.pending()).isEqualTo(1);
+        advanceTicks(WHEEL_SIZE * 2);
+
+        assertThat(fired).containsExactly("b");
+    }
+
+    @Test
+    void cancelAfterExpiryReportsFalse() {
+        HashedTimerWheel.Timeout timeout = wheel.schedule(Duration.ofMillis(10), () -> fired.add("a"));
+        advanceTicks(1);
+
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(fired).containsExactly("a");
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void timeoutHandedOverInTheSameTickCannotBeCancelled() {
+        HashedTimerWheel.Timeout[] other = new HashedTimerWheel.Timeout[1];
+        boolean[] cancelled = new boolean[1];
+        // Later timeouts of a bucket run first, so this one runs before the other one of its tick
+        other[0] = wheel.schedule(Duration.ofMillis(10), () -> fired.add("other"));
+        wheel.schedule(Duration.ofMillis(10), () -> cancelled[0] = other[0].cancel());
+
+        advanceTicks(1);
+
+        // Already unlinked from its bucket when the first task ran: the caller must guard the task itself
+        assertThat(cancelled[0]).isFalse();
+        assertThat(fired).containsExactly("other");
+    }
+
+    @Test
+    void cancelRacingExpiryEitherCancelsOrRuns() throws Exception {
+        int timeouts = 20_000;
+        AtomicInteger[] runs = new AtomicInteger[timeouts];
+        HashedTimerWheel.Timeout[] handles = new HashedTimerWheel.Timeout[timeouts];
+        for (int i = 0; i < timeouts; i++) {
+            AtomicInteger counter = new AtomicInteger();
+            runs[i] = counter;
+            handles[i] = wheel.schedule(Duration.ofNanos(TICK_NANOS * (1 + i % WHEEL_SIZE)), counter::incrementAndGet);
+        }
+
+        boolean[] cancelled = new boolean[timeouts];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> ticker = executor.submit(() -> {
+                start.await();
+                advanceTicks(WHEEL_SIZE);
+                return null;
+            });
+            Future<?> canceller = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < timeouts; i++) {
+                    cancelled[i] = handles[i].cancel();
+                }
+                return null;
+            });
+            start.countDown();
+            ticker.get();
+            canceller.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        advanceTicks(WHEEL_SIZE);
+
+        for (int i = 0; i < timeouts; i++) {
+            assertThat(runs[i].get() + (cancelled[i] ? 1 : 0)).as("timeout %d", i).isEqualTo(1);
+        }
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void taskMayRescheduleFromTheWheel() {
+        AtomicInteger runs = new AtomicInteger();
+        Runnable[] task = new Runnable[1];
+        task[0] = () -> {
+            if (runs.incrementAndGet() < 3) {
+                wheel.schedule(Duration.ofMillis(10), task[0]);
+            }
+        };
+        wheel.schedule(Duration.ofMillis(10), task[0]);
+
+        advanceTicks(5);
+
+        assertThat(runs).hasValue(3);
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheOthers() {
+        wheel.schedule(Duration.ofMillis(10), () -> fired.add("a"));
+        wheel.schedule(Duration.ofMillis(10), () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        advanceTicks(1);
+
+        assertThat(fired).containsExactly("a");
+    }
+
+    @Test
+    void concurrentScheduleAndCancelKeepsPendingExact() throws Exception {
+        int threads = 8;
+        int perThread = 5000;
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int kept;
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int keptHere = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        HashedTimerWheel.Timeout timeout = wheel.schedule(
+                                Duration.ofNanos(TICK_NANOS * (1 + i % (3 * WHEEL_SIZE))), ran::incrementAndGet);
+                        if (i % 2 == 0) {
+                            timeout.cancel();
+                        } else {
+                            keptHere++;
+                        }
+                    }
+                    return keptHere;
+                }));
+            }
+            start.countDown();
+            kept = 0;
+            for (Future<Integer> worker : workers) {
+                kept += worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(wheel.pending()).isEqualTo(kept);
+        advanceTicks(3 * WHEEL_SIZE);
+        assertThat(ran).hasValue(kept);
+        assertThat(wheel.pending()).isZero();
+    }
+
+    @Test
+    void workerFiresOnTheSystemClock() throws InterruptedException {
+        HashedTimerWheel systemWheel = new HashedTimerWheel("test-wheel", Duration.ofMillis(1), 64);
+        CountDownLatch ran = new CountDownLatch(1);
+        long started = System.nanoTime();
+        systemWheel.start();
+        try {
+            systemWheel.schedule(Duration.ofMillis(20), ran::countDown);
+
+            assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+        } finally {
+            systemWheel.stop();
+        }
+    }
+
+    @Test
+    void roundsTheWheelSizeUpToAPowerOfTwo() {
+        HashedTimerWheel odd = new HashedTimerWheel("test-wheel", Duration.ofNanos(TICK_NANOS), 5, clock::get);
+        List<String> oddFired = new ArrayList<>();
+        // 8 buckets: 9 ticks is one turn plus one
+        odd.schedule(Duration.ofNanos(TICK_NANOS * 9), () -> oddFired.add("a"));
+
+        clock.addAndGet(TICK_NANOS * 8);
+        odd.advance();
+        assertThat(oddFired).isEmpty();
+        clock.addAndGet(TICK_NANOS);
+        odd.advance();
+
+        assertThat(oddFired).containsExactly("a");
+    }
+
+    private void advanceTicks(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            clock.addAndGet(TICK_NANOS);
+            wheel.advance();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.orderservice.deadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+
+import com.example.orderservice.cluster.SagaCluster;
+import com.example.orderservice.config.SagaDeadlineProperties;
+import com.example.orderservice.engine.SagaInstance;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.service.SagaRegistry;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.SagaCommand;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class SagaDeadlinesTest {
+
+    private static final Duration TICK = Duration.ofMillis(100);
+    private static final Duration STEP = Duration.ofSeconds(1);
+    private static final Duration COMPLETE = Duration.ofSeconds(2);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SagaRegistry sagaRegistry = mock(SagaRegistry.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final SagaCluster sagaCluster = mock(SagaCluster.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SagaDeadlineProperties properties;
+    private HashedTimerWheel wheel;
+    private SagaDeadlines sagaDeadlines;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SagaDeadlineProperties();
+        properties.setStep(STEP);
+        properties.setComplete(COMPLETE);
+        properties.setTick(TICK);
+        // 8 ticks a turn: both deadlines wait out more than one rotation
+        properties.setWheelSize(8);
+        properties.setReconcilePageSize(2);
+        when(sagaRegistry.sendEvent(any(), any(), any())).thenReturn(Mono.empty());
+        sagaDeadlines = build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sagaDeadlines.stop();
+    }
+
+    @ParameterizedTest
+    @EnumSource(OrderState.class)
+    void everyStateGetsItsExpiryEvent(OrderState state) {
+        UUID orderId = UUID.randomUUID();
+        sagaDeadlines.stateEntered(orderId, state);
+
+        if (state == OrderState.INVENTORY_RESERVED) {
+            advance(COMPLETE.minus(TICK));
+            verify(sagaRegistry, never()).sendEvent(any(), any(), any());
+            advance(TICK);
+            verify(sagaRegistry).sendEvent(orderId, state, OrderEvent.COMPLETE_ORDER);
+        } else if (!SagaCommand.awaitedIn(state).isEmpty()) {
+            advance(STEP.minus(TICK));
+            verify(sagaRegistry, never()).sendEvent(any(), any(), any());
+            advance(TICK);
+            verify(sagaRegistry).sendEvent(orderId, state, OrderEvent.CANCEL_ORDER);
+        } else {
+            advance(COMPLETE.multipliedBy(2));
+            verify(sagaRegistry, never()).sendEvent(any(), any(), any());
+        }
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void zeroCompleteDelayCompletesStraightAway() {
+        properties.setComplete(Duration.ZERO);
+        sagaDeadlines = build();
+        UUID orderId = UUID.randomUUID();
+
+        sagaDeadlines.stateEntered(orderId, OrderState.INVENTORY_RESERVED);
+
+        verify(sagaRegistry).sendEvent(orderId, OrderState.INVENTORY_RESERVED, OrderEvent.COMPLETE_ORDER);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void perStateOverrideReplacesTheStepDeadline() {
+        properties.getStates().put(OrderState.PAYMENT_PENDING, Duration.ofMillis(300));
+        sagaDeadlines = build();
+        UUID overridden = UUID.randomUUID();
+        UUID regular = UUID.randomUUID();
+
+        sagaDeadlines.stateEntered(overridden, OrderState.PAYMENT_PENDING);
+        sagaDeadlines.stateEntered(regular, OrderState.PAYMENT_COMPLETED);
+        advance(Duration.ofMillis(300));
+
+        verify(sagaRegistry).sendEvent(overridden, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER);
+        verify(sagaRegistry, never()).sendEvent(eq(regular), any(), any());
+    }
+
+    @Test
+    void enteringTheNextStateReplacesTheDeadline() {
+        UUID orderId = UUID.randomUUID();
+        sagaDeadlines.stateEntered(orderId, OrderState.PAYMENT_PENDING);
+        advance(Duration.ofMillis(600));
+
+        sagaDeadlines.stateEntered(orderId, OrderState.PAYMENT_COMPLETED);
+        assertThat(pending()).isEqualTo(1);
+        // Where PAYMENT_PENDING's deadline was
+        advance(Duration.ofMillis(400));
+        verify(sagaRegistry, never()).sendEvent(any(), any(), any());
+        advance(Duration.ofMillis(600));
+
+        verify(sagaRegistry).sendEvent(orderId, OrderState.PAYMENT_COMPLETED, OrderEvent.CANCEL_ORDER);
+        verify(sagaRegistry, never()).sendEvent(orderId, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER);
+    }
+
+    @Test
+    void joinStateSwitchesFromCancelToComplete() {
+        UUID orderId = UUID.randomUUID();
+        sagaDeadlines.stateEntered(orderId, OrderState.PAYMENT_COMPLETED_INVENTORY_PENDING);
+        advance(Duration.ofMillis(900));
+
+        sagaDeadlines.stateEntered(orderId, OrderState.INVENTORY_RESERVED);
+        advance(COMPLETE.minus(TICK));
+        verify(sagaRegistry, never()).sendEvent(any(), any(), any());
+        advance(TICK);
+
+        verify(sagaRegistry).sendEvent(orderId, OrderState.INVENTORY_RESERVED, OrderEvent.COMPLETE_ORDER);
+        verify(sagaRegistry, never()).sendEvent(any(), any(), eq(OrderEvent.CANCEL_ORDER));
+    }
+
+    @Test
+    void settlingRemovesTheDeadline() {
+        UUID completed = UUID.randomUUID();
+        UUID ended = UUID.randomUUID();
+        sagaDeadlines.stateEntered(completed, OrderState.INVENTORY_RESERVED);
+        sagaDeadlines.stateEntered(ended, OrderState.PAYMENT_PENDING);
+
+        sagaDeadlines.stateEntered(completed, OrderState.ORDER_COMPLETED);
+        sagaDeadlines.sagaEnded(ended);
+        assertThat(pending()).isZero();
+        advance(COMPLETE.multipliedBy(2));
+
+        verify(sagaRegistry, never()).sendEvent(any(), any(), any());
+    }
+
+    @Test
+    void deadlineReplacedAfterTheWheelPickedItUpDoesNotFire() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        AtomicBoolean replaced = new AtomicBoolean();
+        // Whichever of the two expires first moves the other saga on before the other's expiry runs,
+        // as a transition on the other order's lane would while the wheel thread is mid-tick
+        when(sagaRegistry.sendEvent(any(), eq(OrderState.PAYMENT_PENDING), eq(OrderEvent.CANCEL_ORDER)))
+                .thenAnswer(invocation -> {
+                    UUID orderId = invocation.getArgument(0);
+                    if (replaced.compareAndSet(false, true)) {
+                        sagaDeadlines.stateEntered(orderId.equals(first) ? second : first, OrderState.PAYMENT_COMPLETED);
+                    }
+                    return Mono.empty();
+                });
+        sagaDeadlines.stateEntered(first, OrderState.PAYMENT_PENDING);
+        sagaDeadlines.stateEntered(second, OrderState.PAYMENT_PENDING);
+
+        advance(STEP);
+
+        verify(sagaRegistry, times(1)).sendEvent(any(), eq(OrderState.PAYMENT_PENDING), eq(OrderEvent.CANCEL_ORDER));
+        assertThat(pending()).isEqualTo(1);
+        advance(STEP);
+        verify(sagaRegistry, times(1)).sendEvent(any(), eq(OrderState.PAYMENT_COMPLETED), eq(OrderEvent.CANCEL_ORDER));
+    }
+
+    @Test
+    void fullLaneRetriesATickLater() {
+        UUID orderId = UUID.randomUUID();
+        when(sagaRegistry.isLive(orderId)).thenReturn(true);
+        when(sagaRegistry.sendEvent(orderId, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER))
+                .thenReturn(Mono.error(new TaskRejectedException("Saga lane 0 is full")))
+                .thenReturn(Mono.empty());
+        sagaDeadlines.stateEntered(orderId, OrderState.PAYMENT_PENDING);
+
+        advance(STEP);
+        verify(sagaRegistry, times(1)).sendEvent(orderId, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER);
+        assertThat(pending()).isEqualTo(1);
+        advance(TICK);
+
+        verify(sagaRegistry, times(2)).sendEvent(orderId, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER);
+        assertThat(pending()).isZero();
+        assertThat(meterRegistry.get("saga.deadline.expired").tag("event", "CANCEL_ORDER").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void fullLaneDoesNotRetryForASagaThatIsGone() {
+        UUID orderId = UUID.randomUUID();
+        when(sagaRegistry.isLive(orderId)).thenReturn(false);
+        when(sagaRegistry.sendEvent(orderId, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER))
+                .thenReturn(Mono.error(new TaskRejectedException("Saga lane 0 is full")));
+        sagaDeadlines.stateEntered(orderId, OrderState.PAYMENT_PENDING);
+
+        advance(STEP.plus(TICK.multipliedBy(3)));
+
+        verify(sagaRegistry, times(1)).sendEvent(orderId, OrderState.PAYMENT_PENDING, OrderEvent.CANCEL_ORDER);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void reconcilePagesThroughOverdueOrdersAndAdoptsTheUnclaimedOnes() {
+        Order adopted1 = order(OrderState.PAYMENT_PENDING);
+        Order live = order(OrderState.PAYMENT_PENDING);
+        Order adopted2 = order(OrderState.PAYMENT_PENDING);
+        Order otherNode = order(OrderState.PAYMENT_PENDING);
+        Order adopted3 = order(OrderState.PAYMENT_PENDING);
+        when(orderRepository.findByStatusAndCreatedAtBeforeOrderByIdAsc(eq(OrderState.PAYMENT_PENDING), any(), any()))
+                .thenReturn(List.of(adopted1, live));
+        when(orderRepository.findByStatusAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(OrderState.PAYMENT_PENDING), any(), eq(live.getId()), any()))
+                .thenReturn(List.of(adopted2, otherNode));
+        when(orderRepository.findByStatusAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(OrderState.PAYMENT_PENDING), any(), eq(otherNode.getId()), any()))
+                .thenReturn(List.of(adopted3));
+        when(sagaRegistry.isLive(live.getId())).thenReturn(true);
+        when(sagaCluster.owns(any())).thenReturn(true);
+        when(sagaCluster.owns(otherNode.getId())).thenReturn(false);
+        when(sagaRegistry.getOrLoad(any())).thenReturn(Optional.of(mock(SagaInstance.class)));
+        sagaDeadlines.start();
+
+        Instant before = Instant.now();
+        sagaDeadlines.reconcile();
+        Instant after = Instant.now();
+
+        for (Order order : List.of(adopted1, adopted2, adopted3)) {
+            verify(sagaRegistry).getOrLoad(order.getId());
+        }
+        verify(sagaRegistry, never()).getOrLoad(live.getId());
+        verify(sagaRegistry, never()).getOrLoad(otherNode.getId());
+        assertThat(meterRegistry.get("saga.deadline.adopted").counter().count()).isEqualTo(3.0);
+
+        // Only orders old enough to have overrun their state's deadline are read, a page at a time
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(orderRepository).findByStatusAndCreatedAtBeforeOrderByIdAsc(
+                eq(OrderState.PAYMENT_PENDING), cutoff.capture(), page.capture());
+        assertThat(cutoff.getValue()).isBetween(before.minus(STEP), after.minus(STEP));
+        assertThat(page.getValue().getPageSize()).isEqualTo(2);
+        verify(orderRepository).findByStatusAndCreatedAtBeforeOrderByIdAsc(
+                eq(OrderState.INVENTORY_RESERVED), cutoff.capture(), any());
+        assertThat(cutoff.getValue()).isBetween(before.minus(COMPLETE), after.minus(COMPLETE));
+        // A short page is the last one
+        verify(orderRepository, never()).findByStatusAndCreatedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                any(), any(), eq(adopted3.getId()), any());
+        // States without a deadline, or that recovery never rehydrates, are not read at all
+        for (OrderState state : List.of(OrderState.ORDER_CREATED, OrderState.ORDER_COMPLETED, OrderState.ORDER_FAILED)) {
+            verify(orderRepository, never()).findByStatusAndCreatedAtBeforeOrderByIdAsc(eq(state), any(), any());
+        }
+    }
+
+    @Test
+    void reconcileDoesNothingBeforeStart() {
+        sagaDeadlines.reconcile();
+
+        verify(orderRepository, never()).findByStatusAndCreatedAtBeforeOrderByIdAsc(any(), any(), any());
+    }
+
+    private SagaDeadlines build() {
+        wheel = new HashedTimerWheel("test-deadlines", properties.getTick(), properties.getWheelSize(), clock::get);
+        return new SagaDeadlines(sagaRegistry, orderRepository, sagaCluster, properties, meterRegistry, wheel);
+    }
+
+    private void advance(Duration duration) {
+        for (long i = 0; i < duration.dividedBy(TICK); i++) {
+            clock.addAndGet(TICK.toNanos());
+            wheel.advance();
+        }
+    }
+
+    private int pending() {
+        return wheel.pending();
+    }
+
+    private static Order order(OrderState status) {
+        return new Order(UUID.randomUUID(), 1L, 1L, 1, BigDecimal.TEN, status);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.orderservice.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.statemachine.config.StateMachineBuilder;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.data.jpa.JpaStateMachineRepository;
+
+import com.example.orderservice.config.OrderStateMachineInterceptor;
+import com.example.orderservice.config.SagaEngineProperties;
+import com.example.orderservice.config.SagaJournalProperties;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.config.SagaPoolProperties;
+import com.example.orderservice.config.StateMachineConfig;
+import com.example.orderservice.deadline.SagaDeadlines;
+import com.example.orderservice.monitoring.SagaMetrics;
+import com.example.orderservice.service.OrderReadCache;
+import com.example.orderservice.service.OrderStatusBroadcaster;
+import com.example.orderservice.service.OrderStatusWriter;
+import com.example.orderservice.service.SagaActions;
+import com.example.orderservice.service.SagaContextStore;
+import com.example.orderservice.service.StaleOrderStatusException;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+import com.example.orderservice.state.OrderTransition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs the Spring StateMachine engine and the table engine side by side through every event sequence the
+ * saga graph allows, from a new order and from each state recovery can resume in, and requires the same
+ * states and the same calls, in the same order, from both.
+ */
+class SagaEngineConformanceTest {
+
+    private static final OrderEvent[] EVENTS = OrderEvent.values();
+
+    static Stream<Arguments> modes() {
+        return Stream.of(
+                Arguments.of(false, false),
+                Arguments.of(true, false),
+                Arguments.of(false, true),
+                Arguments.of(true, true));
+    }
+
+    @ParameterizedTest(name = "parallel steps {0}, outbox {1}")
+    @MethodSource("modes")
+    void everyEventPathRunsTheSameOnBothEngines(boolean parallelSteps, boolean outbox) throws Exception {
+        Set<String> taken = new HashSet<>();
+
+        explore(parallelSteps, outbox, null, new ArrayList<>(), taken);
+        for (OrderState state : OrderState.values()) {
+            explore(parallelSteps, outbox, state, new ArrayList<>(), taken);
+        }
+
+        // Every transition of the shape was driven through at least once
+        assertThat(taken).containsExactlyInAnyOrderElementsOf(OrderTransition.graph(parallelSteps).stream()
+                .map(transition -> transition.getSource() + " on " + transition.getEvent())
+                .toList());
+    }
+
+    @ParameterizedTest(name = "parallel steps {0}, outbox {1}")
+    @MethodSource("modes")
+    void rejectedStatusWriteLeavesBothEnginesInTheSourceState(boolean parallelSteps, boolean outbox)
+            throws Exception {
+        for (OrderTransition transition : OrderTransition.graph(parallelSteps)) {
+            List<OrderEvent> events = List.of(transition.getEvent());
+
+            Run spring = run(parallelSteps, outbox, false, transition.getSource(), events, true);
+            Run table = run(parallelSteps, outbox, true, transition.getSource(), events, true);
+
+            assertThat(table).as("%s rejected", transition).isEqualTo(spring);
+            assertThat(table.states()).containsExactly(transition.getSource());
+        }
+    }
+
+    /**
+     * Sends each event after the given ones to both engines and recurses into the events that moved the
+     * saga; an ignored event ends the path, as does any event once the saga has settled.
+     */
+    private void explore(boolean parallelSteps, boolean outbox, OrderState resumedIn, List<OrderEvent> events,
+                         Set<String> taken) throws Exception {
+        OrderState current = events.isEmpty()
+                ? (resumedIn == null ? OrderState.ORDER_CREATED : resumedIn)
+                : null;
+        for (OrderEvent event : EVENTS) {
+            List<OrderEvent> path = new ArrayList<>(events);
+            path.add(event);
+
+            Run spring = run(parallelSteps, outbox, false, resumedIn, path, false);
+            Run table = run(parallelSteps, outbox, true, resumedIn, path, false);
+
+            assertThat(table).as("resumed in %s, events %s", resumedIn, path).isEqualTo(spring);
+            OrderState before = current != null ? current : spring.states().get(spring.states().size() - 2);
+            OrderState after = spring.states().get(spring.states().size() - 1);
+            if (after != before) {
+                taken.add(before + " on " + event);
+                explore(parallelSteps, outbox, resumedIn, path, taken);
+            }
+        }
+    }
+
+    private Run run(boolean parallelSteps, boolean outbox, boolean tableEngine, OrderState resumedIn,
+                    List<OrderEvent> events, boolean rejectWrites) throws Exception {
+        List<String> calls = new ArrayList<>();
+
+        SagaActions sagaActions = mock(SagaActions.class);
+        doCallRealMethod().when(sagaActions).processPaymentAction();
+        doCallRealMethod().when(sagaActions).reserveInventoryAction();
+        doCallRealMethod().when(sagaActions).compensatePaymentAction();
+        doCallRealMethod().when(sagaActions).compensateInventoryAction();
+        doCallRealMethod().when(sagaActions).confirmInventoryAction();
+        doAnswer(record(calls)).when(sagaActions).processPayment(any());
+        doAnswer(record(calls)).when(sagaActions).reserveInventory(any());
+        doAnswer(record(calls)).when(sagaActions).compensatePayment(any());
+        doAnswer(record(calls)).when(sagaActions).compensateInventory(any());
+        doAnswer(record(calls)).when(sagaActions).confirmInventory(any());
+
+        OrderStatusWriter orderStatusWriter = mock(OrderStatusWriter.class);
+        doAnswer(invocation -> {
+            calls.add(call(invocation));
+            if (rejectWrites) {
+                throw new StaleOrderStatusException(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2));
+            }
+            return null;
+        }).when(orderStatusWriter).applyTransition(any(), any(), any(), any());
+        OrderReadCache orderReadCache = mock(OrderReadCache.class);
+        doAnswer(record(calls)).when(orderReadCache).statusChanged(any(), any());
+        doAnswer(record(calls)).when(orderReadCache).invalidate(any());
+        OrderStatusBroadcaster orderStatusBroadcaster = mock(OrderStatusBroadcaster.class);
+        doAnswer(record(calls)).when(orderStatusBroadcaster).publish(any(), any(), any(), any());
+        SagaDeadlines sagaDeadlines = mock(SagaDeadlines.class);
+        doAnswer(record(calls)).when(sagaDeadlines).stateEntered(any(), any());
+        SagaMetrics sagaMetrics = mock(SagaMetrics.class);
+
+        SagaEngine engine = tableEngine
+                ? new TableSagaEngine(sagaActions, orderStatusWriter, sagaMetrics, orderReadCache,
+                        orderStatusBroadcaster, sagaDeadlines, parallelSteps, !outbox)
+                : new StateMachinePool(stateMachineFactory(sagaActions, parallelSteps, outbox),
+                        new OrderStateMachineInterceptor(orderStatusWriter, sagaMetrics, orderReadCache,
+                                orderStatusBroadcaster, sagaDeadlines),
+                        contextStore(), new SagaPoolProperties(), new SimpleMeterRegistry());
+
+        UUID orderId = UUID.randomUUID();
+        SagaInstance instance = resumedIn == null ? engine.start(orderId) : engine.resume(orderId, resumedIn);
+        List<OrderState> states = new ArrayList<>();
+        for (OrderEvent event : events) {
+            try {
+                instance.sendEvent(event);
+            } catch (RuntimeException e) {
+                calls.add("threw " + e.getClass().getSimpleName());
+            }
+            states.add(instance.getState());
+        }
+        // Order ids differ between runs; the calls are compared without them
+        return new Run(states, calls.stream().map(call -> call.replace(orderId.toString(), "order")).toList(),
+                instance.getSettled().getNow(null));
+    }
+
+    private static StateMachineFactory<OrderState, OrderEvent> stateMachineFactory(SagaActions sagaActions,
+                                                                                  boolean parallelSteps,
+                                                                                  boolean outbox) throws Exception {
+        SagaOutboxProperties outboxProperties = new SagaOutboxProperties();
+        outboxProperties.setEnabled(outbox);
+        SagaEngineProperties engineProperties = new SagaEngineProperties();
+        engineProperties.setStepMode(parallelSteps
+                ? SagaEngineProperties.StepMode.PARALLEL
+                : SagaEngineProperties.StepMode.SEQUENTIAL);
+        // The configuration the application runs, fed to a builder instead of the annotation processing
+        StateMachineConfig config = new StateMachineConfig(sagaActions, outboxProperties, engineProperties);
+        StateMachineBuilder.Builder<OrderState, OrderEvent> builder = StateMachineBuilder.builder();
+        config.configure(builder.configureStates());
+        config.configure(builder.configureTransitions());
+        return builder.createFactory();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SagaContextStore contextStore() {
+        // No persister: contexts are built from the order id and state, as with saga.recovery.enabled=false
+        return new SagaContextStore(mock(ObjectProvider.class), mock(JpaStateMachineRepository.class),
+                new SagaJournalProperties());
+    }
+
+    private static org.mockito.stubbing.Answer<Void> record(List<String> calls) {
+        return invocation -> {
+            calls.add(call(invocation));
+            return null;
+        };
+    }
+
+    private static String call(InvocationOnMock invocation) {
+        return invocation.getMethod().getName() + List.of(invocation.getArguments());
+    }
+
+    private record Run(List<OrderState> states, List<String> calls, OrderState settled) {
+    }
+}
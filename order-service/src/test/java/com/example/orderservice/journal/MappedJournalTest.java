@@ -0,0 +1,309 @@
+package com.example.orderservice.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MappedJournalTest {
+
+    // Four records a segment
+    private static final int SMALL_SEGMENT = 4 * JournalRecord.SIZE;
+    private static final int LARGE_SEGMENT = 1024 * JournalRecord.SIZE;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MappedJournal journal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void recordRoundTripsThroughItsFrame() {
+        UUID orderId = UUID.randomUUID();
+        JournalRecord record = new JournalRecord(orderId, OrderEvent.PAYMENT_SUCCESS,
+                OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED, 1_700_000_000_000L);
+        JournalRecord created = new JournalRecord(orderId, OrderEvent.CREATE_ORDER,
+                null, OrderState.PAYMENT_PENDING, 1_700_000_000_001L);
+        ByteBuffer buffer = ByteBuffer.allocate(2 * JournalRecord.SIZE);
+
+        buffer.put(0, encode(record), 0, JournalRecord.SIZE);
+        buffer.put(JournalRecord.SIZE, encode(created), 0, JournalRecord.SIZE);
+
+        assertThat(JournalRecord.decode(buffer, 0)).isEqualTo(record);
+        assertThat(JournalRecord.decode(buffer, JournalRecord.SIZE)).isEqualTo(created);
+    }
+
+    @Test
+    void unwrittenSpaceAndDamagedFramesDecodeToNothing() {
+        ByteBuffer empty = ByteBuffer.allocate(JournalRecord.SIZE);
+        assertThat(JournalRecord.decode(empty, 0)).isNull();
+
+        // Every single bit flip behind the marker breaks the CRC32C
+        ByteBuffer frame = encode(new JournalRecord(UUID.randomUUID(), OrderEvent.INVENTORY_SUCCESS,
+                OrderState.PAYMENT_COMPLETED, OrderState.INVENTORY_RESERVED, 42L));
+        for (int bit = 8; bit < JournalRecord.SIZE * 8; bit++) {
+            ByteBuffer damaged = ByteBuffer.allocate(JournalRecord.SIZE).put(0, frame, 0, JournalRecord.SIZE);
+            damaged.put(bit / 8, (byte) (damaged.get(bit / 8) ^ (1 << (bit % 8))));
+            assertThat(JournalRecord.decode(damaged, 0)).as("bit %d", bit).isNull();
+        }
+    }
+
+    @Test
+    void reopenRecoversTheLatestStatusOfEveryOrder() throws IOException {
+        journal = open(LARGE_SEGMENT);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        append(first, null, OrderState.PAYMENT_PENDING);
+        append(second, null, OrderState.PAYMENT_PENDING);
+        append(first, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED);
+        append(first, OrderState.PAYMENT_COMPLETED, OrderState.INVENTORY_RESERVED);
+
+        reopen(LARGE_SEGMENT);
+
+        assertThat(journal.statuses()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                first, OrderState.INVENTORY_RESERVED,
+                second, OrderState.PAYMENT_PENDING));
+    }
+
+    @Test
+    void commitForcesEverythingAppendedInOneFsync() throws IOException {
+        journal = open(LARGE_SEGMENT);
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = append(UUID.randomUUID(), null, OrderState.PAYMENT_PENDING);
+        }
+
+        journal.awaitDurable(1);
+
+        assertThat(fsyncs()).isEqualTo(1);
+        assertThat(meterRegistry.get("saga.journal.commit.records").summary().max()).isEqualTo(100.0);
+        // Already covered by that force
+        journal.awaitDurable(last);
+        assertThat(fsyncs()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWritersShareFsyncs() throws Exception {
+        journal = open(LARGE_SEGMENT);
+        int threads = 16;
+        int perThread = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<UUID> orders = new ArrayList<>();
+        try {
+            List<Future<List<UUID>>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    List<UUID> written = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        UUID orderId = UUID.randomUUID();
+                        journal.awaitDurable(append(orderId, null, OrderState.PAYMENT_PENDING));
+                        written.add(orderId);
+                    }
+                    return written;
+                }));
+            }
+            start.countDown();
+            for (Future<List<UUID>> writer : writers) {
+                orders.addAll(writer.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Every record made durable exactly once, by no more forces than there were records
+        assertThat(meterRegistry.get("saga.journal.commit.records").summary().totalAmount())
+                .isEqualTo(threads * perThread);
+        assertThat(fsyncs()).isLessThanOrEqualTo(threads * perThread);
+
+        reopen(LARGE_SEGMENT);
+        assertThat(journal.statuses()).containsOnlyKeys(orders);
+    }
+
+    @Test
+    void fullSegmentRollsWithASnapshotAndCompactsTheOlderFiles() throws IOException {
+        journal = open(SMALL_SEGMENT);
+        assertThat(files()).containsExactlyInAnyOrder("segment-0000000001.log", "snapshot-0000000001.snap");
+        List<UUID> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID orderId = UUID.randomUUID();
+            append(orderId, null, OrderState.PAYMENT_PENDING);
+            orders.add(orderId);
+        }
+
+        // Records 9 and 10 are in segment 3; snapshot-3 holds the first eight
+        assertThat(files()).containsExactlyInAnyOrder("segment-0000000003.log", "snapshot-0000000003.snap");
+        // Magic and count, an order id and status byte per order, CRC32C
+        assertThat(Files.size(directory.resolve("snapshot-0000000003.snap")))
+                .isEqualTo(2 * Integer.BYTES + 8 * (2 * Long.BYTES + 1) + Integer.BYTES);
+
+        reopen(SMALL_SEGMENT);
+
+        assertThat(journal.statuses()).containsOnlyKeys(orders);
+        assertThat(files()).containsExactlyInAnyOrder("segment-0000000004.log", "snapshot-0000000004.snap");
+    }
+
+    @Test
+    void forgottenOrdersAreDroppedByTheNextSnapshot() throws IOException {
+        journal = open(SMALL_SEGMENT);
+        UUID settled = UUID.randomUUID();
+        UUID open = UUID.randomUUID();
+        append(settled, OrderState.INVENTORY_RESERVED, OrderState.ORDER_COMPLETED);
+        append(open, null, OrderState.PAYMENT_PENDING);
+
+        journal.forget(settled, OrderState.ORDER_COMPLETED);
+        // Moved on since: not forgotten
+        journal.forget(open, OrderState.ORDER_CREATED);
+        assertThat(journal.status(settled)).isNull();
+        // Fill the segment so the next append rolls it
+        List<UUID> orders = new ArrayList<>(List.of(open));
+        for (int i = 0; i < 3; i++) {
+            UUID orderId = UUID.randomUUID();
+            append(orderId, null, OrderState.PAYMENT_PENDING);
+            orders.add(orderId);
+        }
+
+        reopen(SMALL_SEGMENT);
+
+        assertThat(journal.statuses()).containsOnlyKeys(orders);
+    }
+
+    @Test
+    void replayStopsAtATornRecord() throws IOException {
+        journal = open(LARGE_SEGMENT);
+        UUID orderId = UUID.randomUUID();
+        UUID later = UUID.randomUUID();
+        append(orderId, null, OrderState.PAYMENT_PENDING);
+        append(orderId, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED);
+        append(later, null, OrderState.PAYMENT_PENDING);
+        journal.close();
+
+        // A crash mid-write: the second record's marker made it to disk, its tail did not
+        writeAt(segment(1), JournalRecord.SIZE + 8, new byte[JournalRecord.SIZE - 8]);
+
+        journal = open(LARGE_SEGMENT);
+
+        // The torn record and everything after it in the segment are not replayed
+        assertThat(journal.statuses()).containsExactlyInAnyOrderEntriesOf(Map.of(orderId, OrderState.PAYMENT_PENDING));
+    }
+
+    @Test
+    void replayStopsAtACorruptRecord() throws IOException {
+        journal = open(LARGE_SEGMENT);
+        UUID orderId = UUID.randomUUID();
+        append(orderId, null, OrderState.PAYMENT_PENDING);
+        append(orderId, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED);
+        journal.close();
+
+        // The target state byte of the last record
+        writeAt(segment(1), JournalRecord.SIZE + 3, new byte[] {(byte) OrderState.ORDER_FAILED.ordinal()});
+
+        journal = open(LARGE_SEGMENT);
+
+        assertThat(journal.statuses()).containsExactlyInAnyOrderEntriesOf(Map.of(orderId, OrderState.PAYMENT_PENDING));
+    }
+
+    @Test
+    void recoveredJournalKeepsAppendingAfterATornTail() throws IOException {
+        journal = open(LARGE_SEGMENT);
+        UUID orderId = UUID.randomUUID();
+        append(orderId, null, OrderState.PAYMENT_PENDING);
+        append(orderId, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED);
+        journal.close();
+        writeAt(segment(1), JournalRecord.SIZE + 20, new byte[] {1, 2, 3});
+
+        journal = open(LARGE_SEGMENT);
+        append(orderId, OrderState.PAYMENT_PENDING, OrderState.ORDER_FAILED);
+        reopen(LARGE_SEGMENT);
+
+        assertThat(journal.status(orderId)).isEqualTo(OrderState.ORDER_FAILED);
+    }
+
+    @Test
+    void damagedSnapshotRefusesToOpen() throws IOException {
+        journal = open(SMALL_SEGMENT);
+        for (int i = 0; i < 5; i++) {
+            append(UUID.randomUUID(), null, OrderState.PAYMENT_PENDING);
+        }
+        journal.close();
+        journal = null;
+        Path snapshot = directory.resolve("snapshot-0000000002.snap");
+        writeAt(snapshot, 2 * Integer.BYTES, new byte[] {0x7f});
+
+        assertThatThrownBy(() -> open(SMALL_SEGMENT))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Damaged snapshot");
+    }
+
+    private MappedJournal open(int segmentSize) throws IOException {
+        return new MappedJournal(directory, segmentSize, meterRegistry);
+    }
+
+    private void reopen(int segmentSize) throws IOException {
+        journal.close();
+        meterRegistry = new SimpleMeterRegistry();
+        journal = open(segmentSize);
+    }
+
+    private long append(UUID orderId, OrderState source, OrderState target) {
+        OrderEvent event = source == null ? OrderEvent.CREATE_ORDER : OrderEvent.PAYMENT_SUCCESS;
+        return journal.append(new JournalRecord(orderId, event, source, target, System.currentTimeMillis()));
+    }
+
+    private long fsyncs() {
+        return meterRegistry.get("saga.journal.fsync").timer().count();
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    private Path segment(long number) {
+        return directory.resolve(String.format("segment-%010d.log", number));
+    }
+
+    private static ByteBuffer encode(JournalRecord record) {
+        ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.SIZE);
+        record.encode(scratch);
+        return scratch;
+    }
+
+    private static void writeAt(Path file, long offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.orderservice.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import com.example.orderservice.config.SagaJournalProperties;
+import com.example.orderservice.config.SagaOutboxProperties;
+import com.example.orderservice.entity.Order;
+import com.example.orderservice.repository.OrderRepository;
+import com.example.orderservice.service.StaleOrderStatusException;
+import com.example.orderservice.state.OrderEvent;
+import com.example.orderservice.state.OrderState;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SagaJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private SagaJournalProperties properties;
+    private SagaJournal sagaJournal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new SagaJournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(DataSize.ofBytes(64L * JournalRecord.SIZE));
+        properties.getProjection().setBatchSize(2);
+        sagaJournal = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sagaJournal.close();
+    }
+
+    @Test
+    void transitionsAreJournaledAndOverlaidOnTheRow() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order(orderId, OrderState.ORDER_CREATED)));
+
+        sagaJournal.append(orderId, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+        sagaJournal.append(orderId, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED, OrderEvent.PAYMENT_SUCCESS);
+
+        // Nothing written to the table on the saga's path
+        verify(orderRepository, never()).updateStatus(anyCollection(), any());
+        assertThat(sagaJournal.findOrder(orderId)).map(Order::getStatus).contains(OrderState.PAYMENT_COMPLETED);
+    }
+
+    @Test
+    void staleSourceIsRejected() {
+        UUID orderId = UUID.randomUUID();
+        sagaJournal.append(orderId, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+
+        assertThatThrownBy(() -> sagaJournal.append(orderId, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING,
+                OrderEvent.CREATE_ORDER)).isInstanceOf(StaleOrderStatusException.class);
+    }
+
+    @Test
+    void projectionWritesTheLatestStatusOncePerOrder() {
+        UUID completed = UUID.randomUUID();
+        UUID pending = UUID.randomUUID();
+        sagaJournal.append(completed, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+        sagaJournal.append(completed, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED, OrderEvent.PAYMENT_SUCCESS);
+        sagaJournal.append(completed, OrderState.PAYMENT_COMPLETED, OrderState.INVENTORY_RESERVED, OrderEvent.INVENTORY_SUCCESS);
+        sagaJournal.append(completed, OrderState.INVENTORY_RESERVED, OrderState.ORDER_COMPLETED, OrderEvent.COMPLETE_ORDER);
+        sagaJournal.append(pending, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+
+        sagaJournal.project();
+
+        verify(orderRepository).updateStatus(List.of(completed), OrderState.ORDER_COMPLETED);
+        verify(orderRepository).updateStatus(List.of(pending), OrderState.PAYMENT_PENDING);
+        // Settled and projected: the row answers for it from here on; the open saga stays tracked
+        when(orderRepository.findById(completed)).thenReturn(Optional.of(order(completed, OrderState.ORDER_COMPLETED)));
+        when(orderRepository.findById(pending)).thenReturn(Optional.of(order(pending, OrderState.ORDER_CREATED)));
+        assertThat(sagaJournal.findOrder(completed)).map(Order::getStatus).contains(OrderState.ORDER_COMPLETED);
+        assertThat(sagaJournal.findOrder(pending)).map(Order::getStatus).contains(OrderState.PAYMENT_PENDING);
+
+        clearInvocations(orderRepository);
+        sagaJournal.project();
+        verify(orderRepository, never()).updateStatus(anyCollection(), any());
+    }
+
+    @Test
+    void failedProjectionIsRetriedOnTheNextRun() {
+        UUID orderId = UUID.randomUUID();
+        sagaJournal.append(orderId, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+        doThrow(new QueryTimeoutException("timeout"))
+                .doReturn(1)
+                .when(orderRepository).updateStatus(anyCollection(), any());
+
+        sagaJournal.project();
+        sagaJournal.project();
+
+        verify(orderRepository, times(2)).updateStatus(List.of(orderId), OrderState.PAYMENT_PENDING);
+    }
+
+    @Test
+    void reopeningProjectsTheRecoveredStatusesBeforeServing() throws IOException {
+        UUID failed = UUID.randomUUID();
+        UUID reserved = UUID.randomUUID();
+        UUID created = UUID.randomUUID();
+        sagaJournal.append(failed, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+        sagaJournal.append(failed, OrderState.PAYMENT_PENDING, OrderState.ORDER_FAILED, OrderEvent.PAYMENT_FAILURE);
+        sagaJournal.append(reserved, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+        sagaJournal.append(reserved, OrderState.PAYMENT_PENDING, OrderState.PAYMENT_COMPLETED, OrderEvent.PAYMENT_SUCCESS);
+        sagaJournal.append(reserved, OrderState.PAYMENT_COMPLETED, OrderState.INVENTORY_RESERVED, OrderEvent.INVENTORY_SUCCESS);
+        sagaJournal.append(created, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING, OrderEvent.CREATE_ORDER);
+        // The mocked orders table keeps nothing: the statuses below can only come from the journal files
+        sagaJournal.close();
+        clearInvocations(orderRepository);
+
+        sagaJournal = open();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<OrderState> statuses = ArgumentCaptor.forClass(OrderState.class);
+        verify(orderRepository, atLeastOnce()).updateStatus(ids.capture(), statuses.capture());
+        assertThat(projected(ids.getAllValues(), statuses.getAllValues(), failed)).isEqualTo(OrderState.ORDER_FAILED);
+        assertThat(projected(ids.getAllValues(), statuses.getAllValues(), reserved)).isEqualTo(OrderState.INVENTORY_RESERVED);
+        assertThat(projected(ids.getAllValues(), statuses.getAllValues(), created)).isEqualTo(OrderState.PAYMENT_PENDING);
+        // Each recovered order is projected once
+        assertThat(ids.getAllValues().stream().mapToInt(Collection::size).sum()).isEqualTo(3);
+
+        // The recovered journal carries on from where the saga was
+        sagaJournal.append(reserved, OrderState.INVENTORY_RESERVED, OrderState.ORDER_COMPLETED, OrderEvent.COMPLETE_ORDER);
+        assertThatThrownBy(() -> sagaJournal.append(created, OrderState.ORDER_CREATED, OrderState.PAYMENT_PENDING,
+                OrderEvent.CREATE_ORDER)).isInstanceOf(StaleOrderStatusException.class);
+    }
+
+    @Test
+    void journalAndOutboxCannotBothBeEnabled() {
+        SagaOutboxProperties outboxProperties = new SagaOutboxProperties();
+        outboxProperties.setEnabled(true);
+
+        assertThatThrownBy(() -> new SagaJournal(orderRepository, transactionTemplate, properties, outboxProperties,
+                new SimpleMeterRegistry())).isInstanceOf(IllegalStateException.class);
+    }
+
+    private SagaJournal open() throws IOException {
+        return new SagaJournal(orderRepository, transactionTemplate, properties, new SagaOutboxProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    private static OrderState projected(List<Collection<UUID>> ids, List<OrderState> statuses, UUID orderId) {
+        OrderState last = null;
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i).contains(orderId)) {
+                last = statuses.get(i);
+            }
+        }
+        return last;
+    }
+
+    private static Order order(UUID orderId, OrderState status) {
+        return new Order(orderId, 1L, 1L, 1, BigDecimal.TEN, status);
+    }
+}
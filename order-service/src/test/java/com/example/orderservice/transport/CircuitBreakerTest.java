@@ -0,0 +1,165 @@
+package com.example.orderservice.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.orderservice.config.SagaResilienceProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        SagaResilienceProperties.CircuitBreaker properties = new SagaResilienceProperties.CircuitBreaker();
+        properties.setFailureRateThreshold(50);
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setOpenDuration(OPEN_DURATION);
+        properties.setHalfOpenCalls(2);
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new CircuitBreaker("payment", properties, meterRegistry);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        fail();
+        fail();
+        fail();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtFailureRateThreshold() {
+        succeed();
+        fail();
+        succeed();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail();
+
+        // 2 of 4 calls failed: 50%
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void refusalsByTheDownstreamCountAsSuccesses() {
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> breaker.protect(Mono.error(new SagaStepRejectedException("declined"))).block())
+                    .isInstanceOf(SagaStepRejectedException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void countsOnlyTheLastWindowOfCalls() {
+        fail();
+        for (int i = 0; i < 9; i++) {
+            succeed();
+        }
+        fail();
+        fail();
+        fail();
+        // Window of 10: 3 failures and 7 successes, the first failure has been pushed out
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail();
+        fail();
+
+        // 5 of the last 10 failed
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void cancelledCallsCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            breaker.protect(Mono.never()).subscribe().dispose();
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void openFailsFastUntilOpenDurationPasses() {
+        open();
+
+        assertThatThrownBy(() -> breaker.protect(Mono.just("paid")).block())
+                .isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(meterRegistry.get("saga.transport.circuit.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void cyclesOpenHalfOpenClosed() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        // The first call after the open duration is a trial
+        succeed();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        succeed();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // A fresh window: three failures are below the minimum again
+        fail();
+        fail();
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedTrialsOpenAgain() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        succeed();
+        fail();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> breaker.protect(Mono.just("paid")).block())
+                .isInstanceOf(CircuitBreakerOpenException.class);
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyTheTrialCalls() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        // Two trials in flight, neither answered yet
+        breaker.protect(Mono.never()).subscribe();
+        breaker.protect(Mono.never()).subscribe();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(() -> breaker.protect(Mono.just("paid")).block())
+                .isInstanceOf(CircuitBreakerOpenException.class);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void succeed() {
+        assertThat(breaker.protect(Mono.just("paid")).block()).isEqualTo("paid");
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.protect(Mono.error(new IllegalStateException("connection reset"))).block())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
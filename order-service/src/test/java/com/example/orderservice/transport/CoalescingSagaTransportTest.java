@@ -0,0 +1,217 @@
+package com.example.orderservice.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.orderservice.config.SagaTransportProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class CoalescingSagaTransportTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+    private static final Duration DEADLINE = Duration.ofMillis(200);
+
+    @Test
+    void eachOrderGetsItsOwnResult() {
+        UUID accepted = UUID.randomUUID();
+        UUID declined = UUID.randomUUID();
+        UUID alsoAccepted = UUID.randomUUID();
+        StubTransport stub = new StubTransport(orderIds -> Mono.just(orderIds.stream()
+                .map(orderId -> new StepResult(orderId, !orderId.equals(declined), "Insufficient funds"))
+                .toList()));
+        // Nothing flushes before the third step arrives
+        CoalescingSagaTransport transport = transport(stub, 3);
+
+        CompletableFuture<Void> first = pay(transport, accepted);
+        CompletableFuture<Void> second = pay(transport, declined);
+        CompletableFuture<Void> third = pay(transport, alsoAccepted);
+
+        assertThat(first).succeedsWithin(WAIT);
+        assertThat(third).succeedsWithin(WAIT);
+        assertThat(second).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(SagaStepRejectedException.class)
+                .withMessageContaining("Insufficient funds");
+        assertThat(stub.batches).containsExactly(List.of(accepted, declined, alsoAccepted));
+    }
+
+    @Test
+    void resultsAreMatchedByOrderNotByPosition() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        StubTransport stub = new StubTransport(orderIds -> Mono.just(List.of(
+                new StepResult(second, false, "Out of stock"),
+                new StepResult(first, true, null))));
+        CoalescingSagaTransport transport = transport(stub, 2);
+
+        CompletableFuture<Void> reserved = reserve(transport, first);
+        CompletableFuture<Void> refused = reserve(transport, second);
+
+        assertThat(reserved).succeedsWithin(WAIT);
+        assertThat(refused).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(SagaStepRejectedException.class)
+                .withMessageContaining("Out of stock");
+    }
+
+    @Test
+    void missingResultFailsOnlyItsOwnOrder() {
+        UUID answered = UUID.randomUUID();
+        UUID forgotten = UUID.randomUUID();
+        StubTransport stub = new StubTransport(orderIds -> Mono.just(List.of(new StepResult(answered, true, null))));
+        CoalescingSagaTransport transport = transport(stub, 2);
+
+        CompletableFuture<Void> first = pay(transport, answered);
+        CompletableFuture<Void> second = pay(transport, forgotten);
+
+        assertThat(first).succeedsWithin(WAIT);
+        assertThat(second).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class)
+                .withMessageContaining(forgotten.toString());
+    }
+
+    @Test
+    void failedBatchFailsEveryCaller() {
+        IllegalStateException failure = new IllegalStateException("503 Service Unavailable");
+        StubTransport stub = new StubTransport(orderIds -> Mono.error(failure));
+        CoalescingSagaTransport transport = transport(stub, 3);
+
+        List<CompletableFuture<Void>> calls = Stream.generate(UUID::randomUUID)
+                .limit(3)
+                .map(orderId -> pay(transport, orderId))
+                .toList();
+
+        for (CompletableFuture<Void> call : calls) {
+            // The transport error itself, not a refusal: the saga may retry it
+            assertThat(call).failsWithin(WAIT)
+                    .withThrowableOfType(ExecutionException.class)
+                    .havingCause()
+                    .isSameAs(failure);
+        }
+        // One request for all three; retrying it is left to the resilience layer
+        assertThat(stub.batches).hasSize(1);
+    }
+
+    @Test
+    void callersWaitingOnABatchTimeOutAtTheStepDeadline() {
+        StubTransport stub = new StubTransport(orderIds -> Mono.never());
+        CoalescingSagaTransport transport = transport(stub, 2);
+
+        CompletableFuture<Void> first = pay(transport, UUID.randomUUID());
+        CompletableFuture<Void> second = pay(transport, UUID.randomUUID());
+
+        assertThat(first).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TimeoutException.class);
+        assertThat(second).failsWithin(WAIT)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void compensationsAndConfirmationsAreNotBatched() {
+        StubTransport stub = new StubTransport(orderIds -> Mono.never());
+        CoalescingSagaTransport transport = transport(stub, 100);
+
+        transport.cancelPayment(UUID.randomUUID()).block(WAIT);
+        transport.releaseInventory(UUID.randomUUID()).block(WAIT);
+        transport.confirmInventory(UUID.randomUUID()).block(WAIT);
+
+        assertThat(stub.batches).isEmpty();
+        assertThat(stub.singleCalls).containsExactlyInAnyOrder("cancelPayment", "releaseInventory", "confirmInventory");
+    }
+
+    /**
+     * A batch is cut once {@code maxSize} steps are pending; max-delay is long enough never to cut one.
+     */
+    private static CoalescingSagaTransport transport(StubTransport stub, int maxSize) {
+        SagaTransportProperties properties = new SagaTransportProperties();
+        properties.setPaymentDeadline(DEADLINE);
+        properties.setInventoryDeadline(DEADLINE);
+        properties.getBatch().setEnabled(true);
+        properties.getBatch().setMaxSize(maxSize);
+        properties.getBatch().setMaxDelay(Duration.ofMinutes(1));
+        return new CoalescingSagaTransport(stub, properties, new SimpleMeterRegistry());
+    }
+
+    private static CompletableFuture<Void> pay(CoalescingSagaTransport transport, UUID orderId) {
+        return transport.processPayment(orderId, BigDecimal.TEN).toFuture();
+    }
+
+    private static CompletableFuture<Void> reserve(CoalescingSagaTransport transport, UUID orderId) {
+        return transport.reserveInventory(orderId, 1L, 1).toFuture();
+    }
+
+    /**
+     * Answers every batch, of either kind, from the order ids in it, and records what it was sent.
+     */
+    private static final class StubTransport implements SagaTransport, SagaBatchTransport {
+
+        private final Function<List<UUID>, Mono<List<StepResult>>> answer;
+        private final List<List<UUID>> batches = new CopyOnWriteArrayList<>();
+        private final List<String> singleCalls = new CopyOnWriteArrayList<>();
+
+        private StubTransport(Function<List<UUID>, Mono<List<StepResult>>> answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public Mono<List<StepResult>> processPayments(List<PaymentStep> steps) {
+            return batch(steps.stream().map(PaymentStep::orderId).toList());
+        }
+
+        @Override
+        public Mono<List<StepResult>> reserveInventory(List<InventoryStep> steps) {
+            return batch(steps.stream().map(InventoryStep::orderId).toList());
+        }
+
+        private Mono<List<StepResult>> batch(List<UUID> orderIds) {
+            batches.add(orderIds);
+            return answer.apply(orderIds);
+        }
+
+        @Override
+        public Mono<Void> processPayment(UUID orderId, BigDecimal amount) {
+            return single("processPayment");
+        }
+
+        @Override
+        public Mono<Void> cancelPayment(UUID orderId) {
+            return single("cancelPayment");
+        }
+
+        @Override
+        public Mono<Void> reserveInventory(UUID orderId, Long productId, Integer quantity) {
+            return single("reserveInventory");
+        }
+
+        @Override
+        public Mono<Void> releaseInventory(UUID orderId) {
+            return single("releaseInventory");
+        }
+
+        @Override
+        public Mono<Void> confirmInventory(UUID orderId) {
+            return single("confirmInventory");
+        }
+
+        private Mono<Void> single(String call) {
+            return Mono.fromRunnable(() -> singleCalls.add(call));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.paymentservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "payment.idempotency")
+public class PaymentIdempotencyProperties {
+
+    // Orders whose outcome is remembered; the least recently used are evicted beyond this
+    private long maxSize = 1_000_000;
+    // How long an outcome is replayed for duplicates; a request after this is processed again
+    private Duration ttl = Duration.ofHours(24);
+
+    private Log log = new Log();
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Log getLog() {
+        return log;
+    }
+
+    public void setLog(Log log) {
+        this.log = log;
+    }
+
+    public static class Log {
+
+        // When enabled every new outcome is appended to path and the log is replayed on startup
+        private boolean enabled = true;
+        private String path = "data/payment-idempotency.log";
+        // Rewrite the log with only the cached outcomes once this many records were appended since the last rewrite
+        private long compactAfter = 2_000_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public long getCompactAfter() {
+            return compactAfter;
+        }
+
+        public void setCompactAfter(long compactAfter) {
+            this.compactAfter = compactAfter;
+        }
+    }
+}
@@ -2,27 +2,67 @@ package com.example.paymentservice.controller;
 
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.example.paymentservice.dto.PaymentItemResult;
+import com.example.paymentservice.dto.PaymentRequest;
+import com.example.paymentservice.service.PaymentService;
+import com.example.paymentservice.service.PaymentService.PaymentResult;
+import com.example.paymentservice.service.PaymentStatus;
+
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 @RestController
 public class PaymentController {
 
+    // Set on every response: the order's payment status after the request
+    static final String PAYMENT_STATUS_HEADER = "Payment-Status";
+    // Set when the response replays an earlier outcome instead of processing the request
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final PaymentService paymentService;
+    private final int maxBatchSize;
+
+    public PaymentController(PaymentService paymentService,
+                             @Value("${payment.batch.max-size:1000}") int maxBatchSize) {
+        this.paymentService = paymentService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
     @PostMapping("/payment")
     public ResponseEntity<?> processPayment(@RequestParam UUID orderId, @RequestParam(required = false) Double amount){
         if(orderId == null){
             return ResponseEntity.badRequest().body("Order ID is required");
         }
-        System.out.println("Processing payment for Order: " + orderId + ", Amount: " + amount);
 
-        if(amount != null && amount > 1000){
-            System.err.println("Payment Failed: Insufficient funds for Order: " + orderId);
-            return ResponseEntity.badRequest().body("Payment Failed: Insufficient funds for Order: " + orderId);
+        PaymentItemResult result = charge(orderId, amount);
+        return ResponseEntity.status(result.accepted() ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+                .header(PAYMENT_STATUS_HEADER, result.status().name())
+                .header(REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.message());
+    }
+
+    /**
+     * Charges many orders in one request. Always 200 when the batch itself is valid; each item carries
+     * its own outcome, with the same idempotency as {@code POST /payment}.
+     */
+    @PostMapping("/payment/batch")
+    public ResponseEntity<?> processPaymentBatch(@RequestBody List<PaymentRequest> requests){
+        if(requests.size() > maxBatchSize){
+            return ResponseEntity.badRequest().body("Batch exceeds " + maxBatchSize + " payments");
         }
-        return ResponseEntity.ok("Payment Processed Successfully for Order: " + orderId);
+        List<PaymentItemResult> results = requests.stream()
+                .map(request -> request.orderId() == null
+                        ? new PaymentItemResult(null, false, PaymentStatus.DECLINED, false, "Order ID is required")
+                        : charge(request.orderId(), request.amount()))
+                .toList();
+        return ResponseEntity.ok(results);
     }
 
     @PostMapping("/payment/cancel")
@@ -30,8 +70,46 @@ public class PaymentController {
         if(orderId == null){
             return ResponseEntity.badRequest().body("Order id is required");
         }
-        System.out.println("Cancelling payment for Order: " + orderId);
-        return ResponseEntity.ok("Payment Cancelled Successfully for Order: " + orderId);
+
+        PaymentResult result = paymentService.cancel(orderId);
+        if(result.status() == PaymentStatus.REFUNDED){
+            System.out.println("Cancelling payment for Order: " + orderId + ", refunded");
+            return respond(HttpStatus.OK, result, "Payment Refunded Successfully for Order: " + orderId);
+        }
+        // VOIDED or DECLINED: nothing was ever taken
+        System.out.println("Cancelling payment for Order: " + orderId + ", never charged");
+        return respond(HttpStatus.OK, result, "Payment Cancelled for Order: " + orderId + ", nothing was charged");
+    }
+
+    private PaymentItemResult charge(UUID orderId, Double amount){
+        PaymentResult result = paymentService.charge(orderId, amount);
+        if(result.replayed()){
+            System.out.println("Replaying payment outcome " + result.status() + " for Order: " + orderId);
+        } else {
+            System.out.println("Processing payment for Order: " + orderId + ", Amount: " + amount);
+        }
+
+        if(result.status() == PaymentStatus.DECLINED){
+            System.err.println("Payment Failed: Insufficient funds for Order: " + orderId);
+            return item(orderId, false, result, "Payment Failed: Insufficient funds for Order: " + orderId);
+        }
+        if(result.status() == PaymentStatus.VOIDED){
+            System.err.println("Payment Failed: Order " + orderId + " was cancelled before it was charged");
+            return item(orderId, false, result, "Payment Failed: Order " + orderId + " was cancelled before it was charged");
+        }
+        // CHARGED, or REFUNDED: the first charge succeeded and that is what a duplicate is told
+        return item(orderId, true, result, "Payment Processed Successfully for Order: " + orderId);
+    }
+
+    private static PaymentItemResult item(UUID orderId, boolean accepted, PaymentResult result, String message) {
+        return new PaymentItemResult(orderId, accepted, result.status(), result.replayed(), message);
+    }
+
+    private static ResponseEntity<String> respond(HttpStatus status, PaymentResult result, String body) {
+        return ResponseEntity.status(status)
+                .header(PAYMENT_STATUS_HEADER, result.status().name())
+                .header(REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(body);
     }
 
 }
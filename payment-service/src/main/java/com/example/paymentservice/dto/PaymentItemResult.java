@@ -0,0 +1,12 @@
+package com.example.paymentservice.dto;
+
+import java.util.UUID;
+
+import com.example.paymentservice.service.PaymentStatus;
+
+/**
+ * Per-item answer of {@code POST /payment/batch}; message is what {@code POST /payment} would have
+ * answered for the order.
+ */
+public record PaymentItemResult(UUID orderId, boolean accepted, PaymentStatus status, boolean replayed, String message) {
+}
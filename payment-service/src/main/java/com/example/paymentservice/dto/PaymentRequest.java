@@ -0,0 +1,9 @@
+package com.example.paymentservice.dto;
+
+import java.util.UUID;
+
+/**
+ * One item of {@code POST /payment/batch}.
+ */
+public record PaymentRequest(UUID orderId, Double amount) {
+}
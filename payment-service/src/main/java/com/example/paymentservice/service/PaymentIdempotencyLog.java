@@ -0,0 +1,125 @@
+package com.example.paymentservice.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only file of payment outcomes, 25 bytes per record: order id, status ordinal, recorded-at.
+ * Each record is flushed to the OS before the response is sent, so a restarted process replays every
+ * answer it gave; there is no fsync, so a machine crash can lose the last records. The log is rewritten
+ * with only the live outcomes on startup and after every compact-after appends.
+ */
+class PaymentIdempotencyLog {
+
+    private final Path path;
+    private final long compactAfter;
+    // Held across the file writes of append and rewrite; a virtual thread waiting on that I/O inside a
+    // synchronized block would keep its carrier thread pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private DataOutputStream out;
+    private long appended;
+
+    PaymentIdempotencyLog(Path path, long compactAfter) {
+        this.path = path;
+        this.compactAfter = compactAfter;
+    }
+
+    /**
+     * Feeds every complete record to the consumer in append order. A torn record at the end, left by a
+     * crash mid-write, is skipped and disappears with the rewrite that follows.
+     */
+    void replay(BiConsumer<UUID, PaymentRecord> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        PaymentStatus[] statuses = PaymentStatus.values();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                UUID orderId;
+                PaymentRecord record;
+                try {
+                    orderId = new UUID(in.readLong(), in.readLong());
+                    record = new PaymentRecord(statuses[in.readByte()], in.readLong());
+                } catch (EOFException e) {
+                    return;
+                }
+                consumer.accept(orderId, record);
+            }
+        }
+    }
+
+    /**
+     * Replaces the log with the given outcomes and keeps it open for appends.
+     */
+    void rewrite(Map<UUID, PaymentRecord> live) throws IOException {
+        lock.lock();
+        try {
+            if (out != null) {
+                out.close();
+            }
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                for (Map.Entry<UUID, PaymentRecord> entry : live.entrySet()) {
+                    write(compacted, entry.getKey(), entry.getValue());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(path, StandardOpenOption.APPEND)));
+            appended = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the record; once compact-after records piled up, rewrites the log from {@code live} first.
+     */
+    void append(UUID orderId, PaymentRecord record, Map<UUID, PaymentRecord> live) throws IOException {
+        lock.lock();
+        try {
+            if (appended >= compactAfter) {
+                // The record is already in live, so the rewrite includes it
+                rewrite(live);
+                return;
+            }
+            write(out, orderId, record);
+            out.flush();
+            appended++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() throws IOException {
+        lock.lock();
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void write(DataOutputStream stream, UUID orderId, PaymentRecord record) throws IOException {
+        stream.writeLong(orderId.getMostSignificantBits());
+        stream.writeLong(orderId.getLeastSignificantBits());
+        stream.writeByte(record.status().ordinal());
+        stream.writeLong(record.recordedAt());
+    }
+}
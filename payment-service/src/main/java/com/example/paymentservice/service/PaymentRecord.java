@@ -0,0 +1,8 @@
+package com.example.paymentservice.service;
+
+/**
+ * Outcome remembered for an order, with the wall-clock time it was recorded so the TTL carries over
+ * a restart.
+ */
+public record PaymentRecord(PaymentStatus status, long recordedAt) {
+}
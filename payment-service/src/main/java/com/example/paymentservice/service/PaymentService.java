@@ -0,0 +1,199 @@
+package com.example.paymentservice.service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import com.example.paymentservice.config.PaymentIdempotencyProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Charges and cancellations, idempotent per orderId. The first outcome of an order is kept in a bounded
+ * cache that expires entries after the TTL and replayed for duplicates without charging again. New
+ * outcomes are appended to the {@link PaymentIdempotencyLog} so the cache survives a restart.
+ */
+@Service
+public class PaymentService {
+
+    private static final double MAX_AMOUNT = 1000;
+
+    private final Cache<UUID, PaymentRecord> outcomes;
+    // Null when payment.idempotency.log.enabled is false
+    private final PaymentIdempotencyLog log;
+
+    private final Counter hits;
+    private final Counter misses;
+    // Indexed by PaymentStatus ordinal
+    private final Counter[] outcomeCounters = new Counter[PaymentStatus.values().length];
+    private final Timer logAppend;
+
+    public PaymentService(PaymentIdempotencyProperties properties, MeterRegistry meterRegistry) {
+        long ttlMillis = properties.getTtl().toMillis();
+        Counter sizeEvictions = evictionCounter(meterRegistry, "size");
+        Counter expiredEvictions = evictionCounter(meterRegistry, "expired");
+
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfter(new RecordedAtExpiry(ttlMillis))
+                .evictionListener((UUID orderId, PaymentRecord record, RemovalCause cause) ->
+                        (cause == RemovalCause.EXPIRED ? expiredEvictions : sizeEvictions).increment())
+                .build();
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("payment.idempotency.size", outcomes, Cache::estimatedSize)
+                .description("Orders whose payment outcome is remembered")
+                .register(meterRegistry);
+        for (PaymentStatus status : PaymentStatus.values()) {
+            outcomeCounters[status.ordinal()] = Counter.builder("payment.outcomes")
+                    .description("Payment outcomes recorded, replays excluded")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+        this.logAppend = Timer.builder("payment.idempotency.log.append")
+                .description("Time spent appending an outcome to the idempotency log")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.log = properties.getLog().isEnabled()
+                ? new PaymentIdempotencyLog(Paths.get(properties.getLog().getPath()).toAbsolutePath(),
+                        properties.getLog().getCompactAfter())
+                : null;
+        if (log != null) {
+            restore(ttlMillis);
+        }
+    }
+
+    public PaymentResult charge(UUID orderId, Double amount) {
+        PaymentRecord existing = outcomes.getIfPresent(orderId);
+        if (existing == null) {
+            PaymentStatus status = amount != null && amount > MAX_AMOUNT ? PaymentStatus.DECLINED : PaymentStatus.CHARGED;
+            PaymentRecord fresh = new PaymentRecord(status, System.currentTimeMillis());
+            existing = outcomes.asMap().putIfAbsent(orderId, fresh);
+            if (existing == null) {
+                misses.increment();
+                outcomeCounters[status.ordinal()].increment();
+                append(orderId, fresh);
+                return new PaymentResult(status, false);
+            }
+        }
+        hits.increment();
+        return new PaymentResult(existing.status(), true);
+    }
+
+    /**
+     * Refunds a charged order, or voids an order that was never charged so a charge arriving later is
+     * refused. Repeated cancellations replay the first one.
+     */
+    public PaymentResult cancel(UUID orderId) {
+        PaymentRecord[] previous = new PaymentRecord[1];
+        PaymentRecord current = outcomes.asMap().compute(orderId, (id, existing) -> {
+            previous[0] = existing;
+            if (existing == null) {
+                return new PaymentRecord(PaymentStatus.VOIDED, System.currentTimeMillis());
+            }
+            if (existing.status() == PaymentStatus.CHARGED) {
+                return new PaymentRecord(PaymentStatus.REFUNDED, System.currentTimeMillis());
+            }
+            return existing;
+        });
+
+        (previous[0] == null ? misses : hits).increment();
+        boolean changed = current != previous[0];
+        if (changed) {
+            outcomeCounters[current.status().ordinal()].increment();
+            append(orderId, current);
+        }
+        return new PaymentResult(current.status(), !changed);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private void restore(long ttlMillis) {
+        long started = System.nanoTime();
+        long expiredBefore = System.currentTimeMillis() - ttlMillis;
+        try {
+            log.replay((orderId, record) -> {
+                if (record.recordedAt() > expiredBefore) {
+                    outcomes.asMap().merge(orderId, record, (first, second) ->
+                            PaymentStatus.merge(first.status(), second.status()) == first.status() ? first : second);
+                }
+            });
+            log.rewrite(outcomes.asMap());
+        } catch (IOException e) {
+            // Refuse to start rather than forget outcomes and charge duplicates again
+            throw new IllegalStateException("Payment Idempotency: Could not restore the log", e);
+        }
+        System.out.println("Payment Idempotency: Restored " + outcomes.estimatedSize() + " outcomes in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    private void append(UUID orderId, PaymentRecord record) {
+        if (log == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            log.append(orderId, record, outcomes.asMap());
+            logAppend.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            System.err.println("Payment Idempotency: Could not log outcome for Order: " + orderId
+                    + " Error: " + e.getMessage());
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("payment.idempotency.lookups")
+                .description("Payment requests by whether the order already had an outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter evictionCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("payment.idempotency.evictions")
+                .description("Remembered outcomes dropped before being asked for again")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    public record PaymentResult(PaymentStatus status, boolean replayed) {
+    }
+
+    /**
+     * Expires an outcome TTL after it was recorded, also for outcomes restored from the log.
+     */
+    private record RecordedAtExpiry(long ttlMillis) implements Expiry<UUID, PaymentRecord> {
+
+        @Override
+        public long expireAfterCreate(UUID orderId, PaymentRecord record, long currentTime) {
+            long remainingMillis = ttlMillis - (System.currentTimeMillis() - record.recordedAt());
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID orderId, PaymentRecord record, long currentTime, long currentDuration) {
+            return expireAfterCreate(orderId, record, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID orderId, PaymentRecord record, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.paymentservice.service;
+
+/**
+ * What happened to an order's payment. Written to the idempotency log by ordinal, so new values must be
+ * added at the end.
+ */
+public enum PaymentStatus {
+    // Charge succeeded
+    CHARGED,
+    // Charge refused, nothing was taken
+    DECLINED,
+    // Charged, then cancelled and refunded
+    REFUNDED,
+    // Cancelled before any charge; a charge arriving later is refused
+    VOIDED;
+
+    /**
+     * Which of two records of the same order the log replay keeps. A refund always comes after the
+     * charge it undoes, whatever order the two records were appended in; otherwise the first one wins.
+     */
+    static PaymentStatus merge(PaymentStatus first, PaymentStatus second) {
+        if (first == CHARGED && second == REFUNDED) {
+            return REFUNDED;
+        }
+        return first;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.paymentservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.paymentservice.config.PaymentIdempotencyProperties;
+import com.example.paymentservice.service.PaymentService.PaymentResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PaymentServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private PaymentIdempotencyProperties properties;
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PaymentIdempotencyProperties();
+        properties.getLog().setPath(directory.resolve("payment-idempotency.log").toString());
+        paymentService = start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        paymentService.close();
+    }
+
+    @Test
+    void duplicateChargeReplaysTheFirstOutcome() {
+        UUID orderId = UUID.randomUUID();
+
+        assertThat(paymentService.charge(orderId, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.CHARGED, false));
+        // A retry with a different amount is still the same order
+        assertThat(paymentService.charge(orderId, 5000.0)).isEqualTo(new PaymentResult(PaymentStatus.CHARGED, true));
+    }
+
+    @Test
+    void duplicateDeclinedChargeStaysDeclined() {
+        UUID orderId = UUID.randomUUID();
+
+        assertThat(paymentService.charge(orderId, 5000.0)).isEqualTo(new PaymentResult(PaymentStatus.DECLINED, false));
+        assertThat(paymentService.charge(orderId, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.DECLINED, true));
+    }
+
+    @Test
+    void duplicateCancelReplaysTheRefund() {
+        UUID orderId = UUID.randomUUID();
+        paymentService.charge(orderId, 100.0);
+
+        assertThat(paymentService.cancel(orderId)).isEqualTo(new PaymentResult(PaymentStatus.REFUNDED, false));
+        assertThat(paymentService.cancel(orderId)).isEqualTo(new PaymentResult(PaymentStatus.REFUNDED, true));
+        // The refunded order is not charged again
+        assertThat(paymentService.charge(orderId, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.REFUNDED, true));
+    }
+
+    @Test
+    void cancelBeforeChargeVoidsTheOrder() {
+        UUID orderId = UUID.randomUUID();
+
+        assertThat(paymentService.cancel(orderId)).isEqualTo(new PaymentResult(PaymentStatus.VOIDED, false));
+        assertThat(paymentService.charge(orderId, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.VOIDED, true));
+        assertThat(paymentService.cancel(orderId)).isEqualTo(new PaymentResult(PaymentStatus.VOIDED, true));
+    }
+
+    @Test
+    void concurrentDuplicateChargesChargeOnce() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<PaymentResult> results = new ArrayList<>();
+        try {
+            List<Future<PaymentResult>> charges = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                charges.add(executor.submit(() -> {
+                    start.await();
+                    return paymentService.charge(orderId, 100.0);
+                }));
+            }
+            start.countDown();
+            for (Future<PaymentResult> charge : charges) {
+                results.add(charge.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(results).extracting(PaymentResult::status).containsOnly(PaymentStatus.CHARGED);
+        assertThat(results).filteredOn(result -> !result.replayed()).hasSize(1);
+    }
+
+    @Test
+    void outcomesSurviveARestart() throws IOException {
+        UUID charged = UUID.randomUUID();
+        UUID refunded = UUID.randomUUID();
+        UUID voided = UUID.randomUUID();
+        paymentService.charge(charged, 100.0);
+        paymentService.charge(refunded, 100.0);
+        paymentService.cancel(refunded);
+        paymentService.cancel(voided);
+
+        paymentService.close();
+        paymentService = start();
+
+        assertThat(paymentService.charge(charged, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.CHARGED, true));
+        assertThat(paymentService.charge(refunded, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.REFUNDED, true));
+        assertThat(paymentService.cancel(refunded)).isEqualTo(new PaymentResult(PaymentStatus.REFUNDED, true));
+        assertThat(paymentService.charge(voided, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.VOIDED, true));
+    }
+
+    @Test
+    void tornRecordAtTheEndOfTheLogIsSkipped() throws IOException {
+        UUID orderId = UUID.randomUUID();
+        paymentService.charge(orderId, 100.0);
+        paymentService.close();
+        // Half a record, as left by a crash mid-write
+        Files.write(Path.of(properties.getLog().getPath()), new byte[12], StandardOpenOption.APPEND);
+
+        paymentService = start();
+
+        assertThat(paymentService.charge(orderId, 100.0)).isEqualTo(new PaymentResult(PaymentStatus.CHARGED, true));
+        // The rewrite on startup dropped the torn bytes: one 25-byte record is left
+        assertThat(Files.size(Path.of(properties.getLog().getPath()))).isEqualTo(25);
+    }
+
+    @Test
+    void compactionKeepsEveryOutcome() throws IOException {
+        properties.getLog().setCompactAfter(3);
+        paymentService.close();
+        paymentService = start();
+        List<UUID> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID orderId = UUID.randomUUID();
+            paymentService.charge(orderId, 100.0);
+            orders.add(orderId);
+        }
+
+        paymentService.close();
+        paymentService = start();
+
+        for (UUID orderId : orders) {
+            assertThat(paymentService.charge(orderId, 100.0).replayed()).isTrue();
+        }
+    }
+
+    private PaymentService start() {
+        return new PaymentService(properties, new SimpleMeterRegistry());
+    }
+}